@@ -0,0 +1,78 @@
+package com.example.subscriptiontracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(
+            @Value("${scheduler.pool-size:6}") int poolSize) {
+        // Spring's default scheduler has a single thread, so one long job (the weekly reports, the
+        // snapshots) would hold back the webhook inbox, the mail outbox and every other poller.
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${analytics.dashboard.executor.threads:8}") int threads,
+            @Value("${analytics.dashboard.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        // When saturated, run the sub-query on the request thread instead of failing the dashboard.
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool analyticsForkJoinPool(
+            @Value("${analytics.platform.parallelism:0}") int parallelism) {
+        // Kept apart from the common pool so a platform scan cannot starve parallel streams elsewhere.
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mailDispatchExecutor(
+            @Value("${mail.dispatch.threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // BulkMailDispatcher keeps at most 2x threads tasks in flight, so this never fills up.
+        executor.setQueueCapacity(threads * 2);
+        executor.setThreadNamePrefix("mail-dispatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor webhookExecutor(
+            @Value("${webhooks.inbox.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // WebhookInboxProcessor claims at most 2x threads events at a time, so this never fills up.
+        executor.setQueueCapacity(threads * 2);
+        executor.setThreadNamePrefix("webhook-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.subscriptiontracker.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DASHBOARD_CACHE = "dashboard";
+    public static final String CATEGORY_BREAKDOWN_CACHE = "categoryBreakdown";
+    public static final String PLATFORM_ANALYTICS_CACHE = "platformAnalytics";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${analytics.cache.maximum-size:10000}") long maximumSize,
+            @Value("${analytics.cache.ttl:PT5M}") Duration ttl,
+            @Value("${analytics.platform.cache-ttl:PT15M}") Duration platformTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(DASHBOARD_CACHE, CATEGORY_BREAKDOWN_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        // A platform scan reads the whole subscription table, so its result is reused for longer
+        // and is not evicted by individual writes.
+        cacheManager.registerCustomCache(PLATFORM_ANALYTICS_CACHE, Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(platformTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -20,6 +20,7 @@ public class WebConfig {
         ));
         config.setAllowedMethods(List.of("GET","POST","PUT","DELETE","PATCH","OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("ETag"));
         config.setAllowCredentials(true);
         config.setMaxAge(3600L);
 
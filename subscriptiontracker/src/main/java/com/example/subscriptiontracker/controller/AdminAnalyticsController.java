@@ -0,0 +1,37 @@
+package com.example.subscriptiontracker.controller;
+
+import com.example.subscriptiontracker.dto.PlatformAnalyticsResponse;
+import com.example.subscriptiontracker.service.PlatformAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminAnalyticsController {
+
+    private final PlatformAnalyticsService platformAnalyticsService;
+
+    @GetMapping("/platform")
+    public ResponseEntity<PlatformAnalyticsResponse> getPlatformAnalytics(
+            @RequestParam(defaultValue = "10") int top) {
+        log.info("🌐 Platform analytics request (top {} services)", top);
+
+        try {
+            PlatformAnalyticsResponse analytics = platformAnalyticsService.generatePlatformAnalytics(top);
+
+            log.info("✅ Platform analytics generated: {} active subscriptions, ${} MRR",
+                    analytics.getActiveSubscriptions(),
+                    analytics.getMonthlyRecurringRevenue());
+
+            return ResponseEntity.ok(analytics);
+        } catch (Exception e) {
+            log.error("❌ Failed to generate platform analytics: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
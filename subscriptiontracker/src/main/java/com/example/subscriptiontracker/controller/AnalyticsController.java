@@ -1,12 +1,24 @@
 package com.example.subscriptiontracker.controller;
 
+import com.example.subscriptiontracker.dto.CacheStatsResponse;
 import com.example.subscriptiontracker.dto.DashboardResponse;
+import com.example.subscriptiontracker.dto.RecentActivityItem;
+import com.example.subscriptiontracker.dto.RenewalForecastResponse;
 import com.example.subscriptiontracker.dto.SpendingAnalyticsResponse;
+import com.example.subscriptiontracker.service.ActivityCursor;
+import com.example.subscriptiontracker.service.AnalyticsCacheService;
 import com.example.subscriptiontracker.service.AnalyticsService;
+import com.example.subscriptiontracker.service.ETagService;
+import com.example.subscriptiontracker.service.RenewalForecast;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -16,13 +28,20 @@ import org.springframework.web.bind.annotation.*;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AnalyticsCacheService analyticsCacheService;
+    private final ETagService eTagService;
 
     @GetMapping("/dashboard/{userId}")
-    public ResponseEntity<DashboardResponse> getDashboard(@PathVariable Long userId) {
+    public ResponseEntity<DashboardResponse> getDashboard(@PathVariable Long userId, WebRequest request) {
         log.info("\uD83D\uDCCA Dashboard request for user: {}", userId);
 
         try {
+            // The body is usually cached, so it is tagged with the version it was built from, not the current one.
             DashboardResponse dashboard = analyticsService.generateDashboard(userId);
+            String eTag = eTagService.dailyUserETag(userId, dashboard.getDataVersion());
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
 
             log.info("✅ Dashboard generated: {} active subscriptions, ${} monthly",
                     dashboard.getActiveSubscriptions(),
@@ -38,11 +57,17 @@ public class AnalyticsController {
     @GetMapping("/spending-trends/{userId}")
     public ResponseEntity<SpendingAnalyticsResponse> getSpendingTrends(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "12") int months){
+            @RequestParam(defaultValue = "12") int months,
+            WebRequest request){
 
         log.info("📈 Spending trends request for user {} over {} months", userId, months);
 
         try {
+            String eTag = eTagService.dailyUserETag(userId);
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
+
             SpendingAnalyticsResponse analytics = analyticsService.getSpendingAnalytics(userId, months);
 
             log.info("✅ Spending trends generated: {} data points, trend: {}",
@@ -56,12 +81,45 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/forecast/{userId}")
+    public ResponseEntity<RenewalForecastResponse> getRenewalForecast(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "12") int months,
+            @RequestParam(defaultValue = "month") String granularity,
+            WebRequest request) {
+
+        log.info("🔮 Renewal forecast request for user {} over {} months by {}", userId, months, granularity);
+
+        try {
+            String eTag = eTagService.dailyUserETag(userId);
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
+
+            RenewalForecastResponse forecast = analyticsService.getRenewalForecast(
+                    userId, months, RenewalForecast.Granularity.valueOf(granularity.toUpperCase()));
+
+            log.info("✅ Renewal forecast generated: {} renewals, ${} total",
+                    forecast.getTotalRenewals(),
+                    forecast.getTotalAmount());
+
+            return ResponseEntity.ok(forecast);
+        } catch (Exception e) {
+            log.error("❌ Failed to generate renewal forecast for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/categories/{userId}")
-    public ResponseEntity<SpendingAnalyticsResponse> getCategoryBreakdown(@PathVariable Long userId) {
+    public ResponseEntity<SpendingAnalyticsResponse> getCategoryBreakdown(@PathVariable Long userId, WebRequest request) {
         log.info("🥧 Category breakdown request for user: {}", userId);
 
         try {
             SpendingAnalyticsResponse analytics = analyticsService.getCategoryBreakdown(userId);
+            String eTag = eTagService.userETag(userId, analytics.getDataVersion());
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
 
             log.info("✅ Category breakdown generated: {} categories",
                     analytics.getCategoryData() != null ? analytics.getCategoryData().size() : 0);
@@ -73,4 +131,38 @@ public class AnalyticsController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @GetMapping("/activity/{userId}")
+    public ResponseEntity<List<RecentActivityItem>> getActivityTimeline(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+
+        log.info("🕒 Activity timeline request for user {} after {} / before {}", userId, cursor, before);
+
+        try {
+            String eTag = eTagService.userETag(userId);
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
+
+            // The cursor of the last item of a page; a plain timestamp is still accepted.
+            ActivityCursor after = cursor != null ? ActivityCursor.parse(cursor)
+                    : before != null ? ActivityCursor.before(before) : null;
+            List<RecentActivityItem> activity = analyticsService.getActivityTimeline(userId, after, limit);
+
+            log.info("✅ Activity timeline generated: {} items", activity.size());
+            return ResponseEntity.ok(activity);
+        } catch (Exception e) {
+            log.error("❌ Failed to fetch activity timeline for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        return ResponseEntity.ok(analyticsCacheService.getStats());
+    }
 }
@@ -2,6 +2,7 @@ package com.example.subscriptiontracker.controller;
 
 import com.example.subscriptiontracker.dto.LoginRequest;
 import com.example.subscriptiontracker.dto.RegisterRequest;
+import com.example.subscriptiontracker.dto.ReminderScheduleRequest;
 import com.example.subscriptiontracker.dto.UserResponse;
 import com.example.subscriptiontracker.model.User;
 import com.example.subscriptiontracker.service.UserService;
@@ -30,13 +31,7 @@ public class AuthController {
                     request.getPassword()
             );
 
-            UserResponse response = UserResponse.builder()
-                    .id(user.getId())
-                    .email(user.getEmail())
-                    .name(user.getName())
-                    .emailNotifications(user.isEmailNotifications())
-                    .createdAt(user.getCreatedAt())
-                    .build();
+            UserResponse response = toResponse(user);
 
             log.info("User successfully registered with ID: {}", user.getId());
             return ResponseEntity.ok(response);
@@ -56,13 +51,7 @@ public class AuthController {
                     request.getPassword()
             );
 
-            UserResponse response = UserResponse.builder()
-                    .id(user.getId())
-                    .email(user.getEmail())
-                    .name(user.getName())
-                    .emailNotifications(user.isEmailNotifications())
-                    .createdAt(user.getCreatedAt())
-                    .build();
+            UserResponse response = toResponse(user);
 
             log.info("User {} successfully authenticated", user.getEmail());
             return ResponseEntity.ok(response);
@@ -80,13 +69,7 @@ public class AuthController {
         try {
             User user = userService.getUserById(userId);
 
-            UserResponse response = UserResponse.builder()
-                    .id(user.getId())
-                    .email(user.getEmail())
-                    .name(user.getName())
-                    .emailNotifications(user.isEmailNotifications())
-                    .createdAt(user.getCreatedAt())
-                    .build();
+            UserResponse response = toResponse(user);
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -95,4 +78,29 @@ public class AuthController {
         }
     }
 
+    @PutMapping("/users/{userId}/reminder-schedule")
+    public ResponseEntity<UserResponse> updateReminderSchedule(@PathVariable Long userId,
+                                                               @Valid @RequestBody ReminderScheduleRequest request) {
+        log.info("Reminder schedule update for user {}: {} at {}", userId, request.getTimeZone(), request.getSendTime());
+
+        try {
+            User user = userService.updateReminderSchedule(userId, request.getTimeZone(), request.getSendTime());
+            return ResponseEntity.ok(toResponse(user));
+        } catch (Exception e) {
+            log.error("Failed to update reminder schedule for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private UserResponse toResponse(User user) {
+        return UserResponse.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .emailNotifications(user.isEmailNotifications())
+                .timeZone(user.getTimeZone())
+                .reminderSendTime(user.getReminderSendTime())
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
 }
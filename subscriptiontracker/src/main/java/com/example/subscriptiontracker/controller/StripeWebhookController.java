@@ -1,15 +1,15 @@
 package com.example.subscriptiontracker.controller;
 
 import com.stripe.model.Event;
-import com.stripe.model.Invoice;
-import com.stripe.model.Subscription;
 import com.stripe.net.Webhook;
 import com.stripe.exception.SignatureVerificationException;
 import org.springframework.http.HttpStatus;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import com.example.subscriptiontracker.service.SubscriptionService;
+import com.example.subscriptiontracker.service.StripeEventHandler;
+import com.example.subscriptiontracker.service.WebhookInboxService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,18 +20,22 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 
 @RestController
 @RequestMapping("/api/webhooks")
 @RequiredArgsConstructor
 @Slf4j
 public class StripeWebhookController {
-    private final SubscriptionService subscriptionService;
+    private final StripeEventHandler stripeEventHandler;
+    private final WebhookInboxService webhookInboxService;
 
     @Value("${stripe.webhook.secret}")
     private String webhookSecret;
 
+    // Store verified events and acknowledge at once; WebhookInboxProcessor applies them.
+    @Value("${webhooks.inbox.enabled:false}")
+    private boolean inboxEnabled;
+
 
     @PostMapping("/stripe")
     public ResponseEntity<String> handleStripeWebhook(HttpServletRequest request) {
@@ -63,33 +67,25 @@ public class StripeWebhookController {
             return ResponseEntity.badRequest().body("Error parsing webhook");
         }
 
-        log.info("📬 Processing Stripe event: {} with ID: {}", event.getType(), event.getId());
+        if (inboxEnabled) {
+            try {
+                if (!webhookInboxService.append(event, payload, sigHeader)) {
+                    log.info("ℹ️ Stripe event {} is already in the inbox", event.getId());
+                }
+                return ResponseEntity.ok("Webhook received");
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent redelivery of the same event stored it first.
+                log.info("ℹ️ Stripe event {} is already in the inbox", event.getId());
+                return ResponseEntity.ok("Webhook received");
+            } catch (Exception e) {
+                // Only a stored event may be acknowledged; Stripe retries anything else.
+                log.error("❌ Error storing webhook event {}: {}", event.getId(), e.getMessage(), e);
+                return ResponseEntity.internalServerError().body("Error storing webhook");
+            }
+        }
 
         try {
-            switch (event.getType()) {
-                case "invoice.payment_succeeded":
-                    handlePaymentSucceeded(event);
-                    break;
-
-                case "invoice.payment_failed":
-                    handlePaymentFailed(event);
-                    break;
-
-                case "customer.subscription.updated":
-                    handleSubscriptionUpdated(event);
-                    break;
-
-                case "customer.subscription.deleted":
-                    handleSubscriptionDeleted(event);
-                    break;
-
-                case "invoice.upcoming":
-                    handleUpcomingInvoice(event);
-                    break;
-
-                default:
-                    log.info("ℹ️ Unhandled event type: {}", event.getType());
-            }
+            stripeEventHandler.handle(event);
 
             log.info("✅ Successfully processed webhook event: {}", event.getType());
             return ResponseEntity.ok("Webhook processed successfully");
@@ -99,176 +95,6 @@ public class StripeWebhookController {
         }
     }
 
-    private void handlePaymentSucceeded(Event event) {
-        log.info("✅ Processing payment succeeded event");
-
-        try {
-            Invoice invoice = (Invoice) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if(invoice != null) {
-                String stripeSubscriptionId = getSubscriptionId(invoice);
-
-                BigDecimal amount = BigDecimal.valueOf(invoice.getAmountPaid() / 100.0);
-                String currency = invoice.getCurrency().toUpperCase();
-
-                log.info("💰 Payment succeeded: ${} {} for subscription {}",
-                        amount, currency, stripeSubscriptionId);
-
-                subscriptionService.processPaymentEvent(
-                        stripeSubscriptionId,
-                        "PAYMENT_SUCCESS",
-                        amount,
-                        currency,
-                        event.getId()
-                );
-
-                log.info("✅ Successfully processed payment success for subscription: {}", stripeSubscriptionId);
-            } else {
-                log.warn("⚠️ Payment succeeded event missing invoice or subscription data");
-            }
-        } catch (Exception e) {
-            log.error("❌ Error processing payment succeeded webhook: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    private void handlePaymentFailed(Event event) {
-        log.warn("❌ Processing payment failed event");
-
-        try {
-            Invoice invoice = (Invoice) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if (invoice != null) {
-                String stripeSubscriptionId = getSubscriptionId(invoice);
-
-                // Convert cents to dollars
-                BigDecimal amount = BigDecimal.valueOf(invoice.getAmountDue() / 100.0);
-                String currency = invoice.getCurrency().toUpperCase();
-
-                log.warn("💳 Payment FAILED: ${} {} for subscription {}",
-                        amount, currency, stripeSubscriptionId);
-
-                // Record the failure and send alert to user
-                subscriptionService.processPaymentEvent(
-                        stripeSubscriptionId,
-                        "PAYMENT_FAILED",
-                        amount,
-                        currency,
-                        event.getId()
-                );
-
-                log.info("✅ Successfully processed payment failure for subscription: {}", stripeSubscriptionId);
-
-            } else {
-                log.warn("⚠️ Payment failed event missing invoice or subscription data");
-            }
-
-        } catch (Exception e) {
-            log.error("❌ Error processing payment failed webhook: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    private void handleSubscriptionUpdated(Event event) {
-        log.info("\uD83D\uDD04 Processing subscription updated event");
-
-        try {
-            Subscription stripeSubscription = (Subscription) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if(stripeSubscription != null) {
-                String subscriptionId = stripeSubscription.getId();
-
-                if(stripeSubscription.getItems() != null && !stripeSubscription.getItems().getData().isEmpty()) {
-                    Long newPriceAmount = stripeSubscription.getItems()
-                            .getData()
-                            .get(0)
-                            .getPrice()
-                            .getUnitAmount();
-
-                    if(newPriceAmount != null) {
-                        BigDecimal newPrice = BigDecimal.valueOf(newPriceAmount / 100.0);
-
-                        log.info("\uD83D\uDCB0 Price detected in subscription update: ${} for subscription {}",
-                                newPrice, subscriptionId);
-
-                        subscriptionService.handlePriceChangeFromWebhook(subscriptionId, newPrice);
-                    }
-                }
-
-                log.info("✅ Successfully processed subscription update for: {}", subscriptionId);
-            } else {
-                log.warn("⚠️ Subscription updated event missing subscription data");
-            }
-        } catch (Exception e) {
-            log.error("❌ Error processing subscription updated webhook: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    private void handleSubscriptionDeleted(Event event) {
-        log.info("\uD83D\uDDD1\uFE0F Processing subscription deleted event");
-
-        try {
-            Subscription stripeSubscription = (Subscription) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if (stripeSubscription != null) {
-                String subscriptionId = stripeSubscription.getId();
-
-                log.info("\uD83D\uDDD1\uFE0F Subscription cancelled: {}", subscriptionId);
-
-                subscriptionService.handleStripeSubscriptionCancellation(subscriptionId);
-
-                log.info("✅ Successfully processed subscription cancellation for: {}", subscriptionId);
-            } else {
-                log.warn("⚠️ Subscription deleted event missing subscription data");
-            }
-        } catch (Exception e) {
-            log.error("❌ Error processing subscription deleted webhook: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    private void handleUpcomingInvoice(Event event) {
-        log.info("\uD83D\uDCC5 Processing upcoming invoice event");
-
-        try {
-            Invoice invoice = (Invoice) event.getDataObjectDeserializer().getObject().orElse(null);
-
-            if(invoice != null) {
-                String subscriptionId = getSubscriptionId(invoice);
-                BigDecimal renewalAmount = BigDecimal.valueOf(invoice.getAmountDue() / 100.0);
-
-                log.info("📅 Upcoming renewal detected: ${} for subscription {}",
-                        renewalAmount, subscriptionId);
-
-                subscriptionService.handleUpcomingRenewal(subscriptionId, renewalAmount);
-
-                log.info("✅ Successfully processed upcoming invoice for: {}", subscriptionId);
-            } else {
-                log.warn("⚠️ Upcoming invoice event missing invoice or subscription data");
-            }
-        } catch (Exception e) {
-            log.error("❌ Error processing upcoming invoice webhook: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    private String getSubscriptionId(Invoice invoice) {
-        try {
-            Object subscription = invoice.getSubscription();
-            if (subscription == null) {
-                return null;
-            }
-            if (subscription instanceof String) {
-                return (String) subscription;
-            }
-            return subscription.toString();
-        } catch (Exception e) {
-            log.error("Error extracting subscription ID from invoice: {}", e.getMessage());
-            return null;
-        }
-    }
-
     @GetMapping("/test")
     public ResponseEntity<String> testWebhook() {
         log.info("\uD83E\uDDEA Webhook test endpoint called");
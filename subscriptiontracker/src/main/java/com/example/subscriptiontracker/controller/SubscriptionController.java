@@ -6,12 +6,14 @@ import com.example.subscriptiontracker.dto.UpdateSubscriptionRequest;
 import com.example.subscriptiontracker.model.Subscription;
 import com.example.subscriptiontracker.model.SubscriptionStatus;
 import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.service.ETagService;
 import com.example.subscriptiontracker.service.SubscriptionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,14 +26,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SubscriptionController {
     private final SubscriptionService subscriptionService;
+    private final ETagService eTagService;
 
     private final SubscriptionRepository subscriptionRepository;
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptions(@PathVariable Long userId) {
+    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptions(@PathVariable Long userId, WebRequest request) {
         log.info("Fetching subscriptions for user: {}", userId);
 
         try{
+            String eTag = eTagService.dailyUserETag(userId);
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
+
             //List<Subscription> subscriptions = subscriptionService.getUserSubscriptions(userId);
             List<Subscription> subscriptions = subscriptionRepository
                     .findByUserIdAndStatusNot(userId, SubscriptionStatus.CANCELLED);
@@ -48,10 +56,15 @@ public class SubscriptionController {
     }
 
     @GetMapping("/user/{userId}/active")
-    public ResponseEntity<List<SubscriptionResponse>> getActiveSubscriptions(@PathVariable Long userId) {
+    public ResponseEntity<List<SubscriptionResponse>> getActiveSubscriptions(@PathVariable Long userId, WebRequest request) {
         log.info("Fetching active subscriptions for user: {}", userId);
 
         try {
+            String eTag = eTagService.dailyUserETag(userId);
+            if (eTagService.checkNotModified(request, eTag)) {
+                return null;
+            }
+
             List<Subscription> subscriptions = subscriptionService.getActiveSubscriptions(userId);
 
             List<SubscriptionResponse> response = subscriptions.stream()
@@ -168,6 +181,7 @@ public class SubscriptionController {
                 .autoPayment(subscription.isAutoPayment())
                 .notificationsEnabled(subscription.isNotificationsEnabled())
                 .description(subscription.getDescription())
+                .paymentIssueFlaggedAt(subscription.getPaymentIssueFlaggedAt())
                 .createdAt(subscription.getCreatedAt())
                 .updatedAt(subscription.getUpdatedAt())
                 .build();
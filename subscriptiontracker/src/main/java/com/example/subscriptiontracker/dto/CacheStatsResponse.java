@@ -0,0 +1,20 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String cacheName;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long invalidationCount;
+}
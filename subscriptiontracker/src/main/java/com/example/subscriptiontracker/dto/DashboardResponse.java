@@ -1,5 +1,6 @@
 package com.example.subscriptiontracker.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -33,4 +34,11 @@ public class DashboardResponse {
     private List<RecentActivityItem> recentActivity;
 
     private List<CategorySpendingItem> categoryBreakdown;
+
+    // Recent activity failed or timed out and is left empty; such a dashboard is not cached.
+    private boolean partial;
+
+    // Version of the data this dashboard was built from; its ETag is taken from here.
+    @JsonIgnore
+    private long dataVersion;
 }
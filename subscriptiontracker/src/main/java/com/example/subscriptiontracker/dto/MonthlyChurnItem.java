@@ -0,0 +1,17 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyChurnItem {
+    private String month;
+    private long newSubscriptions;
+    private long cancelledSubscriptions;
+    private double churnRate;
+}
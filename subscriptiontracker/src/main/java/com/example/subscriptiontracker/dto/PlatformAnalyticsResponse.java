@@ -0,0 +1,31 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlatformAnalyticsResponse {
+    private long scannedSubscriptions;
+    private long activeSubscriptions;
+    private long estimatedActiveUsers;
+
+    private BigDecimal monthlyRecurringRevenue;
+    private BigDecimal annualRecurringRevenue;
+
+    private List<ServiceSpendingItem> topServices;
+    private List<CategorySpendingItem> categoryDistribution;
+    private List<MonthlyChurnItem> monthlyChurn;
+
+    private long durationMs;
+    // Results are cached, so this can be older than the request.
+    private LocalDateTime generatedAt;
+}
@@ -17,4 +17,6 @@ public class RecentActivityItem {
     private String subscriptionName;
     private LocalDateTime timestamp;
     private String severity;
+    // Pass as the timeline's cursor to get the items after this one.
+    private String cursor;
 }
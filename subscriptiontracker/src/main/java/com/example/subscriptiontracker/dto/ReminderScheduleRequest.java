@@ -0,0 +1,24 @@
+package com.example.subscriptiontracker.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * When a user's renewal reminders go out. Leaving a field out resets it to the configured default.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderScheduleRequest {
+    // IANA zone id, e.g. Europe/Berlin
+    @Size(min = 1, max = 50, message = "Time zone must be between 1 and 50 characters")
+    private String timeZone;
+
+    private LocalTime sendTime;
+}
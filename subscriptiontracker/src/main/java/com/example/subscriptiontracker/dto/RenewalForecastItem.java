@@ -0,0 +1,20 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenewalForecastItem {
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private BigDecimal amount;
+    private int renewals;
+}
@@ -0,0 +1,25 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenewalForecastResponse {
+    private Long userId;
+    private int months;
+    private String granularity;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal totalAmount;
+    private int totalRenewals;
+    private List<RenewalForecastItem> forecast;
+}
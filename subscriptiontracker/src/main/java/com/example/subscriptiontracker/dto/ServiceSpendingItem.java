@@ -0,0 +1,19 @@
+package com.example.subscriptiontracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceSpendingItem {
+    private String service;
+    private BigDecimal monthlySpending;
+    private long activeSubscriptions;
+    private long estimatedUniqueUsers;
+}
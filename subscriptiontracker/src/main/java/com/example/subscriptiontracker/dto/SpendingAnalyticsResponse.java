@@ -1,5 +1,6 @@
 package com.example.subscriptiontracker.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,4 +21,8 @@ public class SpendingAnalyticsResponse {
 
     private String trendDirection;
     private Double trendPercentage;
+
+    // Version of the data a cached breakdown was built from; its ETag is taken from here.
+    @JsonIgnore
+    private long dataVersion;
 }
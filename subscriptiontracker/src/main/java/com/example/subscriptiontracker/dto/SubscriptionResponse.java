@@ -26,6 +26,8 @@ public class SubscriptionResponse {
     private boolean autoPayment;
     private boolean notificationsEnabled;
     private String description;
+    // Set while the subscription has repeated payment failures.
+    private LocalDateTime paymentIssueFlaggedAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -37,6 +39,10 @@ public class SubscriptionResponse {
         );
     }
 
+    public boolean isPaymentIssue() {
+        return paymentIssueFlaggedAt != null;
+    }
+
     public BigDecimal getYearlyPrice() {
         if (price == null) return BigDecimal.ZERO;
         return price.multiply(BigDecimal.valueOf(12));
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 
 @Data
 @Builder
@@ -16,5 +17,7 @@ public class UserResponse {
     private String name;
     private String email;
     private boolean emailNotifications;
+    private String timeZone;
+    private LocalTime reminderSendTime;
     private LocalDateTime createdAt;
 }
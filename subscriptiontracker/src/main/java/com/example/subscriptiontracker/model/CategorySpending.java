@@ -0,0 +1,22 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategorySpending {
+
+    @Column(name = "total_spending_cents", nullable = false)
+    private long totalSpendingCents;
+
+    @Column(name = "subscription_count", nullable = false)
+    private int subscriptionCount;
+}
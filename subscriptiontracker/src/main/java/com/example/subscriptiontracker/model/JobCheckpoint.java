@@ -0,0 +1,42 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a chunked batch job. Updated in the same transaction as each chunk, so a job that
+ * was interrupted picks up after the last committed chunk.
+ */
+@Entity
+@Table(name = "job_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobCheckpoint {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "run_key", length = 50)
+    private String runKey;
+
+    @Builder.Default
+    private Long lastProcessedId = 0L;
+
+    private long processedCount;
+
+    private boolean completed;
+
+    private LocalDateTime startedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
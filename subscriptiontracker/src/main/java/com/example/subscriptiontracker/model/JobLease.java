@@ -0,0 +1,49 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ownership of one run of a scheduled job, or of one partition of it, across application
+ * instances. The owner extends {@code expiresAt} after every chunk and records how far it got, so
+ * once a crashed owner's lease expires another instance continues after the last checkpoint.
+ */
+@Entity
+@Table(name = "job_lease")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+    @Id
+    @Column(name = "lease_key", length = 100)
+    private String leaseKey;
+
+    @Column(name = "run_key", length = 50)
+    private String runKey;
+
+    @Column(length = 200)
+    private String owner;
+
+    private LocalDateTime expiresAt;
+
+    private boolean completed;
+
+    private LocalDateTime checkpointAt;
+
+    private Long checkpointId;
+
+    // Also makes a new lease an INSERT, so two instances creating it at once cannot both win.
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,77 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rendered email waiting to be delivered. Rows are written in the transaction that triggers
+ * the email and sent later by {@link com.example.subscriptiontracker.service.MailOutboxDispatcher}.
+ * While a row is PENDING or SENDING, {@code nextAttemptAt} is when it may next be picked up.
+ * <p>
+ * HELD rows are notifications waiting for the user's digest. The dispatcher never picks them up;
+ * {@link com.example.subscriptiontracker.service.NotificationDigestService} merges them into a
+ * digest email and deletes them in the same transaction.
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_mail_outbox_held", columnList = "status, user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String sender;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    // Bodies are stored as LOBs: wide VARCHARs would push the row past MySQL's 64 KB row limit.
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    @Lob
+    private String htmlBody;
+
+    // Only set on HELD rows.
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "digest_key")
+    private String digestKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private MailStatus status = MailStatus.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,9 @@
+package com.example.subscriptiontracker.model;
+
+public enum MailStatus {
+    HELD,
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -11,7 +11,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_events")
+@Table(name = "payment_events", indexes = {
+        @Index(name = "idx_payment_events_subscription_date", columnList = "subscription_id, event_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,7 +11,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_history")
+@Table(name = "price_history", indexes = {
+        @Index(name = "idx_price_history_subscription_date", columnList = "subscription_id, change_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,42 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for one delivered renewal reminder, so a rerun or resumed reminder job skips
+ * what already went out. Entries are pruned once their renewal date is well past.
+ */
+@Entity
+@Table(name = "sent_reminder", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sent_reminder_key", columnNames = {"subscription_id", "renewal_date", "days_ahead"})
+}, indexes = {
+        @Index(name = "idx_sent_reminder_renewal_date", columnList = "renewal_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SentReminder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subscription_id", nullable = false)
+    private Long subscriptionId;
+
+    @Column(name = "renewal_date", nullable = false)
+    private LocalDate renewalDate;
+
+    @Column(name = "days_ahead", nullable = false)
+    private int daysAhead;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,39 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for one weekly report queued for a user, so a resumed or repeated report run
+ * skips users it already served. Entries are pruned once their run is well past.
+ */
+@Entity
+@Table(name = "sent_report", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sent_report_key", columnNames = {"user_id", "report_date"})
+}, indexes = {
+        @Index(name = "idx_sent_report_report_date", columnList = "report_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SentReport {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
+    @Column(name = "queued_at", nullable = false)
+    private LocalDateTime queuedAt;
+}
@@ -0,0 +1,52 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A user's active spending as captured by the nightly snapshot job. Each month holds one row,
+ * rewritten every night until the month is over, so past months keep what the user was actually
+ * paying, even for subscriptions that have since been cancelled.
+ */
+@Entity
+@Table(name = "spending_snapshot", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_spending_snapshot_user_month", columnNames = {"user_id", "snapshot_month"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // First day of the month
+    @Column(name = "snapshot_month", nullable = false)
+    private LocalDate snapshotMonth;
+
+    private long totalSpendingCents;
+    private int subscriptionCount;
+
+    @ElementCollection
+    @CollectionTable(name = "spending_snapshot_category", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @MapKeyColumn(name = "category")
+    @Builder.Default
+    private Map<String, CategorySpending> categories = new HashMap<>();
+
+    @UpdateTimestamp
+    @Column(name = "captured_at")
+    private LocalDateTime capturedAt;
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -15,11 +16,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "subscription")
+@Table(name = "subscription", indexes = {
+        @Index(name = "idx_subscription_reminder", columnList = "status, notifications_enabled, next_renewal_date"),
+        @Index(name = "idx_subscription_user_renewal", columnList = "user_id, status, next_renewal_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Only changed columns are written, so saving a subscription never overwrites a column that a
+// bulk update (such as the payment issue flag) changed after it was loaded.
+@DynamicUpdate
 public class Subscription {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -63,6 +70,12 @@ public class Subscription {
 
     private String webhookEndpoint; // For custom webhook sources
 
+    // When the subscription was last cancelled; spending trends count it as active until then.
+    private LocalDateTime cancelledAt;
+
+    // Set by the payment issue monitor after repeated failed payments, cleared by a successful one.
+    private LocalDateTime paymentIssueFlaggedAt;
+
     @Column(length = 1000)
     private String description;
 
@@ -13,13 +13,16 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_reminder_slot", columnList = "reminder_zone, reminder_slot")
+})
 @Builder
 public class User {
 
@@ -36,6 +39,21 @@ public class User {
     @Builder.Default
     private boolean emailNotifications = true;
 
+    // IANA zone id and local time of day for reminder emails; null means the configured default.
+    @Column(name = "time_zone", length = 50)
+    private String timeZone;
+
+    @Column(name = "reminder_send_time")
+    private LocalTime reminderSendTime;
+
+    // The zone and send time the reminders actually go out at, with the defaults filled in, so a
+    // reminder slot can look up its users by index. Kept in step by UserService and ReminderSlotScheduler.
+    @Column(name = "reminder_zone", length = 50)
+    private String reminderZone;
+
+    @Column(name = "reminder_slot")
+    private LocalTime reminderSlot;
+
     @Column(nullable = false)
     private String password;
 
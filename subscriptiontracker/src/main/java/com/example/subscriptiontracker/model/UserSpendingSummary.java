@@ -0,0 +1,57 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user dashboard aggregates, kept in step with the user's subscriptions by
+ * {@link com.example.subscriptiontracker.service.SpendingSummaryService} in the same
+ * transaction as every subscription write. Spending figures are in cents and only cover ACTIVE
+ * subscriptions.
+ */
+@Entity
+@Table(name = "user_spending_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSpendingSummary {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private int totalSubscriptions;
+    private int activeSubscriptions;
+    private int cancelledSubscriptions;
+
+    private long monthlySpendingCents;
+
+    private Long mostExpensiveSubscriptionId;
+    private String mostExpensiveSubscription;
+    private long mostExpensiveCents;
+
+    private Long newestSubscriptionId;
+    private String newestSubscription;
+    private LocalDateTime newestCreatedAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "user_category_spending", joinColumns = @JoinColumn(name = "user_id"))
+    @MapKeyColumn(name = "category")
+    @Builder.Default
+    private Map<String, CategorySpending> categories = new HashMap<>();
+
+    // Bumped on every write to the user's subscriptions, price history or payment events.
+    private long dataVersion;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
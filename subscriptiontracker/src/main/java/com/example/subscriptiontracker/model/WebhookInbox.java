@@ -0,0 +1,70 @@
+package com.example.subscriptiontracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A verified Stripe webhook event, stored as received and acknowledged before it is processed by
+ * {@link com.example.subscriptiontracker.service.WebhookInboxProcessor}. While a row is PENDING or
+ * PROCESSING, {@code nextAttemptAt} is when it may next be picked up. {@code objectKey} is the
+ * Stripe subscription the event is about, so events for one subscription are never processed
+ * at the same time.
+ */
+@Entity
+@Table(name = "webhook_inbox", indexes = {
+        @Index(name = "idx_webhook_inbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_inbox_object", columnList = "object_key, status")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_webhook_inbox_event", columnNames = "event_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookInbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId;
+
+    @Column(nullable = false, length = 100)
+    private String eventType;
+
+    @Column(length = 100)
+    private String objectKey;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    // The Stripe-Signature header the payload arrived with, checked again before processing.
+    @Column(nullable = false, length = 500)
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private WebhookStatus status = WebhookStatus.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    private LocalDateTime processedAt;
+}
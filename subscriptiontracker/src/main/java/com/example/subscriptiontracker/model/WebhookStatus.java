@@ -0,0 +1,8 @@
+package com.example.subscriptiontracker.model;
+
+public enum WebhookStatus {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    DEAD
+}
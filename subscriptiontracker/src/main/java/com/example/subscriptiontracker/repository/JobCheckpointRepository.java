@@ -0,0 +1,19 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.JobCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM JobCheckpoint c WHERE c.jobName = :jobName")
+    Optional<JobCheckpoint> findByJobNameForUpdate(@Param("jobName") String jobName);
+}
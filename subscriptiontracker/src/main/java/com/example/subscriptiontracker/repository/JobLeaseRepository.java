@@ -0,0 +1,27 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.JobLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLease l WHERE l.leaseKey = :leaseKey")
+    Optional<JobLease> findByLeaseKeyForUpdate(@Param("leaseKey") String leaseKey);
+
+    @Query("SELECT l FROM JobLease l WHERE " +
+            "l.leaseKey LIKE :keyPrefix% " +
+            "AND l.completed = false " +
+            "AND l.expiresAt < :now")
+    List<JobLease> findExpired(@Param("keyPrefix") String keyPrefix, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,51 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import com.example.subscriptiontracker.model.MailStatus;
+import com.example.subscriptiontracker.repository.projection.HeldDigestRow;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // SENDING rows are due again once their lease has run out, which recovers claims from a crashed dispatcher.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MailOutbox m WHERE " +
+            "m.status IN ('PENDING', 'SENDING') " +
+            "AND m.nextAttemptAt <= :now " +
+            "ORDER BY m.nextAttemptAt, m.id")
+    List<MailOutbox> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MailOutbox m WHERE m.id IN :ids")
+    List<MailOutbox> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE " +
+            "m.status IN ('SENT', 'DEAD') " +
+            "AND m.createdAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+
+    @Query("SELECT m.userId AS userId, u.name AS userName FROM MailOutbox m JOIN User u ON u.id = m.userId " +
+            "WHERE m.status = 'HELD' " +
+            "GROUP BY m.userId, u.name " +
+            "HAVING MIN(m.createdAt) <= :before OR COUNT(m) >= :maxItems")
+    List<HeldDigestRow> findDueHeldDigests(@Param("before") LocalDateTime before, @Param("maxItems") long maxItems);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MailOutbox m WHERE m.status = 'HELD' AND m.userId = :userId ORDER BY m.id")
+    List<MailOutbox> findHeldForUpdate(@Param("userId") Long userId);
+
+    long countByStatus(MailStatus status);
+}
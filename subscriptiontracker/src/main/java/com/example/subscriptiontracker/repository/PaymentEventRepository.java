@@ -1,12 +1,18 @@
 package com.example.subscriptiontracker.repository;
 
 import com.example.subscriptiontracker.model.PaymentEvent;
+import com.example.subscriptiontracker.repository.projection.PaymentFailureRow;
+import com.example.subscriptiontracker.repository.projection.SubscriptionFailureCount;
+import com.example.subscriptiontracker.repository.projection.UserPaymentTotals;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +22,49 @@ public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long
 
     Optional<PaymentEvent> findByStripeEventId(String stripeEventId);
 
-    List<PaymentEvent> findByEventTypeAndProcessedFalse(String eventType);
+    /**
+     * Next batch of failure events after the monitor's high-water mark, in id order. Events newer
+     * than {@code settledBefore} are left for the next run, so an id whose transaction has not
+     * committed yet is not skipped over.
+     */
+    @Query("SELECT pe.id AS id, pe.subscription.id AS subscriptionId FROM PaymentEvent pe WHERE " +
+            "pe.id > :afterId " +
+            "AND pe.eventType IN ('PAYMENT_FAILED', 'CHARGEBACK') " +
+            "AND pe.eventDate < :settledBefore " +
+            "ORDER BY pe.id")
+    List<PaymentFailureRow> findFailuresAfter(
+            @Param("afterId") Long afterId,
+            @Param("settledBefore") LocalDateTime settledBefore,
+            Limit limit
+    );
+
+    @Query("SELECT pe.subscription.id AS subscriptionId, COUNT(pe) AS failures FROM PaymentEvent pe WHERE " +
+            "pe.subscription.id IN :subscriptionIds " +
+            "AND pe.eventType IN ('PAYMENT_FAILED', 'CHARGEBACK') " +
+            "AND pe.eventDate >= :since " +
+            "GROUP BY pe.subscription.id")
+    List<SubscriptionFailureCount> countFailuresSince(
+            @Param("subscriptionIds") Collection<Long> subscriptionIds,
+            @Param("since") LocalDateTime since
+    );
+
+    @Query("SELECT s.user.id AS userId, " +
+            "SUM(CASE WHEN pe.eventType = 'PAYMENT_SUCCESS' THEN 1 ELSE 0 END) AS succeeded, " +
+            "SUM(CASE WHEN pe.eventType = 'PAYMENT_SUCCESS' THEN pe.amount ELSE 0 END) AS paidAmount, " +
+            "SUM(CASE WHEN pe.eventType IN ('PAYMENT_FAILED', 'CHARGEBACK') THEN 1 ELSE 0 END) AS failed " +
+            "FROM PaymentEvent pe JOIN pe.subscription s WHERE " +
+            "s.user.id IN :userIds " +
+            "AND pe.eventDate >= :start AND pe.eventDate < :end " +
+            "GROUP BY s.user.id")
+    List<UserPaymentTotals> findPaymentTotalsByUser(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @Modifying
+    @Query("UPDATE PaymentEvent pe SET pe.processed = true WHERE pe.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT pe FROM PaymentEvent pe " +
             "WHERE pe.subscription.user.id = :userId " +
@@ -1,6 +1,7 @@
 package com.example.subscriptiontracker.repository;
 
 import com.example.subscriptiontracker.model.PriceHistory;
+import com.example.subscriptiontracker.repository.projection.ActivityTimelineRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -38,4 +39,36 @@ public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long
     PriceHistory findFirstBySubscriptionIdOrderByChangeDateDesc(Long subscriptionId);
 
     long countBySubscriptionId(Long subscriptionId);
+
+    /**
+     * One page of the user's activity, newest first, ordered by the {@code (occurredAt, source,
+     * sourceId)} tuple and starting after the cursor tuple. Both branches compare on the full
+     * tuple, so items sharing a timestamp with the cursor are neither skipped nor repeated.
+     */
+    @Query(value = "SELECT * FROM (" +
+            "(SELECT 'PRICE_CHANGE' AS activityType, s.name AS subscriptionName, " +
+            "ph.old_price AS oldPrice, ph.new_price AS newPrice, NULL AS amount, ph.change_date AS occurredAt, " +
+            "2 AS source, ph.id AS sourceId " +
+            "FROM price_history ph JOIN subscription s ON s.id = ph.subscription_id " +
+            "WHERE s.user_id = :userId AND ph.change_date >= :since " +
+            "AND (ph.change_date < :before OR (ph.change_date = :before " +
+            "AND (2 < :beforeSource OR (2 = :beforeSource AND ph.id < :beforeId)))) " +
+            "ORDER BY ph.change_date DESC, ph.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT pe.event_type, s.name, NULL, NULL, pe.amount, pe.event_date, 1, pe.id " +
+            "FROM payment_events pe JOIN subscription s ON s.id = pe.subscription_id " +
+            "WHERE s.user_id = :userId AND pe.event_date >= :since " +
+            "AND (pe.event_date < :before OR (pe.event_date = :before " +
+            "AND (1 < :beforeSource OR (1 = :beforeSource AND pe.id < :beforeId)))) " +
+            "ORDER BY pe.event_date DESC, pe.id DESC LIMIT :limit)" +
+            ") activity ORDER BY occurredAt DESC, source DESC, sourceId DESC LIMIT :limit",
+            nativeQuery = true)
+    List<ActivityTimelineRow> findActivityTimeline(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since,
+            @Param("before") LocalDateTime before,
+            @Param("beforeSource") int beforeSource,
+            @Param("beforeId") long beforeId,
+            @Param("limit") int limit
+    );
 }
@@ -0,0 +1,29 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.SentReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SentReminderRepository extends JpaRepository<SentReminder, Long> {
+
+    @Query("SELECT r FROM SentReminder r WHERE " +
+            "r.subscriptionId IN :subscriptionIds " +
+            "AND r.renewalDate BETWEEN :from AND :to")
+    List<SentReminder> findSent(
+            @Param("subscriptionIds") Collection<Long> subscriptionIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    @Modifying
+    @Query("DELETE FROM SentReminder r WHERE r.renewalDate < :before")
+    int deleteByRenewalDateBefore(@Param("before") LocalDate before);
+}
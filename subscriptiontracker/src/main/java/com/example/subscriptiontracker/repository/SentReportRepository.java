@@ -0,0 +1,28 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.SentReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SentReportRepository extends JpaRepository<SentReport, Long> {
+
+    @Query("SELECT r.userId FROM SentReport r WHERE " +
+            "r.userId IN :userIds " +
+            "AND r.reportDate = :reportDate")
+    List<Long> findServedUserIds(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("reportDate") LocalDate reportDate
+    );
+
+    @Modifying
+    @Query("DELETE FROM SentReport r WHERE r.reportDate < :before")
+    int deleteByReportDateBefore(@Param("before") LocalDate before);
+}
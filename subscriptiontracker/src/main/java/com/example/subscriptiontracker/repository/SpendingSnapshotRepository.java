@@ -0,0 +1,51 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.SpendingSnapshot;
+import com.example.subscriptiontracker.repository.projection.SpendingSnapshotPoint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SpendingSnapshotRepository extends JpaRepository<SpendingSnapshot, Long> {
+
+    @Query("SELECT s.snapshotMonth AS snapshotMonth, s.totalSpendingCents AS totalSpendingCents, " +
+            "s.subscriptionCount AS subscriptionCount " +
+            "FROM SpendingSnapshot s WHERE " +
+            "s.userId = :userId " +
+            "AND s.snapshotMonth >= :from AND s.snapshotMonth < :to")
+    List<SpendingSnapshotPoint> findTrendPoints(
+            @Param("userId") Long userId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    @Query("SELECT s.snapshotMonth AS snapshotMonth, s.totalSpendingCents AS totalSpendingCents, " +
+            "s.subscriptionCount AS subscriptionCount " +
+            "FROM SpendingSnapshot s WHERE " +
+            "s.userId = :userId " +
+            "AND s.snapshotMonth < :before " +
+            "ORDER BY s.snapshotMonth DESC")
+    List<SpendingSnapshotPoint> findPointsBefore(
+            @Param("userId") Long userId,
+            @Param("before") LocalDate before,
+            Limit limit
+    );
+
+    @Query("SELECT s FROM SpendingSnapshot s LEFT JOIN FETCH s.categories WHERE " +
+            "s.snapshotMonth = :month " +
+            "AND s.userId IN :userIds")
+    List<SpendingSnapshot> findForMonth(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("month") LocalDate month
+    );
+
+    @Query("SELECT DISTINCT s.userId FROM SpendingSnapshot s WHERE s.userId IN :userIds")
+    List<Long> findUserIdsWithSnapshots(@Param("userIds") Collection<Long> userIds);
+}
@@ -2,13 +2,25 @@ package com.example.subscriptiontracker.repository;
 
 import com.example.subscriptiontracker.model.Subscription;
 import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.repository.projection.CategorySpendingTotal;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import com.example.subscriptiontracker.repository.projection.RenewalScheduleRow;
+import com.example.subscriptiontracker.repository.projection.RenewalWindowCounts;
+import com.example.subscriptiontracker.repository.projection.SubscriptionScanRow;
+import com.example.subscriptiontracker.repository.projection.SubscriptionSpendingRow;
+import com.example.subscriptiontracker.repository.projection.UpcomingRenewalRow;
+import com.example.subscriptiontracker.repository.projection.UserSubscriptionTotals;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,11 +43,16 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
             @Param("end") LocalDateTime end
     );
 
-    @Query("SELECT s FROM Subscription s WHERE " +
-            "DATE(s.nextRenewalDate) = :targetDate " +
-            "AND s.status = 'ACTIVE' " +
-            "AND s.notificationsEnabled = true")
-    List<Subscription> findByNextRenewalDate(@Param("targetDate") LocalDate targetDate);
+    // Leading columns match idx_subscription_reminder so the range is a single index scan.
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.user WHERE " +
+            "s.status = 'ACTIVE' " +
+            "AND s.notificationsEnabled = true " +
+            "AND s.nextRenewalDate >= :start AND s.nextRenewalDate < :end " +
+            "ORDER BY s.nextRenewalDate")
+    List<Subscription> findRenewingBetween(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
 
     @Query("SELECT s FROM Subscription s WHERE " +
             "s.user.id = :userId " +
@@ -46,6 +63,20 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
             @Param("endDate") LocalDateTime endDate
     );
 
+    @Query("SELECT s.price AS price, s.status AS status, s.createdAt AS createdAt, " +
+            "s.cancelledAt AS cancelledAt, s.updatedAt AS updatedAt " +
+            "FROM Subscription s WHERE s.user.id = :userId")
+    List<SubscriptionSpendingRow> findSpendingRows(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(s.category, 'Other') AS category, " +
+            "SUM(s.price) AS totalSpending, " +
+            "COUNT(s) AS subscriptionCount " +
+            "FROM Subscription s WHERE " +
+            "s.user.id = :userId " +
+            "AND s.status = 'ACTIVE' " +
+            "GROUP BY COALESCE(s.category, 'Other')")
+    List<CategorySpendingTotal> findActiveCategoryTotals(@Param("userId") Long userId);
+
     List<Subscription> findByUserIdAndCategory(Long UserId, String category);
 
     List<Subscription> findByStatus(SubscriptionStatus status);
@@ -59,6 +90,98 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
             @Param("minPrice") java.math.BigDecimal minPrice
     );
 
+    Optional<Subscription> findFirstByUserIdAndStatusOrderByPriceDescIdAsc(Long userId, SubscriptionStatus status);
+
+    @Query("SELECT " +
+            "COALESCE(SUM(CASE WHEN s.nextRenewalDate < :nextWeek THEN 1 ELSE 0 END), 0) AS nextWeek, " +
+            "COALESCE(SUM(CASE WHEN s.nextRenewalDate < :endOfMonth THEN 1 ELSE 0 END), 0) AS thisMonth " +
+            "FROM Subscription s WHERE " +
+            "s.user.id = :userId " +
+            "AND s.status = 'ACTIVE'")
+    RenewalWindowCounts countUpcomingRenewals(
+            @Param("userId") Long userId,
+            @Param("nextWeek") LocalDateTime nextWeek,
+            @Param("endOfMonth") LocalDateTime endOfMonth
+    );
 
+    @Query("SELECT s.id AS id, s.user.id AS userId, s.name AS name, s.category AS category, " +
+            "s.price AS price, s.status AS status, s.createdAt AS createdAt, " +
+            "CASE WHEN s.status = 'CANCELLED' THEN COALESCE(s.cancelledAt, s.updatedAt) END AS cancelledAt " +
+            "FROM Subscription s WHERE " +
+            "s.id > :afterId " +
+            "ORDER BY s.id")
+    List<SubscriptionScanRow> findScanBatch(@Param("afterId") Long afterId, Limit limit);
 
+    @Query("SELECT s.price AS price, s.nextRenewalDate AS nextRenewalDate, s.endDate AS endDate " +
+            "FROM Subscription s WHERE " +
+            "s.user.id = :userId " +
+            "AND s.status = 'ACTIVE'")
+    List<RenewalScheduleRow> findRenewalSchedule(@Param("userId") Long userId);
+
+    @Query("SELECT s.user.id AS userId, COUNT(s) AS activeSubscriptions, SUM(s.price) AS monthlySpending " +
+            "FROM Subscription s WHERE " +
+            "s.user.id IN :userIds " +
+            "AND s.status = 'ACTIVE' " +
+            "GROUP BY s.user.id")
+    List<UserSubscriptionTotals> findActiveTotalsByUser(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT s.user.id AS userId, s.name AS name, s.price AS price, s.currency AS currency, " +
+            "s.nextRenewalDate AS nextRenewalDate " +
+            "FROM Subscription s WHERE " +
+            "s.user.id IN :userIds " +
+            "AND s.status = 'ACTIVE' " +
+            "AND s.nextRenewalDate >= :start AND s.nextRenewalDate < :end " +
+            "ORDER BY s.user.id, s.nextRenewalDate")
+    List<UpcomingRenewalRow> findUpcomingRenewalsByUser(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @Modifying
+    @Query("UPDATE Subscription s SET s.paymentIssueFlaggedAt = :now WHERE " +
+            "s.id IN :ids " +
+            "AND s.paymentIssueFlaggedAt IS NULL")
+    int flagPaymentIssues(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // A bulk update, so it also clears a flag set after the subscription was loaded.
+    @Modifying
+    @Query("UPDATE Subscription s SET s.paymentIssueFlaggedAt = NULL WHERE s.id = :id")
+    int clearPaymentIssue(@Param("id") Long id);
+
+    /**
+     * Next chunk of reminder candidates renewing before {@code end}, in (nextRenewalDate, id) order
+     * after the given key. Start with the window's start instant and id 0. Only ids in
+     * {@code partition} of {@code partitions} (by id modulo) are returned, and only for users whose
+     * effective reminder zone and send time are the slot's.
+     * <p>
+     * The slot's users are sought through {@code idx_users_reminder_slot} and each one's renewals
+     * in the window through {@code idx_subscription_user_renewal}, so a slot only reads its own
+     * users' rows. Without the hint the planner may prefer walking the whole window through
+     * {@code idx_subscription_reminder}, which every slot would then repeat. The redundant
+     * {@code >= :afterDate} gives the renewal range scans their lower bound.
+     */
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.plan_name AS planName, s.price AS price, " +
+            "s.currency AS currency, s.card AS card, s.next_renewal_date AS nextRenewalDate, " +
+            "u.id AS userId, u.email AS userEmail, u.name AS userName, " +
+            "u.email_notifications AS emailNotifications " +
+            "FROM users u JOIN subscription s USE INDEX (idx_subscription_user_renewal) ON s.user_id = u.id " +
+            "WHERE u.reminder_zone = :zone AND u.reminder_slot = :sendTime " +
+            "AND s.status = 'ACTIVE' " +
+            "AND s.notifications_enabled = true " +
+            "AND s.next_renewal_date >= :afterDate AND s.next_renewal_date < :end " +
+            "AND (s.next_renewal_date > :afterDate OR (s.next_renewal_date = :afterDate AND s.id > :afterId)) " +
+            "AND MOD(s.id, :partitions) = :partition " +
+            "ORDER BY s.next_renewal_date, s.id",
+            nativeQuery = true)
+    List<ReminderCandidateRow> findReminderCandidates(
+            @Param("end") LocalDateTime end,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("partitions") int partitions,
+            @Param("partition") int partition,
+            @Param("zone") String zone,
+            @Param("sendTime") LocalTime sendTime,
+            Limit limit
+    );
 }
@@ -1,13 +1,50 @@
 package com.example.subscriptiontracker.repository;
 
 import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.projection.ReminderScheduleRow;
+import com.example.subscriptiontracker.repository.projection.ReportRecipientRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String Email);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name FROM User u WHERE " +
+            "u.id > :afterId " +
+            "AND u.emailNotifications = true " +
+            "ORDER BY u.id")
+    List<ReportRecipientRow> findReportRecipientsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT DISTINCT u.reminderZone AS timeZone, u.reminderSlot AS sendTime " +
+            "FROM User u WHERE u.emailNotifications = true AND u.reminderZone IS NOT NULL")
+    List<ReminderScheduleRow> findReminderSchedules();
+
+    // Users without a zone of their own follow the configured default, also after it changes.
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.reminderZone = COALESCE(u.timeZone, :defaultZone) WHERE " +
+            "u.reminderZone IS NULL OR (u.timeZone IS NULL AND u.reminderZone <> :defaultZone)")
+    int assignReminderZones(@Param("defaultZone") String defaultZone);
+
+    // Users without a send time of their own get default slot id % slots, also after the default window changes.
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.reminderSlot = COALESCE(u.reminderSendTime, :slot) WHERE " +
+            "MOD(u.id, :slots) = :index " +
+            "AND (u.reminderSlot IS NULL OR (u.reminderSendTime IS NULL AND u.reminderSlot <> :slot))")
+    int assignReminderSlots(@Param("slots") int slots, @Param("index") int index, @Param("slot") LocalTime slot);
 }
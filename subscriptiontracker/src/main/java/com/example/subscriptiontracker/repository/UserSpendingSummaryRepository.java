@@ -0,0 +1,36 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.UserSpendingSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserSpendingSummaryRepository extends JpaRepository<UserSpendingSummary, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserSpendingSummary s WHERE s.userId = :userId")
+    Optional<UserSpendingSummary> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT s.dataVersion FROM UserSpendingSummary s WHERE s.userId = :userId")
+    Optional<Long> findDataVersion(@Param("userId") Long userId);
+
+    // Only owners of subscriptions that are not flagged yet, matching SubscriptionRepository.flagPaymentIssues.
+    @Modifying
+    @Query("UPDATE UserSpendingSummary s SET s.dataVersion = s.dataVersion + 1 WHERE " +
+            "s.userId IN (SELECT sub.user.id FROM Subscription sub WHERE " +
+            "sub.id IN :subscriptionIds " +
+            "AND sub.paymentIssueFlaggedAt IS NULL)")
+    int bumpVersionsForUnflagged(@Param("subscriptionIds") Collection<Long> subscriptionIds);
+
+    @Query("SELECT s FROM UserSpendingSummary s LEFT JOIN FETCH s.categories WHERE s.userId IN :userIds")
+    List<UserSpendingSummary> findAllWithCategories(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,54 @@
+package com.example.subscriptiontracker.repository;
+
+import com.example.subscriptiontracker.model.WebhookInbox;
+import com.example.subscriptiontracker.model.WebhookStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInbox, Long> {
+
+    /**
+     * Due events, oldest first. PROCESSING rows are due again once their lease has run out, which
+     * recovers claims from a crashed worker. An event is skipped while another one about the same
+     * subscription is leased, or an earlier one is still waiting, even if that one is backing off.
+     * Events for one subscription are therefore applied in the order they arrived, and a burst
+     * for one subscription takes a single slot of the batch instead of filling it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WebhookInbox w WHERE " +
+            "w.status IN ('PENDING', 'PROCESSING') " +
+            "AND w.nextAttemptAt <= :now " +
+            "AND (w.objectKey IS NULL OR NOT EXISTS (SELECT o.id FROM WebhookInbox o WHERE " +
+            "o.objectKey = w.objectKey " +
+            "AND o.status IN ('PENDING', 'PROCESSING') " +
+            "AND (o.id < w.id OR (o.status = 'PROCESSING' AND o.nextAttemptAt > :now)))) " +
+            "ORDER BY w.id")
+    List<WebhookInbox> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    @Query("SELECT DISTINCT w.objectKey FROM WebhookInbox w WHERE " +
+            "w.status = 'PROCESSING' " +
+            "AND w.nextAttemptAt > :now " +
+            "AND w.objectKey IS NOT NULL")
+    Set<String> findKeysInFlight(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM WebhookInbox w WHERE " +
+            "w.status IN ('PROCESSED', 'DEAD') " +
+            "AND w.receivedAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+
+    boolean existsByEventId(String eventId);
+
+    long countByStatus(WebhookStatus status);
+}
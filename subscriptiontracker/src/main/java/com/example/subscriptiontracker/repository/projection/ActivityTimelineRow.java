@@ -0,0 +1,22 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface ActivityTimelineRow {
+    String getActivityType();
+
+    String getSubscriptionName();
+
+    BigDecimal getOldPrice();
+
+    BigDecimal getNewPrice();
+
+    BigDecimal getAmount();
+
+    LocalDateTime getOccurredAt();
+
+    int getSource();
+
+    Long getSourceId();
+}
@@ -0,0 +1,11 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface CategorySpendingTotal {
+    String getCategory();
+
+    BigDecimal getTotalSpending();
+
+    long getSubscriptionCount();
+}
@@ -0,0 +1,7 @@
+package com.example.subscriptiontracker.repository.projection;
+
+public interface PaymentFailureRow {
+    Long getId();
+
+    Long getSubscriptionId();
+}
@@ -0,0 +1,32 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Everything a renewal reminder needs, read in one query with the owner's columns joined in so
+ * no entity (and no lazy user) is loaded per row.
+ */
+public interface ReminderCandidateRow {
+    Long getId();
+
+    String getName();
+
+    String getPlanName();
+
+    BigDecimal getPrice();
+
+    String getCurrency();
+
+    String getCard();
+
+    LocalDateTime getNextRenewalDate();
+
+    Long getUserId();
+
+    String getUserEmail();
+
+    String getUserName();
+
+    boolean isEmailNotifications();
+}
@@ -0,0 +1,9 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.time.LocalTime;
+
+public interface ReminderScheduleRow {
+    String getTimeZone();
+
+    LocalTime getSendTime();
+}
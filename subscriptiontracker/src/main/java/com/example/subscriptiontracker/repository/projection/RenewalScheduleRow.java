@@ -0,0 +1,13 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface RenewalScheduleRow {
+    BigDecimal getPrice();
+
+    LocalDateTime getNextRenewalDate();
+
+    LocalDate getEndDate();
+}
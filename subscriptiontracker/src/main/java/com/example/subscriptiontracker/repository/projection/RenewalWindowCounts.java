@@ -0,0 +1,7 @@
+package com.example.subscriptiontracker.repository.projection;
+
+public interface RenewalWindowCounts {
+    long getNextWeek();
+
+    long getThisMonth();
+}
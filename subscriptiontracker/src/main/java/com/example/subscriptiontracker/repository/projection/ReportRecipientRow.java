@@ -0,0 +1,9 @@
+package com.example.subscriptiontracker.repository.projection;
+
+public interface ReportRecipientRow {
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+}
@@ -0,0 +1,11 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.time.LocalDate;
+
+public interface SpendingSnapshotPoint {
+    LocalDate getSnapshotMonth();
+
+    long getTotalSpendingCents();
+
+    int getSubscriptionCount();
+}
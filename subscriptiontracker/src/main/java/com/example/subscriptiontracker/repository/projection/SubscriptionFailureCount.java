@@ -0,0 +1,7 @@
+package com.example.subscriptiontracker.repository.projection;
+
+public interface SubscriptionFailureCount {
+    Long getSubscriptionId();
+
+    long getFailures();
+}
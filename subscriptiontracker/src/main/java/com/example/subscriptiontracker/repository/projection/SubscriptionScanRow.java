@@ -0,0 +1,25 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface SubscriptionScanRow {
+    Long getId();
+
+    Long getUserId();
+
+    String getName();
+
+    String getCategory();
+
+    BigDecimal getPrice();
+
+    SubscriptionStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    // Null unless CANCELLED. Cancellations from before cancelledAt existed fall back to the last update.
+    LocalDateTime getCancelledAt();
+}
@@ -0,0 +1,18 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface SubscriptionSpendingRow {
+    BigDecimal getPrice();
+
+    SubscriptionStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getCancelledAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,16 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface UpcomingRenewalRow {
+    Long getUserId();
+
+    String getName();
+
+    BigDecimal getPrice();
+
+    String getCurrency();
+
+    LocalDateTime getNextRenewalDate();
+}
@@ -0,0 +1,13 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface UserPaymentTotals {
+    Long getUserId();
+
+    long getSucceeded();
+
+    BigDecimal getPaidAmount();
+
+    long getFailed();
+}
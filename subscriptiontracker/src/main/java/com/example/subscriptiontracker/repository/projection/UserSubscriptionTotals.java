@@ -0,0 +1,11 @@
+package com.example.subscriptiontracker.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface UserSubscriptionTotals {
+    Long getUserId();
+
+    long getActiveSubscriptions();
+
+    BigDecimal getMonthlySpending();
+}
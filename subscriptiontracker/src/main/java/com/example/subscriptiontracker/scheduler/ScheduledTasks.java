@@ -1,94 +1,202 @@
 package com.example.subscriptiontracker.scheduler;
 
-import com.example.subscriptiontracker.model.Subscription;
-import com.example.subscriptiontracker.service.NotificationService;
-import com.example.subscriptiontracker.service.SubscriptionService;
-import jakarta.transaction.Transactional;
+import com.example.subscriptiontracker.service.MailOutboxDispatcher;
+import com.example.subscriptiontracker.service.MailOutboxService;
+import com.example.subscriptiontracker.service.NotificationDigestService;
+import com.example.subscriptiontracker.service.PaymentIssueMonitor;
+import com.example.subscriptiontracker.service.ReminderLedgerService;
+import com.example.subscriptiontracker.service.ReminderSlotScheduler;
+import com.example.subscriptiontracker.service.ReportLedgerService;
+import com.example.subscriptiontracker.service.SpendingSnapshotService;
+import com.example.subscriptiontracker.service.WebhookInboxProcessor;
+import com.example.subscriptiontracker.service.WebhookInboxService;
+import com.example.subscriptiontracker.service.WeeklyReportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.YearMonth;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ScheduledTasks {
 
-    private final SubscriptionService subscriptionService;
-    private final NotificationService notificationService;
+    private final ReminderSlotScheduler reminderSlotScheduler;
+    private final SpendingSnapshotService spendingSnapshotService;
+    private final MailOutboxDispatcher mailOutboxDispatcher;
+    private final MailOutboxService mailOutboxService;
+    private final ReminderLedgerService reminderLedgerService;
+    private final PaymentIssueMonitor paymentIssueMonitor;
+    private final WeeklyReportService weeklyReportService;
+    private final ReportLedgerService reportLedgerService;
+    private final NotificationDigestService notificationDigestService;
+    private final WebhookInboxProcessor webhookInboxProcessor;
+    private final WebhookInboxService webhookInboxService;
+
+    // Slots are sent by ReminderSlotScheduler's own thread as each one comes due.
+    @Scheduled(fixedDelayString = "${notifications.reminder.load-interval:300000}",
+            initialDelayString = "${notifications.reminder.load-initial-delay:10000}")
+    public void loadRenewalReminderSlots() {
+        try {
+            reminderSlotScheduler.loadUpcoming(Instant.now());
+        } catch (Exception e) {
+            log.error("❌ Error loading renewal reminder slots: {}", e.getMessage(), e);
+        }
+    }
 
-    @Scheduled(cron = "0 2 16 * * ?")
-    @Transactional
-    public void sendEmailRenewalRemainders() {
-        log.info("🔔 Starting daily renewal reminder task at {}", LocalDateTime.now());
+    // Picks up reminder slots left behind by an instance that stopped mid-run.
+    @Scheduled(fixedDelayString = "${scheduler.reminders.recovery-interval:60000}",
+            initialDelayString = "${scheduler.reminders.recovery-interval:60000}")
+    public void resumeRenewalReminders() {
+        try {
+            reminderSlotScheduler.resumeAbandoned();
+        } catch (Exception e) {
+            log.error("❌ Error resuming renewal reminders: {}", e.getMessage(), e);
+        }
+    }
 
+    @Scheduled(cron = "${notifications.reminder.ledger-prune-cron:0 15 3 * * ?}")
+    public void pruneReminderLedger() {
         try {
+            reminderLedgerService.prune(LocalDate.now());
+        } catch (Exception e) {
+            log.error("❌ Error pruning reminder ledger: {}", e.getMessage(), e);
+        }
+    }
 
-            List<Subscription> upcomingIn3Days = subscriptionService.getSubscriptionsNeedingReminders(3);
-            if(!upcomingIn3Days.isEmpty()) {
-                log.info("\uD83D\uDCEC Found {} subscriptions renewing in 3 days", upcomingIn3Days.size());
-                notificationService.sendBulkRenewalReminders(upcomingIn3Days, 3);
-            } else {
-                log.info("✓ No subscriptions renewing in 3 days");
-            }
+    // Each chunk commits on its own, so this must not run inside a transaction.
+    @Scheduled(cron = "${analytics.snapshot.cron:0 30 1 * * ?}")
+    public void captureSpendingSnapshots() {
+        LocalDate today = LocalDate.now();
+        log.info("📸 Starting spending snapshot task for {}", YearMonth.from(today));
+
+        try {
+            spendingSnapshotService.startRun(today);
 
-            List<Subscription> upcomingIn2Days = subscriptionService.getSubscriptionsNeedingReminders(2);
-            if(!upcomingIn2Days.isEmpty()) {
-                log.info("📬 Found {} subscriptions renewing in 2 days", upcomingIn2Days.size());
-                notificationService.sendBulkRenewalReminders(upcomingIn2Days, 2);
-            } else {
-                log.info("✓ No subscriptions renewing in 2 days");
+            int chunks = 0;
+            while (spendingSnapshotService.snapshotNextChunk(YearMonth.from(today))) {
+                chunks++;
             }
 
-            List<Subscription> upcomingTomorrow = subscriptionService.getSubscriptionsNeedingReminders(1);
-            if (!upcomingTomorrow.isEmpty()) {
-                log.info("⚠️ Found {} subscriptions renewing TOMORROW", upcomingTomorrow.size());
-                notificationService.sendBulkRenewalReminders(upcomingTomorrow, 1);
-            } else {
-                log.info("✓ No subscriptions renewing tomorrow");
+            log.info("✅ Completed spending snapshot task: {} chunks processed", chunks);
+        } catch (Exception e) {
+            log.error("❌ Error in spending snapshot task: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:5000}",
+            initialDelayString = "${mail.outbox.initial-delay:5000}")
+    public void dispatchMailOutbox() {
+        try {
+            int delivered = mailOutboxDispatcher.dispatchDue();
+            if (delivered > 0) {
+                log.info("📤 Delivered {} queued emails", delivered);
             }
+        } catch (Exception e) {
+            log.error("❌ Error dispatching mail outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${mail.outbox.prune-cron:0 0 4 * * ?}")
+    public void pruneMailOutbox() {
+        try {
+            mailOutboxService.prune(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("❌ Error pruning mail outbox: {}", e.getMessage(), e);
+        }
+    }
 
-            List<Subscription> upcomingToday = subscriptionService.getSubscriptionsNeedingReminders(0);
-            if (!upcomingToday.isEmpty()) {
-                log.info("🚨 Found {} subscriptions renewing TODAY", upcomingToday.size());
-                notificationService.sendBulkRenewalReminders(upcomingToday, 0);
-            } else {
-                log.info("✓ No subscriptions renewing today");
+    // Runs even with webhooks.inbox.enabled off, so events stored before switching back are still applied.
+    @Scheduled(fixedDelayString = "${webhooks.inbox.poll-interval:500}",
+            initialDelayString = "${webhooks.inbox.initial-delay:5000}")
+    public void processWebhookInbox() {
+        try {
+            int claimed = 0;
+            int batch;
+            while ((batch = webhookInboxProcessor.dispatchDue()) > 0) {
+                claimed += batch;
             }
+            if (claimed > 0) {
+                log.debug("Handed {} webhook events to the workers", claimed);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error dispatching webhook inbox: {}", e.getMessage(), e);
+        }
+    }
 
-            log.info("✅ Completed daily renewal reminder task successfully");
+    @Scheduled(cron = "${webhooks.inbox.prune-cron:0 45 3 * * ?}")
+    public void pruneWebhookInbox() {
+        try {
+            webhookInboxService.prune(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("❌ Error pruning webhook inbox: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.digest.flush-interval:60000}",
+            initialDelayString = "${notifications.digest.flush-initial-delay:60000}")
+    public void flushNotificationDigests() {
+        if (!notificationDigestService.isEnabled()) {
+            return;
+        }
+        try {
+            notificationDigestService.flushDue(Instant.now());
         } catch (Exception e) {
-            log.error("❌ Error in daily renewal reminder task: {}", e.getMessage(), e);
+            log.error("❌ Error flushing notification digests: {}", e.getMessage(), e);
         }
     }
 
-    /*@Scheduled(cron = "0 0 10 * * SUN")
+    @Scheduled(cron = "${reports.weekly.cron:0 0 10 * * SUN}")
     public void sendWeeklySpendingReports() {
         log.info("\uD83D\uDCCA Starting weekly spending report task at {}", LocalDateTime.now());
 
         try {
-            // TODO: Implement weekly report generation
-            // This is optional - you can build this later
-            log.info("Weekly spending reports task placeholder - implement when ready");
+            weeklyReportService.sendWeeklyReports(LocalDate.now());
         } catch (Exception e) {
             log.error("❌ Error in weekly spending report task: {}", e.getMessage(), e);
         }
-    }*/
+    }
 
-    /*@Scheduled(fixedRate = 3600000) // Every 1 hour (3600000 milliseconds)
+    // Retries a weekly report run that failed part way, once its lease has expired.
+    @Scheduled(fixedDelayString = "${reports.weekly.recovery-interval:600000}",
+            initialDelayString = "${reports.weekly.recovery-interval:600000}")
+    public void resumeWeeklySpendingReports() {
+        try {
+            weeklyReportService.resumeAbandoned();
+        } catch (Exception e) {
+            log.error("❌ Error resuming weekly spending reports: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${reports.weekly.ledger-prune-cron:0 30 3 * * ?}")
+    public void pruneReportLedger() {
+        try {
+            reportLedgerService.prune(LocalDate.now());
+        } catch (Exception e) {
+            log.error("❌ Error pruning weekly report ledger: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${payments.monitor.interval:3600000}",
+            initialDelayString = "${payments.monitor.initial-delay:60000}")
     public void monitorPaymentIssues() {
         log.debug("🔍 Running payment issue monitoring at {}", LocalDateTime.now());
 
         try {
-            // TODO: Implement payment issue monitoring
-            // This will be useful after webhook integration
-            log.debug("Payment monitoring placeholder - implement with webhooks");
+            int scanned = 0;
+            int batch;
+            while ((batch = paymentIssueMonitor.scanNextBatch()) > 0) {
+                scanned += batch;
+            }
 
+            log.debug("Payment issue monitoring scanned {} new failures", scanned);
         } catch (Exception e) {
             log.error("❌ Error in payment issue monitoring: {}", e.getMessage(), e);
         }
-    }*/
+    }
 }
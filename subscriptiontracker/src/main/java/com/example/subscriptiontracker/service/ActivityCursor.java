@@ -0,0 +1,34 @@
+package com.example.subscriptiontracker.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of an item in the activity timeline, which is ordered by {@code occurredAt}, then
+ * {@code source}, then {@code id}, all descending. Items sharing a timestamp are told apart by the
+ * table they come from and their id there, so a page never ends in the middle of a tie.
+ */
+public record ActivityCursor(LocalDateTime occurredAt, int source, long id) {
+    public static final int PAYMENT_EVENT = 1;
+    public static final int PRICE_CHANGE = 2;
+
+    /**
+     * Positioned before every item at {@code occurredAt}, which is how a plain timestamp cursor
+     * has always paged.
+     */
+    public static ActivityCursor before(LocalDateTime occurredAt) {
+        return new ActivityCursor(occurredAt, 0, 0);
+    }
+
+    // ISO timestamps never contain '_'.
+    public String key() {
+        return occurredAt + "_" + source + "_" + id;
+    }
+
+    public static ActivityCursor parse(String key) {
+        String[] parts = key.split("_");
+        if (parts.length != 3) {
+            throw new RuntimeException("Invalid activity cursor: " + key);
+        }
+        return new ActivityCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+    }
+}
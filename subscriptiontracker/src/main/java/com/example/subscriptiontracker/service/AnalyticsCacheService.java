@@ -0,0 +1,81 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.config.CacheConfig;
+import com.example.subscriptiontracker.dto.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsCacheService {
+
+    private static final List<String> USER_CACHES =
+            List.of(CacheConfig.DASHBOARD_CACHE, CacheConfig.CATEGORY_BREAKDOWN_CACHE);
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, LongAdder> invalidations = new ConcurrentHashMap<>();
+
+    /**
+     * Drops the user's cached analytics. Inside a transaction the eviction waits for the commit,
+     * otherwise a concurrent read could cache the pre-commit state again.
+     */
+    public void evictUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(userId);
+                }
+            });
+        } else {
+            evictNow(userId);
+        }
+    }
+
+    public List<CacheStatsResponse> getStats() {
+        return USER_CACHES.stream()
+                .map(this::toStats)
+                .collect(Collectors.toList());
+    }
+
+    private void evictNow(Long userId) {
+        for (String cacheName : USER_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null && cache.evictIfPresent(userId)) {
+                invalidations.computeIfAbsent(cacheName, k -> new LongAdder()).increment();
+            }
+        }
+        log.debug("Evicted cached analytics for user {}", userId);
+    }
+
+    private CacheStatsResponse toStats(String cacheName) {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(cacheName);
+        CacheStats stats = cache.getNativeCache().stats();
+        LongAdder invalidationCount = invalidations.get(cacheName);
+
+        return CacheStatsResponse.builder()
+                .cacheName(cacheName)
+                .size(cache.getNativeCache().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .invalidationCount(invalidationCount != null ? invalidationCount.sum() : 0)
+                .build();
+    }
+}
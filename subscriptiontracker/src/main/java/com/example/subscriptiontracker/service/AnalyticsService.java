@@ -1,22 +1,39 @@
 package com.example.subscriptiontracker.service;
 
+import com.example.subscriptiontracker.config.CacheConfig;
 import com.example.subscriptiontracker.dto.*;
-import com.example.subscriptiontracker.model.PaymentEvent;
-import com.example.subscriptiontracker.model.PriceHistory;
-import com.example.subscriptiontracker.model.Subscription;
-import com.example.subscriptiontracker.model.SubscriptionStatus;
-import com.example.subscriptiontracker.repository.PaymentEventRepository;
+import com.example.subscriptiontracker.model.SpendingSnapshot;
+import com.example.subscriptiontracker.model.UserSpendingSummary;
 import com.example.subscriptiontracker.repository.PriceHistoryRepository;
+import com.example.subscriptiontracker.repository.SpendingSnapshotRepository;
 import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.ActivityTimelineRow;
+import com.example.subscriptiontracker.repository.projection.CategorySpendingTotal;
+import com.example.subscriptiontracker.repository.projection.RenewalScheduleRow;
+import com.example.subscriptiontracker.repository.projection.RenewalWindowCounts;
+import com.example.subscriptiontracker.repository.projection.SpendingSnapshotPoint;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.*;
 
@@ -27,238 +44,366 @@ import java.util.*;
 @Transactional(readOnly = true)
 public class AnalyticsService {
     private final SubscriptionRepository subscriptionRepository;
-    private final PaymentEventRepository paymentEventRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final SpendingSnapshotRepository spendingSnapshotRepository;
+    private final SpendingSummaryService spendingSummaryService;
+    private final SpendingSnapshotService spendingSnapshotService;
+    @Qualifier("dashboardExecutor")
+    private final AsyncTaskExecutor dashboardExecutor;
 
-    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMM yyyy");
-
-    public DashboardResponse generateDashboard(Long userId) {
-        log.info("\uD83D\uDCCA Generating dashboard for user: {}", userId);
+    @Value("${analytics.dashboard.parallel:false}")
+    private boolean parallelDashboard;
 
-        List<Subscription> allSubscriptions = subscriptionRepository.findByUserId(userId);
-        List<Subscription> activeSubscriptions = allSubscriptions.stream()
-                .filter(s -> s.getStatus() == SubscriptionStatus.ACTIVE)
-                .collect(Collectors.toList());
-
-        BigDecimal totalMonthly = activeSubscriptions.stream()
-                .map(Subscription::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Value("${analytics.dashboard.timeout:PT5S}")
+    private Duration dashboardTimeout;
 
-        BigDecimal totalYearly = totalMonthly.multiply(BigDecimal.valueOf(12));
+    @Value("${analytics.dashboard.activity-timeout:PT0.5S}")
+    private Duration activityTimeout;
 
-        BigDecimal averageCost = activeSubscriptions.isEmpty() ?
-                BigDecimal.ZERO :
-                totalMonthly.divide(BigDecimal.valueOf(activeSubscriptions.size()), 2, RoundingMode.HALF_UP);
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMM yyyy");
+    private static final int MAX_TREND_MONTHS = 60;
+    private static final int MAX_FORECAST_MONTHS = 24;
+    private static final int RECENT_ACTIVITY_ITEMS = 10;
+    private static final int MAX_TIMELINE_ITEMS = 100;
+    private static final LocalDateTime TIMELINE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime TIMELINE_END = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    @Cacheable(cacheNames = CacheConfig.DASHBOARD_CACHE, key = "#userId", unless = "#result.partial")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DashboardResponse generateDashboard(Long userId) {
+        log.info("\uD83D\uDCCA Generating dashboard for user: {}", userId);
 
         LocalDateTime nextWeek = LocalDateTime.now().plusDays(7);
-        int upcomingRenewals = (int) activeSubscriptions.stream()
-                .filter(s -> s.getNextRenewalDate().isBefore(nextWeek))
-                .count();
-
         LocalDateTime endOfMonth = LocalDateTime.now()
                 .withDayOfMonth(LocalDateTime.now().toLocalDate().lengthOfMonth())
                 .withHour(23).withMinute(59);
-        int upcomingRenewalsThisMonth = (int) activeSubscriptions.stream()
-                .filter(s -> s.getNextRenewalDate().isBefore(endOfMonth))
-                .count();
-
-        String mostExpensive = "None";
-        BigDecimal mostExpensiveAmount = BigDecimal.ZERO;
-        for (Subscription sub : activeSubscriptions) {
-            if (sub.getPrice().compareTo(mostExpensiveAmount) > 0) {
-                mostExpensiveAmount = sub.getPrice();
-                mostExpensive = sub.getName();
+
+        Supplier<UserSpendingSummary> summaryQuery = () -> spendingSummaryService.findSummary(userId)
+                .orElseGet(() -> spendingSummaryService.rebuildSummary(userId));
+        Supplier<RenewalWindowCounts> renewalQuery = () ->
+                subscriptionRepository.countUpcomingRenewals(userId, nextWeek, endOfMonth);
+        Supplier<List<RecentActivityItem>> activityQuery = () -> getRecentActivity(userId);
+
+        UserSpendingSummary summary;
+        RenewalWindowCounts renewals;
+        List<RecentActivityItem> recentActivity;
+
+        if (parallelDashboard) {
+            Future<UserSpendingSummary> summaryFuture = dashboardExecutor.submit(summaryQuery::get);
+            Future<RenewalWindowCounts> renewalFuture = dashboardExecutor.submit(renewalQuery::get);
+            long activityDeadline = System.nanoTime() + activityTimeout.toNanos();
+            Future<List<RecentActivityItem>> activityFuture = dashboardExecutor.submit(activityQuery::get);
+
+            try {
+                summary = await(summaryFuture, userId);
+                renewals = await(renewalFuture, userId);
+                recentActivity = awaitActivity(activityFuture, activityDeadline, userId);
+            } catch (RuntimeException e) {
+                // Nothing will read the other queries' results, so stop them holding dashboardExecutor threads.
+                summaryFuture.cancel(true);
+                renewalFuture.cancel(true);
+                activityFuture.cancel(true);
+                throw e;
             }
+        } else {
+            summary = summaryQuery.get();
+            renewals = renewalQuery.get();
+            recentActivity = activityQuery.get();
         }
 
-        String newestSubscription = allSubscriptions.stream()
-                .max(Comparator.comparing(Subscription::getCreatedAt))
-                .map(Subscription::getName)
-                .orElse("None");
-
-        List<RecentActivityItem> recentActivity = getRecentActivity(userId);
+        long totalMonthlyCents = summary.getMonthlySpendingCents();
+        long averageCents = MoneyMath.average(totalMonthlyCents, summary.getActiveSubscriptions());
 
-        List<CategorySpendingItem> categoryBreakdown = getCategoryBreakdownData(activeSubscriptions, totalMonthly);
+        List<CategoryTotal> categoryTotals = new ArrayList<>(summary.getCategories().size());
+        summary.getCategories().forEach((category, spending) -> categoryTotals.add(
+                new CategoryTotal(category, spending.getTotalSpendingCents(), spending.getSubscriptionCount())));
 
         return DashboardResponse.builder()
                 .userId(userId)
-                .totalSubscriptions(allSubscriptions.size())
-                .activeSubscriptions(activeSubscriptions.size())
-                .cancelledSubscriptions((int) allSubscriptions.stream()
-                        .filter(s -> s.getStatus() == SubscriptionStatus.CANCELLED)
-                        .count())
-                .totalMonthlySpending(totalMonthly)
-                .totalYearlySpending(totalYearly)
-                .averageSubscriptionCost(averageCost)
-                .upcomingRenewals(upcomingRenewals)
-                .upcomingRenewalsThisMonth(upcomingRenewalsThisMonth)
-                .mostExpensiveSubscription(mostExpensive)
-                .mostExpensiveAmount(mostExpensiveAmount)
-                .newestSubscription(newestSubscription)
-                .recentActivity(recentActivity)
-                .categoryBreakdown(categoryBreakdown)
+                .totalSubscriptions(summary.getTotalSubscriptions())
+                .activeSubscriptions(summary.getActiveSubscriptions())
+                .cancelledSubscriptions(summary.getCancelledSubscriptions())
+                .totalMonthlySpending(MoneyMath.toAmount(totalMonthlyCents))
+                .totalYearlySpending(MoneyMath.toAmount(totalMonthlyCents * 12))
+                .averageSubscriptionCost(MoneyMath.toAmount(averageCents))
+                .upcomingRenewals((int) renewals.getNextWeek())
+                .upcomingRenewalsThisMonth((int) renewals.getThisMonth())
+                .mostExpensiveSubscription(summary.getMostExpensiveSubscription() != null
+                        ? summary.getMostExpensiveSubscription() : "None")
+                .mostExpensiveAmount(MoneyMath.toAmount(summary.getMostExpensiveCents()))
+                .newestSubscription(summary.getNewestSubscription() != null
+                        ? summary.getNewestSubscription() : "None")
+                .recentActivity(recentActivity != null ? recentActivity : new ArrayList<>())
+                .categoryBreakdown(toCategoryItems(categoryTotals, totalMonthlyCents))
+                .partial(recentActivity == null)
+                .dataVersion(summary.getDataVersion())
                 .build();
     }
 
     public SpendingAnalyticsResponse getSpendingAnalytics(Long userId, int months) {
         log.info("📈 Generating spending analytics for user {} over {} months", userId, months);
 
-        List<MonthlySpendingItem> monthlyData = new ArrayList<>();
-        LocalDateTime endDate = LocalDateTime.now();
+        int period = Math.max(0, Math.min(months, MAX_TREND_MONTHS));
+        YearMonth firstMonth = YearMonth.now().minusMonths(period - 1);
+        long[] spendingCents = new long[period];
+        int[] counts = new int[period];
 
-        for (int i = months - 1; i >= 0; i--) {
-            LocalDateTime monthStart = endDate.minusMonths(i)
-                    .withDayOfMonth(1)
-                    .withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime monthEnd = monthStart.plusMonths(1).minusSeconds(1);
-
-            List<Subscription> monthSubscriptions = subscriptionRepository
-                    .findByUserIdAndDateRange(userId, monthStart, monthEnd);
-
-            BigDecimal monthlySpending = monthSubscriptions.stream()
-                    .filter(s -> s.getStatus() == SubscriptionStatus.ACTIVE)
-                    .map(Subscription::getPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (period > 0) {
+            loadMonthlySpending(userId, firstMonth, spendingCents, counts);
+        }
 
+        List<MonthlySpendingItem> monthlyData = new ArrayList<>(period);
+        for (int i = 0; i < period; i++) {
             monthlyData.add(MonthlySpendingItem.builder()
-                    .month(monthStart.format(MONTH_FORMATTER))
-                    .spending(monthlySpending)
-                    .subscriptionCount(monthSubscriptions.size())
+                    .month(firstMonth.plusMonths(i).format(MONTH_FORMATTER))
+                    .spending(MoneyMath.toAmount(spendingCents[i]))
+                    .subscriptionCount(counts[i])
                     .build());
         }
-        String trendDirection = calculateTrend(monthlyData);
-        double trendPercentage = calculateTrendPercentage(monthlyData);
+
+        String trendDirection = calculateTrend(spendingCents);
+        double trendPercentage = calculateTrendPercentage(spendingCents);
 
         return SpendingAnalyticsResponse.builder()
                 .userId(userId)
-                .periodMonths(months)
+                .periodMonths(period)
                 .monthlyData(monthlyData)
                 .trendDirection(trendDirection)
                 .trendPercentage(trendPercentage)
                 .build();
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_BREAKDOWN_CACHE, key = "#userId")
     public SpendingAnalyticsResponse getCategoryBreakdown(Long userId) {
         log.info("🥧 Generating category breakdown for user: {}", userId);
 
-        List<Subscription> activeSubscriptions = subscriptionRepository
-                .findByUserIdAndStatus(userId, SubscriptionStatus.ACTIVE);
-
-        BigDecimal totalSpending = activeSubscriptions.stream()
-                .map(Subscription::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Read before the totals, so the breakdown is never older than the version it is tagged with.
+        long dataVersion = spendingSummaryService.getDataVersion(userId);
+        List<CategoryTotal> categoryTotals = new ArrayList<>();
+        long totalSpendingCents = 0;
+        for (CategorySpendingTotal row : subscriptionRepository.findActiveCategoryTotals(userId)) {
+            long spendingCents = MoneyMath.toCents(row.getTotalSpending());
+            categoryTotals.add(new CategoryTotal(row.getCategory(), spendingCents, (int) row.getSubscriptionCount()));
+            totalSpendingCents += spendingCents;
+        }
 
-        List<CategorySpendingItem> categoryData = getCategoryBreakdownData(activeSubscriptions, totalSpending);
+        List<CategorySpendingItem> categoryData = toCategoryItems(categoryTotals, totalSpendingCents);
 
         return SpendingAnalyticsResponse.builder()
                 .userId(userId)
                 .categoryData(categoryData)
+                .dataVersion(dataVersion)
+                .build();
+    }
+
+    public RenewalForecastResponse getRenewalForecast(Long userId, int months, RenewalForecast.Granularity granularity) {
+        log.info("🔮 Generating renewal forecast for user {} over {} months by {}", userId, months, granularity);
+
+        int horizon = Math.max(1, Math.min(months, MAX_FORECAST_MONTHS));
+        RenewalForecast forecast = new RenewalForecast(LocalDate.now(), horizon);
+        for (RenewalScheduleRow row : subscriptionRepository.findRenewalSchedule(userId)) {
+            forecast.add(MoneyMath.toCents(row.getPrice()), row.getNextRenewalDate().toLocalDate(), row.getEndDate());
+        }
+
+        List<RenewalForecastItem> items = forecast.buckets(granularity).stream()
+                .map(bucket -> RenewalForecastItem.builder()
+                        .periodStart(bucket.periodStart())
+                        .periodEnd(bucket.periodEnd())
+                        .amount(MoneyMath.toAmount(bucket.amountCents()))
+                        .renewals(bucket.renewals())
+                        .build())
+                .collect(Collectors.toList());
+
+        return RenewalForecastResponse.builder()
+                .userId(userId)
+                .months(horizon)
+                .granularity(granularity.name())
+                .startDate(forecast.getStart())
+                .endDate(forecast.getEnd())
+                .totalAmount(MoneyMath.toAmount(forecast.totalCents()))
+                .totalRenewals(forecast.totalRenewals())
+                .forecast(items)
                 .build();
     }
 
+    private <T> T await(Future<T> future, Long userId) {
+        try {
+            return future.get(dashboardTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating dashboard for user: " + userId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("Dashboard query failed for user: " + userId, e);
+        }
+    }
+
+    /**
+     * Recent activity is optional: past its deadline the dashboard is returned without it, and the
+     * query is cancelled so it does not keep holding a {@code dashboardExecutor} thread.
+     *
+     * @return null if the activity timed out
+     */
+    private List<RecentActivityItem> awaitActivity(Future<List<RecentActivityItem>> future, long deadline, Long userId) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating dashboard for user: " + userId, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Dashboard query failed for user: " + userId, e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Recent activity for user {} timed out after {}, returning dashboard without it",
+                    userId, activityTimeout);
+            return null;
+        }
+    }
+
+    /**
+     * Past months come from the nightly spending snapshots in one range scan; the current month is
+     * the live summary. A month without a snapshot carries the previous month's spending forward.
+     * Users the snapshot job has not reached yet get their history estimated from their
+     * subscriptions, measured the same way.
+     */
+    private void loadMonthlySpending(Long userId, YearMonth firstMonth, long[] spendingCents, int[] counts) {
+        int current = spendingCents.length - 1;
+        YearMonth currentMonth = firstMonth.plusMonths(current);
+        boolean[] known = new boolean[spendingCents.length];
+
+        List<SpendingSnapshotPoint> points = spendingSnapshotRepository.findTrendPoints(
+                userId, firstMonth.atDay(1), currentMonth.atDay(1));
+        List<SpendingSnapshotPoint> earlier = spendingSnapshotRepository.findPointsBefore(
+                userId, firstMonth.atDay(1), Limit.of(1));
+        if (!points.isEmpty() || !earlier.isEmpty()) {
+            for (SpendingSnapshotPoint point : points) {
+                int index = (int) firstMonth.until(YearMonth.from(point.getSnapshotMonth()), ChronoUnit.MONTHS);
+                spendingCents[index] = point.getTotalSpendingCents();
+                counts[index] = point.getSubscriptionCount();
+                known[index] = true;
+            }
+        } else if (current > 0) {
+            for (SpendingSnapshot estimate : spendingSnapshotService.estimateHistory(userId, firstMonth, currentMonth)) {
+                int index = (int) firstMonth.until(YearMonth.from(estimate.getSnapshotMonth()), ChronoUnit.MONTHS);
+                spendingCents[index] = estimate.getTotalSpendingCents();
+                counts[index] = estimate.getSubscriptionCount();
+                known[index] = true;
+            }
+        }
+
+        UserSpendingSummary summary = spendingSummaryService.findSummary(userId)
+                .orElseGet(() -> spendingSummaryService.rebuildSummary(userId));
+        spendingCents[current] = summary.getMonthlySpendingCents();
+        counts[current] = summary.getActiveSubscriptions();
+        known[current] = true;
+
+        long carriedCents = earlier.isEmpty() ? 0 : earlier.get(0).getTotalSpendingCents();
+        int carriedCount = earlier.isEmpty() ? 0 : earlier.get(0).getSubscriptionCount();
+        for (int i = 0; i < spendingCents.length; i++) {
+            if (known[i]) {
+                carriedCents = spendingCents[i];
+                carriedCount = counts[i];
+            } else {
+                spendingCents[i] = carriedCents;
+                counts[i] = carriedCount;
+            }
+        }
+    }
+
+    public List<RecentActivityItem> getActivityTimeline(Long userId, ActivityCursor cursor, int limit) {
+        log.info("🕒 Fetching activity timeline for user {} after {}", userId, cursor);
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_TIMELINE_ITEMS));
+        ActivityCursor after = cursor != null ? cursor : ActivityCursor.before(TIMELINE_END);
+        return toActivityItems(priceHistoryRepository.findActivityTimeline(
+                userId, TIMELINE_START, after.occurredAt(), after.source(), after.id(), pageSize));
+    }
+
+    /**
+     * @return null if the activity could not be read
+     */
     private List<RecentActivityItem> getRecentActivity(Long userId) {
-        List<RecentActivityItem> activity = new ArrayList<>();
         LocalDateTime since = LocalDateTime.now().minusDays(30);
 
         try {
-            List<PriceHistory> recentPriceChanges = priceHistoryRepository
-                    .findRecentPriceChangesForUser(userId, since);
+            return toActivityItems(priceHistoryRepository.findActivityTimeline(
+                    userId, since, TIMELINE_END, 0, 0, RECENT_ACTIVITY_ITEMS));
+        } catch (Exception e) {
+            log.error("Error fetching recent activity for user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
 
-            for (PriceHistory priceChange : recentPriceChanges.stream().limit(5).collect(Collectors.toList())) {
-                String severity = priceChange.getNewPrice().compareTo(priceChange.getOldPrice()) > 0
-                        ? "WARNING" : "INFO";
+    private List<RecentActivityItem> toActivityItems(List<ActivityTimelineRow> rows) {
+        List<RecentActivityItem> activity = new ArrayList<>(rows.size());
+
+        for (ActivityTimelineRow row : rows) {
+            String cursor = new ActivityCursor(row.getOccurredAt(), row.getSource(), row.getSourceId()).key();
+            if ("PRICE_CHANGE".equals(row.getActivityType())) {
+                String severity = row.getNewPrice().compareTo(row.getOldPrice()) > 0 ? "WARNING" : "INFO";
 
                 activity.add(RecentActivityItem.builder()
                         .type("PRICE_CHANGE")
-                        .subscriptionName(priceChange.getSubscription().getName())
+                        .subscriptionName(row.getSubscriptionName())
                         .description(String.format("%s price changed from $%.2f to $%.2f",
-                                priceChange.getSubscription().getName(),
-                                priceChange.getOldPrice(),
-                                priceChange.getNewPrice()))
-                        .timestamp(priceChange.getChangeDate())
+                                row.getSubscriptionName(),
+                                row.getOldPrice(),
+                                row.getNewPrice()))
+                        .timestamp(row.getOccurredAt())
                         .severity(severity)
+                        .cursor(cursor)
                         .build());
-            }
-
-            List<PaymentEvent> recentPayments = paymentEventRepository
-                    .findRecentPaymentEventsForUser(userId, since);
-
-            for (PaymentEvent payment : recentPayments.stream().limit(5).collect(Collectors.toList())) {
-                String severity = "PAYMENT_FAILED".equals(payment.getEventType()) ? "ERROR" : "INFO";
+            } else {
+                String severity = "PAYMENT_FAILED".equals(row.getActivityType()) ? "ERROR" : "INFO";
 
                 activity.add(RecentActivityItem.builder()
-                        .type(payment.getEventType())
-                        .subscriptionName(payment.getSubscription().getName())
+                        .type(row.getActivityType())
+                        .subscriptionName(row.getSubscriptionName())
                         .description(String.format("%s: $%.2f for %s",
-                                payment.getEventType().replace("_", " ").toLowerCase(),
-                                payment.getAmount(),
-                                payment.getSubscription().getName()))
-                        .timestamp(payment.getEventDate())
+                                row.getActivityType().replace("_", " ").toLowerCase(),
+                                row.getAmount(),
+                                row.getSubscriptionName()))
+                        .timestamp(row.getOccurredAt())
                         .severity(severity)
+                        .cursor(cursor)
                         .build());
             }
-        } catch (Exception e) {
-            log.error("Error fetching recent activity for user {}: {}", userId, e.getMessage());
         }
-
-        return activity.stream()
-                .sorted((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                .limit(10)
-                .collect(Collectors.toList());
+        return activity;
     }
 
-    private List<CategorySpendingItem> getCategoryBreakdownData(List<Subscription> subscriptions, BigDecimal totalSpending) {
-        Map<String, List<Subscription>> categoryGroups = subscriptions.stream()
-                .collect(Collectors.groupingBy(s ->
-                        s.getCategory() != null ? s.getCategory() : "Other"));
-
-        return categoryGroups.entrySet().stream()
-                .map(entry -> {
-                    String category = entry.getKey();
-                    List<Subscription> categorySubs = entry.getValue();
-
-                    BigDecimal categorySpending = categorySubs.stream()
-                            .map(Subscription::getPrice)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    double percentage = totalSpending.compareTo(BigDecimal.ZERO) == 0 ? 0 :
-                            categorySpending.divide(totalSpending, 4, RoundingMode.HALF_UP)
-                                    .multiply(BigDecimal.valueOf(100)).doubleValue();
-
-                    return CategorySpendingItem.builder()
-                            .category(category)
-                            .totalSpending(categorySpending)
-                            .subscriptionCount(categorySubs.size())
-                            .percentage(percentage)
-                            .build();
-                })
-                .sorted((a, b) -> b.getTotalSpending().compareTo(a.getTotalSpending()))
-                .collect(Collectors.toList());
+    private List<CategorySpendingItem> toCategoryItems(List<CategoryTotal> categoryTotals, long totalSpendingCents) {
+        categoryTotals.sort((a, b) -> Long.compare(b.spendingCents(), a.spendingCents()));
+
+        List<CategorySpendingItem> items = new ArrayList<>(categoryTotals.size());
+        for (CategoryTotal total : categoryTotals) {
+            items.add(CategorySpendingItem.builder()
+                    .category(total.category())
+                    .totalSpending(MoneyMath.toAmount(total.spendingCents()))
+                    .subscriptionCount(total.subscriptionCount())
+                    .percentage(MoneyMath.percentage(total.spendingCents(), totalSpendingCents))
+                    .build());
+        }
+        return items;
     }
 
-    private String calculateTrend(List<MonthlySpendingItem> monthlyData) {
-        if (monthlyData.size() < 2) return "STABLE";
+    private String calculateTrend(long[] monthlySpendingCents) {
+        if (monthlySpendingCents.length < 2) return "STABLE";
 
-        BigDecimal first = monthlyData.get(0).getSpending();
-        BigDecimal last = monthlyData.get(monthlyData.size() - 1).getSpending();
+        long first = monthlySpendingCents[0];
+        long last = monthlySpendingCents[monthlySpendingCents.length - 1];
 
-        int comparison = last.compareTo(first);
-        if (comparison > 0) return "INCREASING";
-        if (comparison < 0) return "DECREASING";
+        if (last > first) return "INCREASING";
+        if (last < first) return "DECREASING";
         return "STABLE";
     }
 
-    private double calculateTrendPercentage(List<MonthlySpendingItem> monthlyData) {
-        if (monthlyData.size() < 2) return 0.0;
+    private double calculateTrendPercentage(long[] monthlySpendingCents) {
+        if (monthlySpendingCents.length < 2) return 0.0;
 
-        BigDecimal first = monthlyData.get(0).getSpending();
-        BigDecimal last = monthlyData.get(monthlyData.size() - 1).getSpending();
-
-        if (first.compareTo(BigDecimal.ZERO) == 0) return 0.0;
+        return MoneyMath.percentageChange(monthlySpendingCents[0], monthlySpendingCents[monthlySpendingCents.length - 1]);
+    }
 
-        return last.subtract(first)
-                .divide(first, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .doubleValue();
+    private record CategoryTotal(String category, long spendingCents, int subscriptionCount) {
     }
 }
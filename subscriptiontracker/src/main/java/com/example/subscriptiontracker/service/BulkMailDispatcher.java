@@ -0,0 +1,159 @@
+package com.example.subscriptiontracker.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends large batches of already rendered emails on the {@code mailDispatchExecutor} pool, with
+ * every send drawing from one global {@link TokenBucket}. Each task delivers one
+ * {@link MailBatchSender} batch, capped at the bucket's burst so a batch never goes out faster
+ * than the limiter allows. Submission is bounded to twice the pool size. On shutdown, queued
+ * batches are skipped and in-flight sends are allowed to finish.
+ */
+@Service
+@Slf4j
+public class BulkMailDispatcher {
+
+    public record Result(int sent, int failed, int skipped, long durationMs) {
+    }
+
+    private final MailBatchSender mailBatchSender;
+    private final ThreadPoolTaskExecutor executor;
+    private final TokenBucket rateLimiter;
+    private final int batchSize;
+    private final int maxInFlight;
+    private volatile boolean stopping;
+
+    public BulkMailDispatcher(MailBatchSender mailBatchSender,
+                              @Qualifier("mailDispatchExecutor") ThreadPoolTaskExecutor executor,
+                              @Value("${mail.dispatch.rate-per-second:50}") double ratePerSecond,
+                              @Value("${mail.dispatch.burst:10}") int burst) {
+        this.mailBatchSender = mailBatchSender;
+        this.executor = executor;
+        this.rateLimiter = new TokenBucket(ratePerSecond, burst);
+        this.batchSize = ratePerSecond > 0
+                ? Math.max(1, Math.min(mailBatchSender.getBatchSize(), burst))
+                : mailBatchSender.getBatchSize();
+        this.maxInFlight = executor.getMaxPoolSize() * 2;
+    }
+
+    public Result dispatch(List<SimpleMailMessage> messages) {
+        return dispatch(messages, delivered -> {
+        });
+    }
+
+    /**
+     * Like {@link #dispatch(List)}, and hands every batch's delivered messages to
+     * {@code onDelivered} on the sending thread as soon as the batch is done.
+     */
+    public Result dispatch(List<SimpleMailMessage> messages, Consumer<List<SimpleMailMessage>> onDelivered) {
+        long startedAt = System.currentTimeMillis();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        List<List<SimpleMailMessage>> batches = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            batches.add(messages.subList(from, Math.min(messages.size(), from + batchSize)));
+        }
+        CountDownLatch done = new CountDownLatch(batches.size());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        int submitted = 0;
+        try {
+            for (List<SimpleMailMessage> batch : batches) {
+                if (stopping) {
+                    break;
+                }
+                inFlight.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            send(batch, onDelivered, sent, failed, skipped);
+                        } finally {
+                            inFlight.release();
+                            done.countDown();
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    inFlight.release();
+                    break;
+                }
+                submitted++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Whatever was never handed to the pool is skipped.
+        for (int i = submitted; i < batches.size(); i++) {
+            skipped.addAndGet(batches.get(i).size());
+            done.countDown();
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Result result = new Result(sent.get(), failed.get(), skipped.get(), System.currentTimeMillis() - startedAt);
+        log.info("📨 Bulk dispatch finished - Sent: {}, Failed: {}, Skipped: {} in {} ms",
+                result.sent(), result.failed(), result.skipped(), result.durationMs());
+        return result;
+    }
+
+    private void send(List<SimpleMailMessage> batch, Consumer<List<SimpleMailMessage>> onDelivered,
+                      AtomicInteger sent, AtomicInteger failed, AtomicInteger skipped) {
+        if (stopping) {
+            skipped.addAndGet(batch.size());
+            return;
+        }
+        try {
+            rateLimiter.acquire(batch.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            skipped.addAndGet(batch.size());
+            return;
+        }
+
+        Map<Integer, Exception> failures = mailBatchSender.send(batch);
+        failures.forEach((index, e) ->
+                log.error("Failed to send email to {}: {}", Arrays.toString(batch.get(index).getTo()), e.getMessage()));
+        sent.addAndGet(batch.size() - failures.size());
+        failed.addAndGet(failures.size());
+
+        if (failures.size() < batch.size()) {
+            List<SimpleMailMessage> delivered = new ArrayList<>(batch.size() - failures.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failures.containsKey(i)) {
+                    delivered.add(batch.get(i));
+                }
+            }
+            try {
+                onDelivered.accept(delivered);
+            } catch (Exception e) {
+                log.error("Failed to record {} delivered emails: {}", delivered.size(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.subscriptiontracker.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+
+/**
+ * Builds weak ETags for per-user GET endpoints from the user's data version, so a conditional
+ * request costs one scalar lookup instead of rebuilding the response. Responses served from a
+ * cache are tagged with the version they were built from instead, which may be older than the
+ * current one until the cache entry is evicted after the write commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class ETagService {
+    private final SpendingSummaryService spendingSummaryService;
+
+    public String userETag(Long userId) {
+        return userETag(userId, spendingSummaryService.getDataVersion(userId));
+    }
+
+    public String userETag(Long userId, long dataVersion) {
+        return "W/\"" + userId + "-" + dataVersion + "\"";
+    }
+
+    /**
+     * For responses that are also relative to today (upcoming renewals, trends, forecasts).
+     */
+    public String dailyUserETag(Long userId) {
+        return dailyUserETag(userId, spendingSummaryService.getDataVersion(userId));
+    }
+
+    public String dailyUserETag(Long userId, long dataVersion) {
+        return "W/\"" + userId + "-" + dataVersion + "-" + LocalDate.now() + "\"";
+    }
+
+    /**
+     * Answers a conditional GET through {@link WebRequest#checkNotModified(String)}: when the
+     * request's If-None-Match names {@code eTag} the response is already a 304 and the caller
+     * returns {@code null}; otherwise {@code eTag} has been written on the response, so the caller
+     * returns the body without tagging it again.
+     */
+    public boolean checkNotModified(WebRequest request, String eTag) {
+        return request.checkNotModified(eTag);
+    }
+}
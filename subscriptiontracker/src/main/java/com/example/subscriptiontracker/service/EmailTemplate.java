@@ -0,0 +1,92 @@
+package com.example.subscriptiontracker.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A template with {@code {{name}}} placeholders, split once into literal segments and variable
+ * slots. Rendering only appends to a {@link StringBuilder}; values are passed in the order of the
+ * variable names given to {@link #compile}, and HTML templates escape them while appending.
+ */
+public final class EmailTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int variableCount;
+    private final boolean html;
+
+    private EmailTemplate(String[] literals, int[] slots, int variableCount, boolean html) {
+        this.literals = literals;
+        this.slots = slots;
+        this.variableCount = variableCount;
+        this.html = html;
+    }
+
+    /**
+     * @param variables names a placeholder may use; a placeholder with any other name is rejected
+     */
+    public static EmailTemplate compile(String source, boolean html, String... variables) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int from = 0;
+        int open;
+        while ((open = source.indexOf("{{", from)) >= 0) {
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String name = source.substring(open + 2, close).trim();
+            int slot = Arrays.asList(variables).indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}, expected one of "
+                        + Arrays.toString(variables));
+            }
+            literals.add(source.substring(from, open));
+            slots.add(slot);
+            from = close + 2;
+        }
+        literals.add(source.substring(from));
+
+        return new EmailTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), variables.length, html);
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    public void renderTo(StringBuilder out, String... values) {
+        if (values.length != variableCount) {
+            throw new IllegalArgumentException("Expected " + variableCount + " values, got " + values.length);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            if (html) {
+                appendEscaped(out, values[slots[i]]);
+            } else {
+                out.append(values[slots[i]]);
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
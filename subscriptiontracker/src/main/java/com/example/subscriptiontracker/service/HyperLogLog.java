@@ -0,0 +1,119 @@
+package com.example.subscriptiontracker.service;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable distinct-count sketch. Small sets are kept as exact hash lists and switch to
+ * 2^precision one-byte registers once they outgrow them, so thousands of mostly tiny sketches
+ * (one per service name) stay cheap.
+ */
+public final class HyperLogLog {
+
+    private static final int SPARSE_LIMIT = 128;
+
+    private final int precision;
+    private long[] sparse = new long[8];
+    private int sparseSize;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+    }
+
+    public void add(long value) {
+        addHash(mix(value));
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+        if (other.registers == null) {
+            for (int i = 0; i < other.sparseSize; i++) {
+                addHash(other.sparse[i]);
+            }
+            return;
+        }
+        toDense();
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        if (registers == null) {
+            return sparseSize;
+        }
+
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private void addHash(long hash) {
+        if (registers != null) {
+            addToRegisters(hash);
+            return;
+        }
+        for (int i = 0; i < sparseSize; i++) {
+            if (sparse[i] == hash) {
+                return;
+            }
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            addToRegisters(hash);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, SPARSE_LIMIT));
+        }
+        sparse[sparseSize++] = hash;
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[1 << precision];
+        for (int i = 0; i < sparseSize; i++) {
+            addToRegisters(sparse[i]);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private void addToRegisters(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    private static long mix(long value) {
+        // SplitMix64 finalizer: spreads sequential ids across the whole 64-bit range.
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobCheckpoint;
+import com.example.subscriptiontracker.repository.JobCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+@Transactional
+public class JobCheckpointService {
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate newTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public JobCheckpointService(JobCheckpointRepository checkpointRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.checkpointRepository = checkpointRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Locks the checkpoint of {@code jobName} for the caller's transaction. On the job's first
+     * run the row is first inserted from {@code initial} in a transaction of its own, so when
+     * several nodes start that run at once one insert wins and the others lock the same row.
+     */
+    public JobCheckpoint lock(String jobName, Supplier<JobCheckpoint> initial) {
+        Optional<JobCheckpoint> checkpoint = checkpointRepository.findByJobNameForUpdate(jobName);
+        if (checkpoint.isPresent()) {
+            return checkpoint.get();
+        }
+
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                entityManager.persist(initial.get());
+                entityManager.flush();
+            });
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            log.debug("Checkpoint {} was created concurrently", jobName);
+        }
+        return checkpointRepository.findByJobNameForUpdate(jobName)
+                .orElseThrow(() -> new RuntimeException("No checkpoint found for job: " + jobName));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.repository.JobLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Hands out {@link JobLease}s so that only one application instance works on a job run, or on
+ * one partition of it, at a time. Every call is a short transaction of its own that locks the
+ * lease row; the work itself runs outside of it.
+ */
+@Service
+@Slf4j
+public class JobLeaseService {
+
+    private final JobLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final Duration ttl;
+
+    public JobLeaseService(JobLeaseRepository leaseRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${scheduler.instance-id:}") String instanceId,
+                           @Value("${scheduler.lease.ttl:PT5M}") Duration ttl) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.instanceId = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.ttl = ttl;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Takes the lease for {@code runKey} unless that run already completed or another instance
+     * holds an unexpired lease on it. With {@code resumeOnly}, only a started run whose owner let
+     * the lease expire is taken, so a recovery sweep never starts a run early.
+     *
+     * @return the lease, including the last checkpoint, or empty when it is not ours to take
+     */
+    public Optional<JobLease> tryAcquire(String leaseKey, String runKey, boolean resumeOnly) {
+        try {
+            return transactionTemplate.execute(status -> acquire(leaseKey, runKey, resumeOnly));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lease row first.
+            log.debug("Lost the race to create lease {}: {}", leaseKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<JobLease> acquire(String leaseKey, String runKey, boolean resumeOnly) {
+        LocalDateTime now = LocalDateTime.now();
+        JobLease lease = leaseRepository.findByLeaseKeyForUpdate(leaseKey).orElse(null);
+
+        if (lease == null || !runKey.equals(lease.getRunKey())) {
+            if (resumeOnly) {
+                return Optional.empty();
+            }
+            if (lease == null) {
+                lease = JobLease.builder().leaseKey(leaseKey).build();
+            }
+            lease.setRunKey(runKey);
+            lease.setCompleted(false);
+            lease.setCheckpointAt(null);
+            lease.setCheckpointId(null);
+        } else if (lease.isCompleted() || lease.getExpiresAt().isAfter(now)) {
+            return Optional.empty();
+        } else {
+            log.warn("⚠️ Taking over expired lease {} for run {} from {}", leaseKey, runKey, lease.getOwner());
+        }
+
+        lease.setOwner(instanceId);
+        lease.setExpiresAt(now.plus(ttl));
+        return Optional.of(leaseRepository.saveAndFlush(lease));
+    }
+
+    /**
+     * Records progress and extends the lease.
+     *
+     * @return false when another instance has taken the lease over, so the caller must stop
+     */
+    public boolean checkpoint(String leaseKey, LocalDateTime checkpointAt, Long checkpointId) {
+        return extend(leaseKey, lease -> {
+            lease.setCheckpointAt(checkpointAt);
+            lease.setCheckpointId(checkpointId);
+        });
+    }
+
+    /**
+     * Extends the lease of a job that does not checkpoint.
+     *
+     * @return false when another instance has taken the lease over, so the caller must stop
+     */
+    public boolean renew(String leaseKey) {
+        return extend(leaseKey, lease -> {
+        });
+    }
+
+    private boolean extend(String leaseKey, Consumer<JobLease> update) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            JobLease lease = leaseRepository.findByLeaseKeyForUpdate(leaseKey).orElse(null);
+            if (lease == null || lease.isCompleted() || !instanceId.equals(lease.getOwner())) {
+                return false;
+            }
+            update.accept(lease);
+            lease.setExpiresAt(LocalDateTime.now().plus(ttl));
+            return true;
+        }));
+    }
+
+    /**
+     * Leases under {@code keyPrefix} whose owner let them expire before completing.
+     */
+    public List<JobLease> findAbandoned(String keyPrefix) {
+        return leaseRepository.findExpired(keyPrefix, LocalDateTime.now());
+    }
+
+    public void complete(String leaseKey) {
+        transactionTemplate.executeWithoutResult(status ->
+                leaseRepository.findByLeaseKeyForUpdate(leaseKey)
+                        .filter(lease -> instanceId.equals(lease.getOwner()))
+                        .ifPresent(lease -> {
+                            lease.setCompleted(true);
+                            lease.setExpiresAt(LocalDateTime.now());
+                        }));
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.subscriptiontracker.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sends rendered emails in batches of {@code mail.batch.size} instead of one SMTP session per
+ * message.
+ * <ul>
+ *     <li>{@code SINGLE}: one SMTP session per message, the old behaviour.</li>
+ *     <li>{@code BATCH}: each batch goes through one connection opened for it.</li>
+ *     <li>{@code POOLED}: batches borrow a connection from a {@link SmtpTransportPool}, so parallel
+ *     senders keep up to {@code mail.pool.max-connections} sessions open between batches.</li>
+ * </ul>
+ * A {@link MultipartMailMessage} with HTML goes out as multipart/alternative. A rejected message
+ * never fails the rest of its batch; failures are returned by the message's position in the
+ * list, so equal messages in one call are told apart.
+ */
+@Service
+@Slf4j
+public class MailBatchSender {
+
+    public enum Mode { SINGLE, BATCH, POOLED }
+
+    private final JavaMailSender mailSender;
+    private final Mode mode;
+    private final int batchSize;
+    private final SmtpTransportPool pool;
+
+    public MailBatchSender(JavaMailSender mailSender,
+                           @Value("${mail.batch.mode:BATCH}") Mode mode,
+                           @Value("${mail.batch.size:50}") int batchSize,
+                           @Value("${mail.pool.max-connections:8}") int maxConnections) {
+        this.mailSender = mailSender;
+        this.batchSize = Math.max(1, batchSize);
+        if (mode == Mode.POOLED && !(mailSender instanceof JavaMailSenderImpl)) {
+            log.warn("⚠️ Pooled mail mode needs a JavaMailSenderImpl, falling back to batch mode");
+            mode = Mode.BATCH;
+        }
+        this.mode = mode;
+        this.pool = mode == Mode.POOLED ? new SmtpTransportPool((JavaMailSenderImpl) mailSender, maxConnections) : null;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sends every message, in order, in batches of at most {@link #getBatchSize()}.
+     *
+     * @return the index in {@code messages} of each message that could not be sent, with the
+     * reason; empty when all were accepted
+     */
+    public Map<Integer, Exception> send(List<SimpleMailMessage> messages) {
+        Map<Integer, Exception> failures = new TreeMap<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            int to = Math.min(messages.size(), from + batchSize);
+            switch (mode) {
+                case SINGLE -> sendSingle(messages, from, to, failures);
+                case BATCH -> sendBatch(messages, from, to, failures);
+                case POOLED -> sendPooled(messages, from, to, failures);
+            }
+        }
+        return failures;
+    }
+
+    private void sendSingle(List<SimpleMailMessage> messages, int from, int to, Map<Integer, Exception> failures) {
+        for (int i = from; i < to; i++) {
+            try {
+                mailSender.send(toMimeMessage(messages.get(i)));
+            } catch (MessagingException | MailException e) {
+                failures.put(i, e);
+            }
+        }
+    }
+
+    private void sendBatch(List<SimpleMailMessage> messages, int from, int to, Map<Integer, Exception> failures) {
+        // MimeMessage keeps identity equality, so each one maps back to exactly one index.
+        Map<MimeMessage, Integer> originals = new LinkedHashMap<>();
+        for (int i = from; i < to; i++) {
+            try {
+                originals.put(toMimeMessage(messages.get(i)), i);
+            } catch (MessagingException | MailException e) {
+                failures.put(i, e);
+            }
+        }
+        if (originals.isEmpty()) {
+            return;
+        }
+
+        try {
+            mailSender.send(originals.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Keyed by the MimeMessage that failed; empty when the whole batch failed.
+            if (e.getFailedMessages().isEmpty()) {
+                originals.values().forEach(index -> failures.put(index, e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(originals.get(message), cause));
+            }
+        } catch (MailException e) {
+            originals.values().forEach(index -> failures.put(index, e));
+        }
+    }
+
+    private void sendPooled(List<SimpleMailMessage> messages, int from, int to, Map<Integer, Exception> failures) {
+        Transport transport = null;
+        try {
+            for (int i = from; i < to; i++) {
+                if (transport == null) {
+                    try {
+                        transport = pool.borrow();
+                    } catch (MessagingException | InterruptedException e) {
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                        }
+                        for (int failed = i; failed < to; failed++) {
+                            failures.put(failed, e);
+                        }
+                        return;
+                    }
+                }
+                MimeMessage mimeMessage;
+                try {
+                    mimeMessage = toMimeMessage(messages.get(i));
+                } catch (MessagingException | MailException e) {
+                    failures.put(i, e);
+                    continue;
+                }
+                try {
+                    transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                } catch (SendFailedException e) {
+                    // The server refused this message; the session itself is still usable.
+                    failures.put(i, e);
+                } catch (MessagingException e) {
+                    failures.put(i, e);
+                    pool.invalidate(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                pool.release(transport);
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        if (message instanceof MultipartMailMessage multipart && multipart.getHtmlText() != null) {
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
+            message.copyTo(new MimeMailMessage(helper));
+            helper.setText(message.getText() != null ? message.getText() : "", multipart.getHtmlText());
+        } else {
+            message.copyTo(new MimeMailMessage(mimeMessage));
+        }
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+}
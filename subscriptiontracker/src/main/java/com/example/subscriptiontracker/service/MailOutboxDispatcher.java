@@ -0,0 +1,73 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers outbox emails through {@link MailBatchSender}, so a claimed batch shares SMTP
+ * sessions. Claiming and recording results are short transactions of their own, so no database
+ * connection is held while talking to the mail server.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailOutboxDispatcher {
+    private final MailOutboxService mailOutboxService;
+    private final MailBatchSender mailBatchSender;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Sends batches until no emails that were due when the call started are left. Emails that fail
+     * are retried by a later call, even when their backoff has already run out.
+     *
+     * @return the number of emails delivered
+     */
+    public int dispatchDue() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        int delivered = 0;
+        List<MailOutbox> batch;
+
+        do {
+            batch = mailOutboxService.claimDue(batchSize, startedAt);
+            List<SimpleMailMessage> messages = batch.stream().map(this::toMessage).toList();
+            Map<Integer, Exception> sendFailures = mailBatchSender.send(messages);
+
+            Map<Long, String> failures = new HashMap<>();
+            for (Map.Entry<Integer, Exception> failure : sendFailures.entrySet()) {
+                MailOutbox mail = batch.get(failure.getKey());
+                String error = failure.getValue().getMessage();
+                log.warn("Failed to send email {} to {} (attempt {}): {}",
+                        mail.getId(), mail.getRecipient(), mail.getAttempts(), error);
+                failures.put(mail.getId(), error);
+            }
+
+            if (!batch.isEmpty()) {
+                mailOutboxService.recordResults(batch, failures);
+            }
+            delivered += batch.size() - failures.size();
+        } while (!batch.isEmpty());
+
+        return delivered;
+    }
+
+    private SimpleMailMessage toMessage(MailOutbox mail) {
+        MultipartMailMessage message = new MultipartMailMessage();
+        message.setTo(mail.getRecipient());
+        message.setFrom(mail.getSender());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getBody());
+        message.setHtmlText(mail.getHtmlBody());
+        return message;
+    }
+}
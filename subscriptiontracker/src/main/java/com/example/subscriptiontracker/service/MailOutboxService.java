@@ -0,0 +1,198 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import com.example.subscriptiontracker.model.MailStatus;
+import com.example.subscriptiontracker.repository.MailOutboxRepository;
+import com.example.subscriptiontracker.repository.projection.HeldDigestRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class MailOutboxService {
+    private final MailOutboxRepository outboxRepository;
+
+    @Value("${mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${mail.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${mail.outbox.lease:PT5M}")
+    private Duration lease;
+
+    // The longest one message may take to send; keep it at or above the SMTP timeouts.
+    @Value("${mail.outbox.send-timeout:PT30S}")
+    private Duration sendTimeout;
+
+    // Sent and dead emails are kept this long after they were queued.
+    @Value("${mail.outbox.retention-days:14}")
+    private int retentionDays;
+
+    /**
+     * Stores one outbox row per recipient. Joins the caller's transaction, so the email is only
+     * sent if the change that caused it commits.
+     */
+    public void enqueue(SimpleMailMessage message) {
+        save(message, MailStatus.PENDING, null, null);
+    }
+
+    /**
+     * Stores the message as HELD for the user's notification digest. Like {@link #enqueue}, it
+     * joins the caller's transaction.
+     */
+    public void hold(Long userId, String digestKey, SimpleMailMessage message) {
+        save(message, MailStatus.HELD, userId, digestKey);
+    }
+
+    /**
+     * Users whose HELD rows are due for a digest: the oldest was held by {@code before}, or they
+     * have at least {@code maxItems} of them.
+     */
+    @Transactional(readOnly = true)
+    public List<HeldDigestRow> findDueHeldDigests(LocalDateTime before, int maxItems) {
+        return outboxRepository.findDueHeldDigests(before, maxItems);
+    }
+
+    /**
+     * Locks the user's HELD rows for the caller's transaction, so two flushes never merge the same
+     * notification twice.
+     */
+    public List<MailOutbox> claimHeld(Long userId) {
+        return outboxRepository.findHeldForUpdate(userId);
+    }
+
+    /** Deletes a HELD row once its notification has been queued as part of a digest. */
+    public void releaseHeld(Long id) {
+        outboxRepository.deleteById(id);
+    }
+
+    public void deadLetterHeld(Long id, String error) {
+        outboxRepository.findById(id).ifPresent(mail -> deadLetter(mail, error));
+    }
+
+    /**
+     * Locks up to {@code batchSize} rows due by {@code dueBy} and leases them to the caller as
+     * SENDING. Rows that already used up their attempts on an expired lease are dead-lettered
+     * instead, and further rows are read in their place, so the result is only empty once nothing
+     * is due. The lease covers sending the whole batch one message after another.
+     */
+    public List<MailOutbox> claimDue(int batchSize, LocalDateTime dueBy) {
+        LocalDateTime leasedUntil = LocalDateTime.now().plus(lease).plus(sendTimeout.multipliedBy(batchSize));
+        List<MailOutbox> claimed = new ArrayList<>();
+
+        List<MailOutbox> due;
+        do {
+            due = outboxRepository.findDueForUpdate(dueBy, Limit.of(batchSize));
+            for (MailOutbox mail : due) {
+                if (mail.getAttempts() >= maxAttempts) {
+                    deadLetter(mail, "Delivery lease expired after " + mail.getAttempts() + " attempts");
+                    continue;
+                }
+                mail.setStatus(MailStatus.SENDING);
+                mail.setAttempts(mail.getAttempts() + 1);
+                mail.setNextAttemptAt(leasedUntil);
+                claimed.add(mail);
+            }
+        } while (claimed.isEmpty() && !due.isEmpty());
+        return claimed;
+    }
+
+    /**
+     * Marks the delivered rows of a claimed batch as SENT and schedules failed ones for a retry
+     * with exponential backoff, or dead-letters them once they are out of attempts. Rows whose
+     * lease ran out and that were claimed again or dead-lettered meanwhile are left to their
+     * new state.
+     *
+     * @param claimed the rows as {@link #claimDue} returned them
+     * @param failures the send error of each row that was not delivered, by id
+     */
+    public void recordResults(List<MailOutbox> claimed, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> claimedAttempts = new HashMap<>();
+        claimed.forEach(mail -> claimedAttempts.put(mail.getId(), mail.getAttempts()));
+
+        for (MailOutbox mail : outboxRepository.findAllByIdForUpdate(claimedAttempts.keySet())) {
+            // Every claim counts an attempt, so a row claimed again since has a higher count.
+            if (mail.getStatus() != MailStatus.SENDING || mail.getAttempts() != claimedAttempts.get(mail.getId())) {
+                log.warn("Lease on email {} to {} ran out while it was being sent; leaving it {}",
+                        mail.getId(), mail.getRecipient(), mail.getStatus());
+                continue;
+            }
+            String error = failures.get(mail.getId());
+            if (error == null) {
+                mail.setStatus(MailStatus.SENT);
+                mail.setSentAt(now);
+                mail.setLastError(null);
+            } else if (mail.getAttempts() >= maxAttempts) {
+                deadLetter(mail, error);
+            } else {
+                mail.setStatus(MailStatus.PENDING);
+                mail.setNextAttemptAt(now.plus(backoff(mail.getAttempts())));
+                mail.setLastError(truncate(error));
+            }
+        }
+    }
+
+    private void save(SimpleMailMessage message, MailStatus status, Long userId, String digestKey) {
+        LocalDateTime now = LocalDateTime.now();
+        String htmlBody = message instanceof MultipartMailMessage multipart ? multipart.getHtmlText() : null;
+        for (String recipient : message.getTo()) {
+            outboxRepository.save(MailOutbox.builder()
+                    .recipient(recipient)
+                    .sender(message.getFrom())
+                    .subject(message.getSubject())
+                    .body(message.getText())
+                    .htmlBody(htmlBody)
+                    .status(status)
+                    .userId(userId)
+                    .digestKey(digestKey)
+                    .nextAttemptAt(now)
+                    .build());
+        }
+    }
+
+    public int prune(LocalDateTime now) {
+        int deleted = outboxRepository.deleteFinishedBefore(now.minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("🧹 Pruned {} sent and dead outbox emails", deleted);
+        }
+        return deleted;
+    }
+
+    private void deadLetter(MailOutbox mail, String error) {
+        log.error("❌ Giving up on email {} to {} after {} attempts: {}",
+                mail.getId(), mail.getRecipient(), mail.getAttempts(), error);
+        mail.setStatus(MailStatus.DEAD);
+        mail.setLastError(truncate(error));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.subscriptiontracker.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money arithmetic on {@code long} minor units (cents). Analytics sum, average and compare in cents
+ * and only turn results back into {@link BigDecimal} when building responses. Every operation rounds
+ * exactly like the {@code BigDecimal} expression it replaces (HALF_UP, away from zero on ties).
+ */
+public final class MoneyMath {
+
+    private MoneyMath() {
+    }
+
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Same as {@code total.divide(BigDecimal.valueOf(count), 2, HALF_UP)}.
+     */
+    public static long average(long totalCents, int count) {
+        if (count == 0) {
+            return 0L;
+        }
+        return divideHalfUp(totalCents, count);
+    }
+
+    /**
+     * Same as {@code part.divide(total, 4, HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue()}.
+     */
+    public static double percentage(long partCents, long totalCents) {
+        if (totalCents == 0) {
+            return 0.0;
+        }
+        return divideHalfUp(Math.multiplyExact(partCents, 10_000L), totalCents) / 100.0;
+    }
+
+    /**
+     * Percentage change from {@code fromCents} to {@code toCents}, rounded like {@link #percentage}.
+     */
+    public static double percentageChange(long fromCents, long toCents) {
+        if (fromCents == 0) {
+            return 0.0;
+        }
+        return percentage(Math.subtractExact(toCents, fromCents), fromCents);
+    }
+
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // Compare 2|r| with |d| without overflowing: |r| < |d| so |d| - |r| is always representable.
+        long absRemainder = Math.abs(remainder);
+        long absDivisor = Math.abs(divisor);
+        if (absRemainder >= absDivisor - absRemainder) {
+            return (dividend < 0) == (divisor < 0) ? quotient + 1 : quotient - 1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.subscriptiontracker.service;
+
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.Objects;
+
+/**
+ * A {@link SimpleMailMessage} with an optional HTML alternative to its text. {@link MailBatchSender}
+ * sends it as multipart/alternative when the HTML part is set, and as plain text otherwise.
+ */
+public class MultipartMailMessage extends SimpleMailMessage {
+
+    private String htmlText;
+
+    public String getHtmlText() {
+        return htmlText;
+    }
+
+    public void setHtmlText(String htmlText) {
+        this.htmlText = htmlText;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return super.equals(other) && other instanceof MultipartMailMessage that
+                && Objects.equals(htmlText, that.htmlText);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Objects.hashCode(htmlText);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import com.example.subscriptiontracker.repository.projection.HeldDigestRow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Digest mode for notification emails. While {@code notifications.digest.enabled} is on, a
+ * user's notifications are held per user for {@code notifications.digest.window} after the first
+ * one arrives, and are then sent as one combined email. A user with a single pending
+ * notification gets it unchanged.
+ * <p>
+ * Notifications from {@link #hold}, renewal reminders among them, are stored as HELD
+ * {@link MailOutboxService outbox} rows in the transaction that caused them, so they survive a
+ * restart. Items from {@link #add} carry a callback and are kept in memory only, so a crash loses
+ * them; use it only for notifications that can be lost. {@link #flushDue(Instant)} merges both
+ * into one digest per user and queues it in place of the HELD rows. From there it is delivered and
+ * retried like any other email; a normal shutdown flushes everything.
+ * <p>
+ * A digest longer than {@code notifications.digest.max-length} characters is split over several
+ * emails, and one that still cannot be queued after {@code notifications.digest.max-flush-attempts}
+ * flushes is queued as separate notifications instead.
+ */
+@Service
+@Slf4j
+public class NotificationDigestService {
+
+    private final MailOutboxService mailOutboxService;
+    private final NotificationTemplates templates;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxItems;
+    private final int maxLength;
+    private final int maxFlushAttempts;
+
+    private final Map<Long, Digest> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> failedFlushes = new ConcurrentHashMap<>();
+
+    public NotificationDigestService(MailOutboxService mailOutboxService,
+                                     NotificationTemplates templates,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${notifications.digest.enabled:false}") boolean enabled,
+                                     @Value("${notifications.digest.window:PT15M}") Duration window,
+                                     @Value("${notifications.digest.max-items:20}") int maxItems,
+                                     @Value("${notifications.digest.max-length:12000}") int maxLength,
+                                     @Value("${notifications.digest.max-flush-attempts:3}") int maxFlushAttempts) {
+        this.mailOutboxService = mailOutboxService;
+        this.templates = templates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.window = window;
+        this.maxItems = maxItems;
+        this.maxLength = maxLength;
+        this.maxFlushAttempts = maxFlushAttempts;
+    }
+
+    /**
+     * @param key      identifies the notification within the digest; a second one with the same
+     *                 key is dropped. {@code null} never matches.
+     * @param onQueued runs in the transaction that moves the digest into the outbox, or null
+     * @param heldId   the HELD outbox row the item was read from, or null for items added in memory
+     */
+    public record Item(String key, SimpleMailMessage message, Runnable onQueued, Long heldId) {
+        public Item(String key, SimpleMailMessage message, Runnable onQueued) {
+            this(key, message, onQueued, null);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingUsers() {
+        return pending.size();
+    }
+
+    /**
+     * Holds a notification for the user's digest in the outbox. It joins the caller's transaction,
+     * so a rolled back change never notifies anyone.
+     *
+     * @param key identifies the notification within the digest, as for {@link Item}
+     */
+    public void hold(Long userId, String key, SimpleMailMessage message) {
+        mailOutboxService.hold(userId, key, message);
+    }
+
+    /**
+     * Adds a notification to the user's digest in memory, where a crash before the next flush loses
+     * it. Inside a transaction it waits for the commit, so a rolled back change never notifies anyone.
+     */
+    public void add(Long userId, String userName, Item item) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(userId, userName, List.of(item));
+                }
+            });
+        } else {
+            addNow(userId, userName, List.of(item));
+        }
+    }
+
+    /**
+     * Queues every digest whose window has passed or that reached
+     * {@code notifications.digest.max-items}.
+     *
+     * @return the number of emails queued
+     */
+    public int flushDue(Instant now) {
+        Instant queuedBefore = now.minus(window);
+        return flush(queuedBefore, LocalDateTime.ofInstant(queuedBefore, ZoneId.systemDefault()));
+    }
+
+    @PreDestroy
+    public int flushAll() {
+        return flush(Instant.MAX, LocalDateTime.now());
+    }
+
+    private int flush(Instant queuedBefore, LocalDateTime heldBefore) {
+        int emails = 0;
+        int notifications = 0;
+
+        Map<Long, String> due = new LinkedHashMap<>();
+        for (Map.Entry<Long, Digest> entry : pending.entrySet()) {
+            Digest digest = entry.getValue();
+            if (!digest.firstQueuedAt.isAfter(queuedBefore) || digest.items.size() >= maxItems) {
+                due.put(entry.getKey(), digest.userName);
+            }
+        }
+        for (HeldDigestRow row : mailOutboxService.findDueHeldDigests(heldBefore, maxItems)) {
+            due.putIfAbsent(row.getUserId(), row.getUserName());
+        }
+
+        for (Map.Entry<Long, String> entry : due.entrySet()) {
+            Long userId = entry.getKey();
+            String userName = entry.getValue();
+            // Notifications added from here on start a new digest.
+            Digest digest = pending.remove(userId);
+            List<Item> added = digest != null ? new ArrayList<>(digest.items.values()) : List.of();
+
+            try {
+                int[] queued = transactionTemplate.execute(status -> {
+                    List<Item> items = merge(added, mailOutboxService.claimHeld(userId));
+                    List<List<Item>> parts = split(items);
+                    for (List<Item> part : parts) {
+                        queue(userName, part);
+                    }
+                    return new int[]{parts.size(), items.size()};
+                });
+                failedFlushes.remove(userId);
+                emails += queued[0];
+                notifications += queued[1];
+            } catch (Exception e) {
+                // The HELD rows were rolled back and are still in the outbox.
+                int failures = failedFlushes.merge(userId, 1, Integer::sum);
+                if (failures < maxFlushAttempts) {
+                    log.error("❌ Failed to queue digest for user {}, keeping it for the next flush: {}",
+                            userId, e.getMessage());
+                    if (!added.isEmpty()) {
+                        addNow(userId, userName, added);
+                    }
+                } else {
+                    log.error("❌ Failed to queue digest for user {} {} times, queueing its notifications separately: {}",
+                            userId, failures, e.getMessage());
+                    failedFlushes.remove(userId);
+                    List<Item> items = merge(added, mailOutboxService.claimHeld(userId));
+                    emails += queueSeparately(userId, userName, items);
+                    notifications += items.size();
+                }
+            }
+        }
+
+        if (emails > 0) {
+            log.info("📨 Queued {} digest emails covering {} notifications", emails, notifications);
+        }
+        return emails;
+    }
+
+    /**
+     * Combines the user's HELD rows with the items added in memory. Each HELD row is deleted when
+     * its item is queued, or straight away when another item already has its key.
+     */
+    private List<Item> merge(List<Item> added, List<MailOutbox> held) {
+        Map<Object, Item> items = new LinkedHashMap<>();
+        for (MailOutbox row : held) {
+            Object key = row.getDigestKey() != null ? row.getDigestKey() : new Object();
+            if (items.containsKey(key)) {
+                mailOutboxService.releaseHeld(row.getId());
+                continue;
+            }
+            items.put(key, new Item(row.getDigestKey(), toMessage(row), () -> mailOutboxService.releaseHeld(row.getId()), row.getId()));
+        }
+        for (Item item : added) {
+            items.putIfAbsent(item.key() != null ? item.key() : new Object(), item);
+        }
+        return new ArrayList<>(items.values());
+    }
+
+    private void queue(String userName, List<Item> items) {
+        mailOutboxService.enqueue(toMessage(userName, items));
+        for (Item item : items) {
+            if (item.onQueued() != null) {
+                item.onQueued().run();
+            }
+        }
+    }
+
+    /**
+     * Last resort for a digest that keeps failing: every notification gets its own transaction, so
+     * one that cannot be queued no longer holds back the others. Those are logged and dropped, and
+     * a HELD row is dead-lettered.
+     */
+    private int queueSeparately(Long userId, String userName, List<Item> items) {
+        int queued = 0;
+        for (Item item : items) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> queue(userName, List.of(item)));
+                queued++;
+            } catch (Exception e) {
+                log.error("❌ Dropping notification '{}' for user {}: {}",
+                        item.message().getSubject(), userId, e.getMessage());
+                if (item.heldId() != null) {
+                    mailOutboxService.deadLetterHeld(item.heldId(), e.getMessage());
+                }
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Splits a digest into emails of at most {@code maxLength} characters of notification text.
+     * A single notification longer than that still goes out on its own.
+     */
+    private List<List<Item>> split(List<Item> items) {
+        List<List<Item>> parts = new ArrayList<>();
+        List<Item> part = new ArrayList<>();
+        int length = 0;
+        for (Item item : items) {
+            int itemLength = item.message().getText() != null ? item.message().getText().length() : 0;
+            if (!part.isEmpty() && length + itemLength > maxLength) {
+                parts.add(part);
+                part = new ArrayList<>();
+                length = 0;
+            }
+            part.add(item);
+            length += itemLength;
+        }
+        parts.add(part);
+        return parts;
+    }
+
+    private void addNow(Long userId, String userName, List<Item> items) {
+        // All changes to a digest happen inside compute, so a flush never sees one half-updated.
+        pending.compute(userId, (id, digest) -> {
+            Digest updated = digest != null ? digest : new Digest(userName, Instant.now());
+            for (Item item : items) {
+                Object key = item.key() != null ? item.key() : new Object();
+                updated.items.putIfAbsent(key, item);
+            }
+            return updated;
+        });
+    }
+
+    private SimpleMailMessage toMessage(String userName, List<Item> items) {
+        SimpleMailMessage first = items.get(0).message();
+        if (items.size() == 1) {
+            return first;
+        }
+
+        List<NotificationTemplates.Rendered> notifications = new ArrayList<>(items.size());
+        for (Item item : items) {
+            notifications.add(new NotificationTemplates.Rendered(item.message().getSubject(), item.message().getText(), null));
+        }
+        NotificationTemplates.Rendered rendered = templates.digest(userName, notifications);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(first.getTo());
+        message.setFrom(first.getFrom());
+        message.setSubject(rendered.subject());
+        message.setText(rendered.text());
+        return message;
+    }
+
+    private SimpleMailMessage toMessage(MailOutbox row) {
+        MultipartMailMessage message = new MultipartMailMessage();
+        message.setTo(row.getRecipient());
+        message.setFrom(row.getSender());
+        message.setSubject(row.getSubject());
+        message.setText(row.getBody());
+        message.setHtmlText(row.getHtmlBody());
+        return message;
+    }
+
+    private static final class Digest {
+        private final String userName;
+        private final Instant firstQueuedAt;
+        private final Map<Object, Item> items = new LinkedHashMap<>();
+
+        private Digest(String userName, Instant firstQueuedAt) {
+            this.userName = userName;
+            this.firstQueuedAt = firstQueuedAt;
+        }
+    }
+}
@@ -2,72 +2,82 @@ package com.example.subscriptiontracker.service;
 
 import com.example.subscriptiontracker.model.Subscription;
 import com.example.subscriptiontracker.model.User;
-import lombok.RequiredArgsConstructor;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
     private final JavaMailSender mailSender;
-
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private final MailBatchSender mailBatchSender;
+    private final MailOutboxService mailOutboxService;
+    private final BulkMailDispatcher bulkMailDispatcher;
+    private final NotificationTemplates templates;
+    private final ReminderLedgerService reminderLedgerService;
+    private final NotificationDigestService digestService;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final String FROM_ADDRESS = "noreply@subscriptiontracker.com";
+
+    public NotificationService(JavaMailSender mailSender,
+                               MailBatchSender mailBatchSender,
+                               MailOutboxService mailOutboxService,
+                               BulkMailDispatcher bulkMailDispatcher,
+                               NotificationTemplates templates,
+                               ReminderLedgerService reminderLedgerService,
+                               NotificationDigestService digestService,
+                               PlatformTransactionManager transactionManager) {
+        this.mailSender = mailSender;
+        this.mailBatchSender = mailBatchSender;
+        this.mailOutboxService = mailOutboxService;
+        this.bulkMailDispatcher = bulkMailDispatcher;
+        this.templates = templates;
+        this.reminderLedgerService = reminderLedgerService;
+        this.digestService = digestService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     public void sendRenewalReminder(Subscription subscription, int daysUntilRenewal) {
+        SimpleMailMessage message = buildRenewalReminder(subscription, daysUntilRenewal);
+        if (message == null) {
+            return;
+        }
+
+        Exception failure = mailBatchSender.send(List.of(message)).get(0);
+        if (failure == null) {
+            log.info("✅ Successfully sent renewal reminder to {}", subscription.getUser().getEmail());
+        } else {
+            log.error("❌ Failed to send renewal reminder to {}: {}", subscription.getUser().getEmail(), failure.getMessage());
+        }
+    }
 
+    /**
+     * Renders the renewal reminder for a subscription, or returns null when the user or the
+     * subscription has notifications turned off.
+     */
+    private SimpleMailMessage buildRenewalReminder(Subscription subscription, int daysUntilRenewal) {
         User user = subscription.getUser();
 
         if (!user.isEmailNotifications() || !subscription.isNotificationsEnabled()) {
             log.debug("Skipping renewal reminder for user {} - notifications disabled", user.getId());
-            return;
+            return null;
         }
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setFrom("noreply@subscriptiontracker.com");
-            message.setSubject("🔔 Subscription Renewal Reminder - " + subscription.getName());
-
-            String renewalText = daysUntilRenewal == 0 ? "today" :
-                    daysUntilRenewal == 1 ? "tomorrow" : daysUntilRenewal + " days";
-
-            String emailBody = String.format(
-                    "Hi %s,\n\n" +
-                            "Your %s subscription (%s) will renew in %s.\n\n" +
-                            "📅 Renewal Date: %s\n" +
-                            "💰 Amount: $%.2f %s\n" +
-                            "💳 Payment Method: %s\n\n" +
-                            "If you want to cancel or modify this subscription, please log into your account.\n\n" +
-                            "Manage subscriptions: http://localhost:3000/subscriptions\n\n" +
-                            "Best regards,\n" +
-                            "Subscription Tracker Team",
-
-                    user.getName(),
-                    subscription.getName(),
-                    subscription.getPlanName() != null ? subscription.getPlanName() : "Standard Plan",
-                    renewalText,
-                    subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER),
-                    subscription.getPrice(),
-                    subscription.getCurrency(),
-                    subscription.getCard() != null ? subscription.getCard() : "Default card"
-            );
-
-            message.setText(emailBody);
-
-            mailSender.send(message);
-
-            log.info("✅ Successfully sent renewal reminder to {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("❌ Failed to send renewal reminder to {}: {}", user.getEmail(), e.getMessage());
-        }
+        return toMessage(user.getEmail(), templates.renewalReminder(user, subscription, daysUntilRenewal));
     }
 
     public void sendPriceIncreaseNotification(Subscription subscription, BigDecimal oldPrice, BigDecimal newPrice) {
@@ -81,46 +91,13 @@ public class NotificationService {
                 user.getEmail(), subscription.getName());
 
         try {
-            BigDecimal monthlyIncrease = newPrice.subtract(oldPrice);
-            BigDecimal yearlyIncrease = monthlyIncrease.multiply(BigDecimal.valueOf(12));
+            SimpleMailMessage message = toMessage(user.getEmail(), templates.priceChange(user, subscription, oldPrice, newPrice));
+            // Every price change is kept, so a digest shows each step.
+            queue(user, null, message);
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setFrom("noreply@subscriptiontracker.com");
-            message.setSubject("⚠️ Price Change Alert - " + subscription.getName());
-
-            String emailBody = String.format(
-                    "Hi %s,\n\n" +
-                            "We detected a price change for your %s subscription:\n\n" +
-                            "📊 Price Change Details:\n" +
-                            "   Previous Price: $%.2f %s\n" +
-                            "   New Price: $%.2f %s\n" +
-                            "   Monthly Increase: +$%.2f\n" +
-                            "   Yearly Increase: +$%.2f\n\n" +
-                            "📅 This change will be reflected in your next billing cycle on %s.\n\n" +
-                            "💡 Pro Tip: Review your subscription to see if you still need this service " +
-                            "or if there's a cheaper plan available.\n\n" +
-                            "Manage subscriptions: http://localhost:3000/subscriptions\n\n" +
-                            "Best regards,\n" +
-                            "Subscription Tracker Team",
-
-                    user.getName(),
-                    subscription.getName(),
-                    oldPrice,
-                    subscription.getCurrency(),
-                    newPrice,
-                    subscription.getCurrency(),
-                    monthlyIncrease,
-                    yearlyIncrease,
-                    subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER) // <--- FIXED: Formatter name
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
-
-            log.info("✅ Successfully sent price change notification to {}", user.getEmail());
+            log.info("✅ Queued price change notification for {}", user.getEmail());
         } catch (Exception e) {
-            log.error("❌ Failed to send price change notification to {}: {}",
+            log.error("❌ Failed to queue price change notification for {}: {}",
                     user.getEmail(), e.getMessage());
         }
     }
@@ -136,44 +113,12 @@ public class NotificationService {
                 user.getEmail(), subscription.getName());
 
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setFrom("noreply@subscriptiontracker.com");
-            message.setSubject("❌ Payment Failed - " + subscription.getName());
-
-            String emailBody = String.format(
-                    "Hi %s,\n\n" +
-                            "We detected that a payment failed for your %s subscription.\n\n" +
-                            "💳 Payment Details:\n" +
-                            "   Service: %s (%s)\n" +
-                            "   Amount: $%.2f %s\n" +
-                            "   Payment Method: %s\n" +
-                            "   Status: PAYMENT FAILED\n\n" +
-                            "🚨 Action Required:\n" +
-                            "   • Check your payment method for sufficient funds\n" +
-                            "   • Update your card information if expired\n" +
-                            "   • Contact your bank if the card is being declined\n\n" +
-                            "⏰ Your subscription may be suspended if payment is not resolved soon.\n\n" +
-                            "Update payment method: http://localhost:3000/subscriptions\n\n" +
-                            "Need help? Contact support at support@subscriptiontracker.com\n\n" +
-                            "Best regards,\n" +
-                            "Subscription Tracker Team",
-
-                    user.getName(),
-                    subscription.getName(),
-                    subscription.getName(),
-                    subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
-                    subscription.getPrice(),
-                    subscription.getCurrency(),
-                    subscription.getCard() != null ? subscription.getCard() : "Default card"
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
+            SimpleMailMessage message = toMessage(user.getEmail(), templates.paymentFailed(user, subscription));
+            queue(user, "payment-failed:" + subscription.getId(), message);
 
-            log.info("✅ Successfully sent payment failed notification to {}", user.getEmail());
+            log.info("✅ Queued payment failed notification for {}", user.getEmail());
         } catch (Exception e) {
-            log.error("❌ Failed to send payment failed notification to {}: {}",
+            log.error("❌ Failed to queue payment failed notification for {}: {}",
                     user.getEmail(), e.getMessage());
         }
     }
@@ -189,72 +134,102 @@ public class NotificationService {
                 user.getEmail(), subscription.getName());
 
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setFrom("noreply@subscriptiontracker.com");
-            message.setSubject("✅ Subscription Cancelled - " + subscription.getName());
-
-            String emailBody = String.format(
-                    "Hi %s,\n\n" +
-                            "Your %s subscription has been successfully cancelled.\n\n" +
-                            "📋 Cancellation Details:\n" +
-                            "   Service: %s (%s)\n" +
-                            "   Cancelled On: %s\n" +
-                            "   Service Until: %s\n" +
-                            "   Final Amount: $%.2f %s\n\n" +
-                            "✨ Your service will remain active until %s, so you can continue enjoying it until then.\n\n" +
-                            "💰 Monthly Savings: $%.2f\n" +
-                            "💰 Yearly Savings: $%.2f\n\n" +
-                            "Changed your mind? You can reactivate anytime at:\n" +
-                            "http://localhost:3000/subscriptions\n\n" +
-                            "Thank you for using Subscription Tracker!\n\n" +
-                            "Best regards,\n" +
-                            "Subscription Tracker Team",
-
-                    user.getName(),
-                    subscription.getName(),
-                    subscription.getName(),
-                    subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
-                    java.time.LocalDate.now().format(DATE_TIME_FORMATTER), // <--- FIXED: Formatter name
-                    subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER), // <--- FIXED: Formatter name
-                    subscription.getPrice(),
-                    subscription.getCurrency(),
-                    subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER), // <--- FIXED: Formatter name
-                    subscription.getPrice(),
-                    subscription.getPrice().multiply(BigDecimal.valueOf(12))
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
+            SimpleMailMessage message = toMessage(user.getEmail(), templates.cancellation(user, subscription, LocalDate.now()));
+            mailOutboxService.enqueue(message);
 
-            log.info("✅ Successfully sent cancellation confirmation to {}", user.getEmail());
+            log.info("✅ Queued cancellation confirmation for {}", user.getEmail());
 
         } catch (Exception e) {
-            log.error("❌ Failed to send cancellation confirmation to {}: {}",
+            log.error("❌ Failed to queue cancellation confirmation for {}: {}",
                     user.getEmail(), e.getMessage());
         }
     }
 
 
-    public void sendBulkRenewalReminders(List<Subscription> subscriptions, int daysUntilRenewal) {
-        log.info("Sending {} renewal reminders for subscriptions renewing in {} days",
-                subscriptions.size(), daysUntilRenewal);
-
-        int successCount = 0;
-        int failureCount = 0;
+    /**
+     * Queues an email through the outbox, or adds it to the user's digest in digest mode.
+     * Cancellation confirmations answer something the user just did and always go out alone.
+     */
+    private void queue(User user, String digestKey, SimpleMailMessage message) {
+        if (digestService.isEnabled()) {
+            digestService.hold(user.getId(), digestKey, message);
+        } else {
+            mailOutboxService.enqueue(message);
+        }
+    }
 
-        for (Subscription subscription : subscriptions) {
+    /**
+     * Renders one chunk of reminder candidates and hands the messages to the
+     * {@link BulkMailDispatcher}, returning once the chunk has been sent. Candidates already in
+     * the {@link ReminderLedgerService ledger} are skipped and delivered ones are added to it.
+     * <p>
+     * In digest mode the reminders are held in the outbox for their users' digests instead, and
+     * count as sent. They are added to the ledger in the same transaction, so once the chunk
+     * returns they survive a crash and a later run does not hold them again.
+     */
+    public BulkMailDispatcher.Result sendRenewalReminders(List<ReminderCandidateRow> candidates, LocalDate today) {
+        List<ReminderCandidateRow> unsent = reminderLedgerService.filterUnsent(candidates, today);
+        int alreadySent = candidates.size() - unsent.size();
+
+        List<SimpleMailMessage> messages = new ArrayList<>(unsent.size());
+        Map<SimpleMailMessage, ReminderCandidateRow> candidateByMessage = new IdentityHashMap<>(unsent.size());
+        int renderFailures = 0;
+        int optedOut = 0;
+
+        for (ReminderCandidateRow candidate : unsent) {
+            if (!candidate.isEmailNotifications()) {
+                optedOut++;
+                continue;
+            }
             try {
-                sendRenewalReminder(subscription, daysUntilRenewal);
-                successCount++;
+                int days = (int) ChronoUnit.DAYS.between(today, candidate.getNextRenewalDate().toLocalDate());
+                SimpleMailMessage message = toMessage(candidate.getUserEmail(), templates.renewalReminder(candidate, days));
+                messages.add(message);
+                candidateByMessage.put(message, candidate);
             } catch (Exception e) {
-                log.error("Failed to send reminder for subscription {}: {}",
-                        subscription.getId(), e.getMessage());
-                failureCount++;
+                log.error("Failed to build reminder for subscription {}: {}", candidate.getId(), e.getMessage());
+                renderFailures++;
             }
         }
 
-        log.info("Bulk reminder summary - Success: {}, Failures: {}", successCount, failureCount);
+        if (digestService.isEnabled()) {
+            long startedAt = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (SimpleMailMessage message : messages) {
+                    ReminderCandidateRow candidate = candidateByMessage.get(message);
+                    digestService.hold(candidate.getUserId(),
+                            "renewal-reminder:" + candidate.getId() + ":" + candidate.getNextRenewalDate().toLocalDate(),
+                            message);
+                }
+                reminderLedgerService.recordSent(messages.stream().map(candidateByMessage::get).toList(), today);
+            });
+            log.info("Reminder chunk summary - Held for digests: {}, Failures: {}, Opted out: {}, Already sent: {}",
+                    messages.size(), renderFailures, optedOut, alreadySent);
+            return new BulkMailDispatcher.Result(messages.size(), renderFailures, optedOut + alreadySent,
+                    System.currentTimeMillis() - startedAt);
+        }
+
+        BulkMailDispatcher.Result result = bulkMailDispatcher.dispatch(messages, delivered ->
+                reminderLedgerService.recordSent(delivered.stream().map(candidateByMessage::get).toList(), today));
+
+        log.info("Reminder chunk summary - Success: {}, Failures: {}, Skipped: {}, Opted out: {}, Already sent: {}",
+                result.sent(), result.failed() + renderFailures, result.skipped(), optedOut, alreadySent);
+        return new BulkMailDispatcher.Result(result.sent(), result.failed() + renderFailures,
+                result.skipped() + optedOut + alreadySent, result.durationMs());
+    }
+
+    public SimpleMailMessage buildWeeklyReport(WeeklySpendingSummary summary, LocalDate weekStart, LocalDate weekEnd) {
+        return toMessage(summary.email(), templates.weeklyReport(summary, weekStart, weekEnd));
+    }
+
+    private SimpleMailMessage toMessage(String to, NotificationTemplates.Rendered rendered) {
+        MultipartMailMessage message = new MultipartMailMessage();
+        message.setTo(to);
+        message.setFrom(FROM_ADDRESS);
+        message.setSubject(rendered.subject());
+        message.setText(rendered.text());
+        message.setHtmlText(rendered.html());
+        return message;
     }
 
     public void sendTestEmail(String toEmail) {
@@ -263,7 +238,7 @@ public class NotificationService {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(toEmail);
-            message.setFrom("noreply@subscriptiontracker.com");
+            message.setFrom(FROM_ADDRESS);
             message.setSubject("✅ Test Email - Subscription Tracker");
             message.setText(
                     "This is a test email to verify your email configuration is working correctly.\n\n" +
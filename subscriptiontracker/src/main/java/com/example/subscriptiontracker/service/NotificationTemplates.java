@@ -0,0 +1,236 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notification emails, compiled once at startup from {@code mail-templates/<name>.txt} on the
+ * classpath plus an optional {@code <name>.html} alternative. A text template starts with a
+ * {@code Subject:} line and a blank line. Values are formatted like the {@code String.format}
+ * bodies these replace: amounts as {@code %.2f}, dates as "MMM dd, yyyy".
+ */
+@Component
+public class NotificationTemplates {
+
+    public record Rendered(String subject, String text, String html) {
+    }
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final int MAX_CACHED_DATES = 1_024;
+    private static final String SIGN_OFF = "Best regards,\nSubscription Tracker Team";
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2_048));
+
+    private final Template renewalReminder = load("renewal-reminder",
+            "name", "subscription", "plan", "renewal", "renewalDate", "amount", "currency", "card");
+    private final Template priceChange = load("price-change",
+            "name", "subscription", "oldPrice", "newPrice", "currency", "monthlyIncrease", "yearlyIncrease", "renewalDate");
+    private final Template paymentFailed = load("payment-failed",
+            "name", "subscription", "plan", "amount", "currency", "card");
+    private final Template cancellation = load("cancellation",
+            "name", "subscription", "plan", "cancelledOn", "serviceUntil", "amount", "currency", "yearlyAmount");
+    private final Template weeklyReport = load("weekly-report",
+            "name", "weekStart", "weekEnd", "activeSubscriptions", "monthlySpending", "yearlySpending",
+            "paymentsSucceeded", "amountPaid", "paymentsFailed", "upcomingRenewals");
+    private final Template digest = load("notification-digest", "count", "name", "sections");
+
+    // Reminders for one day all share a renewal date, so formatting it once is enough.
+    private final Map<LocalDate, String> formattedDates = new ConcurrentHashMap<>();
+    private final char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    public Rendered renewalReminder(User user, Subscription subscription, int daysUntilRenewal) {
+        return renewalReminder(user.getName(), subscription.getName(), subscription.getPlanName(),
+                subscription.getNextRenewalDate(), subscription.getPrice(), subscription.getCurrency(),
+                subscription.getCard(), daysUntilRenewal);
+    }
+
+    public Rendered renewalReminder(ReminderCandidateRow candidate, int daysUntilRenewal) {
+        return renewalReminder(candidate.getUserName(), candidate.getName(), candidate.getPlanName(),
+                candidate.getNextRenewalDate(), candidate.getPrice(), candidate.getCurrency(),
+                candidate.getCard(), daysUntilRenewal);
+    }
+
+    private Rendered renewalReminder(String userName, String subscriptionName, String planName,
+                                     LocalDateTime nextRenewalDate, BigDecimal price, String currency,
+                                     String card, int daysUntilRenewal) {
+        String renewal = daysUntilRenewal == 0 ? "today" :
+                daysUntilRenewal == 1 ? "tomorrow" : daysUntilRenewal + " days";
+
+        return renewalReminder.render(
+                userName,
+                subscriptionName,
+                planName != null ? planName : "Standard Plan",
+                renewal,
+                formatDate(nextRenewalDate.toLocalDate()),
+                formatAmount(price),
+                currency,
+                card != null ? card : "Default card");
+    }
+
+    public Rendered priceChange(User user, Subscription subscription, BigDecimal oldPrice, BigDecimal newPrice) {
+        BigDecimal monthlyIncrease = newPrice.subtract(oldPrice);
+
+        return priceChange.render(
+                user.getName(),
+                subscription.getName(),
+                formatAmount(oldPrice),
+                formatAmount(newPrice),
+                subscription.getCurrency(),
+                formatAmount(monthlyIncrease),
+                formatAmount(monthlyIncrease.multiply(BigDecimal.valueOf(12))),
+                formatDate(subscription.getNextRenewalDate().toLocalDate()));
+    }
+
+    public Rendered paymentFailed(User user, Subscription subscription) {
+        return paymentFailed.render(
+                user.getName(),
+                subscription.getName(),
+                subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
+                formatAmount(subscription.getPrice()),
+                subscription.getCurrency(),
+                subscription.getCard() != null ? subscription.getCard() : "Default card");
+    }
+
+    public Rendered cancellation(User user, Subscription subscription, LocalDate cancelledOn) {
+        return cancellation.render(
+                user.getName(),
+                subscription.getName(),
+                subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
+                formatDate(cancelledOn),
+                formatDate(subscription.getNextRenewalDate().toLocalDate()),
+                formatAmount(subscription.getPrice()),
+                subscription.getCurrency(),
+                formatAmount(subscription.getPrice().multiply(BigDecimal.valueOf(12))));
+    }
+
+    public Rendered weeklyReport(WeeklySpendingSummary summary, LocalDate weekStart, LocalDate weekEnd) {
+        StringBuilder upcoming = new StringBuilder();
+        for (WeeklySpendingSummary.UpcomingRenewal renewal : summary.upcomingRenewals()) {
+            if (!upcoming.isEmpty()) {
+                upcoming.append('\n');
+            }
+            upcoming.append("   • ").append(renewal.name())
+                    .append(" - $").append(formatAmount(renewal.price())).append(' ').append(renewal.currency())
+                    .append(" on ").append(formatDate(renewal.renewalDate().toLocalDate()));
+        }
+
+        return weeklyReport.render(
+                summary.name(),
+                formatDate(weekStart),
+                formatDate(weekEnd),
+                String.valueOf(summary.activeSubscriptions()),
+                formatAmount(summary.monthlySpending()),
+                formatAmount(summary.monthlySpending().multiply(BigDecimal.valueOf(12))),
+                String.valueOf(summary.paymentsSucceeded()),
+                formatAmount(summary.amountPaid()),
+                String.valueOf(summary.paymentsFailed()),
+                upcoming.isEmpty() ? "   No renewals this week" : upcoming.toString());
+    }
+
+    /**
+     * Combines several notifications into one email. Each keeps its subject as a heading and its
+     * text body without the greeting and sign-off, which the digest has once.
+     */
+    public Rendered digest(String userName, List<Rendered> notifications) {
+        StringBuilder sections = new StringBuilder();
+        for (Rendered notification : notifications) {
+            if (!sections.isEmpty()) {
+                sections.append("\n\n");
+            }
+            sections.append("━━━ ").append(notification.subject()).append(" ━━━\n\n")
+                    .append(stripGreeting(notification.text()));
+        }
+
+        return digest.render(String.valueOf(notifications.size()), userName, sections.toString());
+    }
+
+    private static String stripGreeting(String text) {
+        if (text.startsWith("Hi ")) {
+            int greetingEnd = text.indexOf("\n\n");
+            text = greetingEnd >= 0 ? text.substring(greetingEnd + 2) : text;
+        }
+        int signOff = text.lastIndexOf(SIGN_OFF);
+        text = signOff >= 0 ? text.substring(0, signOff) : text;
+        return text.strip();
+    }
+
+    private String formatDate(LocalDate date) {
+        String formatted = formattedDates.get(date);
+        if (formatted == null) {
+            if (formattedDates.size() >= MAX_CACHED_DATES) {
+                formattedDates.clear();
+            }
+            formatted = date.format(DATE_FORMATTER);
+            formattedDates.put(date, formatted);
+        }
+        return formatted;
+    }
+
+    private String formatAmount(BigDecimal amount) {
+        if (amount == null) {
+            return "null";
+        }
+        String plain = amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+        return decimalSeparator == '.' ? plain : plain.replace('.', decimalSeparator);
+    }
+
+    private static Template load(String name, String... variables) {
+        String source = read(name + ".txt");
+        if (source == null || !source.startsWith("Subject: ")) {
+            throw new IllegalStateException("Mail template " + name + ".txt must start with a Subject: line");
+        }
+        int subjectEnd = source.indexOf('\n');
+        if (subjectEnd < 0 || !source.startsWith("\n", subjectEnd + 1)) {
+            throw new IllegalStateException("Mail template " + name + ".txt needs a blank line after the subject");
+        }
+        String html = read(name + ".html");
+
+        return new Template(
+                EmailTemplate.compile(source.substring("Subject: ".length(), subjectEnd), false, variables),
+                EmailTemplate.compile(source.substring(subjectEnd + 2), false, variables),
+                html != null ? EmailTemplate.compile(html, true, variables) : null);
+    }
+
+    private static String read(String fileName) {
+        ClassPathResource resource = new ClassPathResource("mail-templates/" + fileName);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            // Files end with a newline; the bodies they replace did not.
+            return content.endsWith("\n") ? content.substring(0, content.length() - 1) : content;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read mail template " + fileName, e);
+        }
+    }
+
+    private record Template(EmailTemplate subject, EmailTemplate text, EmailTemplate html) {
+
+        Rendered render(String... values) {
+            return new Rendered(render(subject, values), render(text, values), html != null ? render(html, values) : null);
+        }
+
+        private static String render(EmailTemplate template, String... values) {
+            StringBuilder buffer = BUFFER.get();
+            buffer.setLength(0);
+            template.renderTo(buffer, values);
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobCheckpoint;
+import com.example.subscriptiontracker.repository.JobCheckpointRepository;
+import com.example.subscriptiontracker.repository.PaymentEventRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.PaymentFailureRow;
+import com.example.subscriptiontracker.repository.projection.SubscriptionFailureCount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scans new failed payments and chargebacks and flags subscriptions that failed
+ * {@code payments.monitor.repeated-failures} times within {@code payments.monitor.failure-window}.
+ * Progress is a high-water mark on the event id, kept in a {@link JobCheckpoint}, so a run only
+ * reads events that arrived since the last one. Each batch is one transaction, and events are
+ * marked processed and subscriptions flagged with one bulk update each.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class PaymentIssueMonitor {
+    public static final String JOB_NAME = "payment-issue-monitor";
+
+    private final PaymentEventRepository paymentEventRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final JobCheckpointService checkpointService;
+    private final SpendingSummaryService spendingSummaryService;
+
+    @Value("${payments.monitor.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payments.monitor.repeated-failures:3}")
+    private int repeatedFailures;
+
+    @Value("${payments.monitor.failure-window:P30D}")
+    private Duration failureWindow;
+
+    // How old an event must be before the high-water mark may pass it.
+    @Value("${payments.monitor.settle-time:PT1M}")
+    private Duration settleTime;
+
+    /**
+     * Processes the next batch of failure events after the high-water mark and advances it.
+     *
+     * @return how many events the batch held; 0 once the monitor has caught up
+     */
+    public int scanNextBatch() {
+        JobCheckpoint checkpoint = checkpointService.lock(JOB_NAME,
+                () -> JobCheckpoint.builder().jobName(JOB_NAME).startedAt(LocalDateTime.now()).build());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentFailureRow> failures = paymentEventRepository.findFailuresAfter(
+                checkpoint.getLastProcessedId(), now.minus(settleTime), Limit.of(batchSize));
+        if (failures.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> eventIds = new ArrayList<>(failures.size());
+        Set<Long> subscriptionIds = new LinkedHashSet<>();
+        for (PaymentFailureRow failure : failures) {
+            eventIds.add(failure.getId());
+            subscriptionIds.add(failure.getSubscriptionId());
+        }
+
+        List<Long> repeated = new ArrayList<>();
+        for (SubscriptionFailureCount count : paymentEventRepository.countFailuresSince(subscriptionIds, now.minus(failureWindow))) {
+            if (count.getFailures() >= repeatedFailures) {
+                repeated.add(count.getSubscriptionId());
+            }
+        }
+
+        int flagged = 0;
+        if (!repeated.isEmpty()) {
+            spendingSummaryService.onPaymentIssuesFlagging(repeated);
+            flagged = subscriptionRepository.flagPaymentIssues(repeated, now);
+        }
+        paymentEventRepository.markProcessed(eventIds);
+
+        checkpoint.setLastProcessedId(eventIds.get(eventIds.size() - 1));
+        checkpoint.setProcessedCount(checkpoint.getProcessedCount() + eventIds.size());
+        checkpointRepository.save(checkpoint);
+
+        if (flagged > 0) {
+            log.warn("🚩 Flagged {} new subscriptions with {}+ payment failures among {}", flagged, repeatedFailures, repeated);
+        }
+        log.debug("Payment issue monitor scanned {} failures up to event {}", eventIds.size(), checkpoint.getLastProcessedId());
+        return eventIds.size();
+    }
+}
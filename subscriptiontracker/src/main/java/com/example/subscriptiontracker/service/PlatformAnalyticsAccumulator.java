@@ -0,0 +1,92 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.repository.projection.SubscriptionScanRow;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Platform totals for one chunk of the subscription table. Chunks are aggregated independently
+ * and merged, so the result does not depend on how the table was split.
+ */
+final class PlatformAnalyticsAccumulator {
+
+    static final int USER_SKETCH_PRECISION = 12;
+
+    long scannedRows;
+    long activeSubscriptions;
+    long monthlyRecurringRevenueCents;
+
+    final HyperLogLog activeUsers = new HyperLogLog(USER_SKETCH_PRECISION);
+    final Map<String, ServiceTotals> services = new HashMap<>();
+    final Map<String, long[]> categories = new HashMap<>();
+    // Keyed by year * 12 + (month - 1): {new subscriptions, cancellations}
+    final Map<Integer, long[]> months = new HashMap<>();
+
+    static final class ServiceTotals {
+        long spendingCents;
+        long activeSubscriptions;
+        final HyperLogLog users = new HyperLogLog(USER_SKETCH_PRECISION);
+    }
+
+    void accept(SubscriptionScanRow row) {
+        scannedRows++;
+
+        if (row.getCreatedAt() != null) {
+            month(row.getCreatedAt())[0]++;
+        }
+        if (row.getStatus() == SubscriptionStatus.CANCELLED && row.getCancelledAt() != null) {
+            month(row.getCancelledAt())[1]++;
+        }
+
+        if (row.getStatus() != SubscriptionStatus.ACTIVE) {
+            return;
+        }
+
+        long priceCents = MoneyMath.toCents(row.getPrice());
+        activeSubscriptions++;
+        monthlyRecurringRevenueCents += priceCents;
+        activeUsers.add(row.getUserId());
+
+        ServiceTotals service = services.computeIfAbsent(row.getName().trim(), k -> new ServiceTotals());
+        service.spendingCents += priceCents;
+        service.activeSubscriptions++;
+        service.users.add(row.getUserId());
+
+        long[] category = categories.computeIfAbsent(
+                row.getCategory() != null ? row.getCategory() : "Other", k -> new long[2]);
+        category[0] += priceCents;
+        category[1]++;
+    }
+
+    PlatformAnalyticsAccumulator merge(PlatformAnalyticsAccumulator other) {
+        scannedRows += other.scannedRows;
+        activeSubscriptions += other.activeSubscriptions;
+        monthlyRecurringRevenueCents += other.monthlyRecurringRevenueCents;
+        activeUsers.merge(other.activeUsers);
+
+        other.services.forEach((name, totals) -> {
+            ServiceTotals service = services.computeIfAbsent(name, k -> new ServiceTotals());
+            service.spendingCents += totals.spendingCents;
+            service.activeSubscriptions += totals.activeSubscriptions;
+            service.users.merge(totals.users);
+        });
+        other.categories.forEach((name, totals) -> {
+            long[] category = categories.computeIfAbsent(name, k -> new long[2]);
+            category[0] += totals[0];
+            category[1] += totals[1];
+        });
+        other.months.forEach((key, totals) -> {
+            long[] month = months.computeIfAbsent(key, k -> new long[2]);
+            month[0] += totals[0];
+            month[1] += totals[1];
+        });
+        return this;
+    }
+
+    private long[] month(LocalDateTime timestamp) {
+        return months.computeIfAbsent(timestamp.getYear() * 12 + timestamp.getMonthValue() - 1, k -> new long[2]);
+    }
+}
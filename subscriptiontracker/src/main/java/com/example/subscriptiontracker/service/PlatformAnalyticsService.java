@@ -0,0 +1,189 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.config.CacheConfig;
+import com.example.subscriptiontracker.dto.CategorySpendingItem;
+import com.example.subscriptiontracker.dto.MonthlyChurnItem;
+import com.example.subscriptiontracker.dto.PlatformAnalyticsResponse;
+import com.example.subscriptiontracker.dto.ServiceSpendingItem;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.SubscriptionScanRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * Operator-level analytics over the whole subscription table. Rows are read in keyset batches
+ * and each batch is aggregated on a fork-join pool while the next one is fetched. At most
+ * {@code analytics.platform.max-in-flight} batches are held at once, so memory depends on the
+ * batch size and the number of distinct services and categories, not on the table size.
+ * <p>
+ * Results are cached for {@code analytics.platform.cache-ttl}, and concurrent requests for the
+ * same result share a single scan.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlatformAnalyticsService {
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMM yyyy");
+    private static final int SPLIT_THRESHOLD = 1_000;
+
+    private final SubscriptionRepository subscriptionRepository;
+    @Qualifier("analyticsForkJoinPool")
+    private final ForkJoinPool analyticsForkJoinPool;
+
+    @Value("${analytics.platform.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${analytics.platform.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Cacheable(cacheNames = CacheConfig.PLATFORM_ANALYTICS_CACHE, sync = true)
+    public PlatformAnalyticsResponse generatePlatformAnalytics(int topServices) {
+        log.info("🌐 Generating platform analytics (batch size {}, parallelism {})",
+                batchSize, analyticsForkJoinPool.getParallelism());
+        long startedAt = System.currentTimeMillis();
+
+        PlatformAnalyticsAccumulator total = new PlatformAnalyticsAccumulator();
+        Deque<ForkJoinTask<PlatformAnalyticsAccumulator>> inFlight = new ArrayDeque<>();
+        long afterId = 0L;
+
+        while (true) {
+            List<SubscriptionScanRow> batch = subscriptionRepository.findScanBatch(afterId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            inFlight.add(analyticsForkJoinPool.submit(new ChunkAggregationTask(batch, 0, batch.size())));
+
+            if (inFlight.size() >= maxInFlight) {
+                total.merge(inFlight.poll().join());
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            total.merge(inFlight.poll().join());
+        }
+
+        long durationMs = System.currentTimeMillis() - startedAt;
+        log.info("✅ Platform analytics scanned {} subscriptions in {} ms", total.scannedRows, durationMs);
+
+        return PlatformAnalyticsResponse.builder()
+                .scannedSubscriptions(total.scannedRows)
+                .activeSubscriptions(total.activeSubscriptions)
+                .estimatedActiveUsers(total.activeUsers.estimate())
+                .monthlyRecurringRevenue(MoneyMath.toAmount(total.monthlyRecurringRevenueCents))
+                .annualRecurringRevenue(MoneyMath.toAmount(total.monthlyRecurringRevenueCents * 12))
+                .topServices(topServices(total, topServices))
+                .categoryDistribution(categoryDistribution(total))
+                .monthlyChurn(monthlyChurn(total))
+                .durationMs(durationMs)
+                .generatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private List<ServiceSpendingItem> topServices(PlatformAnalyticsAccumulator total, int limit) {
+        return total.services.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().spendingCents, a.getValue().spendingCents))
+                .limit(Math.max(0, limit))
+                .map(entry -> ServiceSpendingItem.builder()
+                        .service(entry.getKey())
+                        .monthlySpending(MoneyMath.toAmount(entry.getValue().spendingCents))
+                        .activeSubscriptions(entry.getValue().activeSubscriptions)
+                        .estimatedUniqueUsers(entry.getValue().users.estimate())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<CategorySpendingItem> categoryDistribution(PlatformAnalyticsAccumulator total) {
+        return total.categories.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .map(entry -> CategorySpendingItem.builder()
+                        .category(entry.getKey())
+                        .totalSpending(MoneyMath.toAmount(entry.getValue()[0]))
+                        .subscriptionCount((int) entry.getValue()[1])
+                        .percentage(MoneyMath.percentage(entry.getValue()[0], total.monthlyRecurringRevenueCents))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<MonthlyChurnItem> monthlyChurn(PlatformAnalyticsAccumulator total) {
+        List<MonthlyChurnItem> churn = new ArrayList<>(total.months.size());
+        long openAtStart = 0;
+
+        for (Map.Entry<Integer, long[]> entry : new TreeMap<>(total.months).entrySet()) {
+            long created = entry.getValue()[0];
+            long cancelled = entry.getValue()[1];
+            YearMonth month = YearMonth.of(entry.getKey() / 12, entry.getKey() % 12 + 1);
+
+            churn.add(MonthlyChurnItem.builder()
+                    .month(month.format(MONTH_FORMATTER))
+                    .newSubscriptions(created)
+                    .cancelledSubscriptions(cancelled)
+                    .churnRate(percentage(cancelled, openAtStart))
+                    .build());
+
+            openAtStart += created - cancelled;
+        }
+        return churn;
+    }
+
+    /**
+     * {@code count} as a percentage of {@code total}, rounded to two decimals.
+     */
+    static double percentage(long count, long total) {
+        if (total == 0) {
+            return 0.0;
+        }
+        return Math.round(count * 10_000.0 / total) / 100.0;
+    }
+
+    private static final class ChunkAggregationTask extends RecursiveTask<PlatformAnalyticsAccumulator> {
+        private final List<SubscriptionScanRow> rows;
+        private final int from;
+        private final int to;
+
+        private ChunkAggregationTask(List<SubscriptionScanRow> rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PlatformAnalyticsAccumulator compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                PlatformAnalyticsAccumulator accumulator = new PlatformAnalyticsAccumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.accept(rows.get(i));
+                }
+                return accumulator;
+            }
+
+            int middle = (from + to) >>> 1;
+            ChunkAggregationTask left = new ChunkAggregationTask(rows, from, middle);
+            left.fork();
+            PlatformAnalyticsAccumulator right = new ChunkAggregationTask(rows, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
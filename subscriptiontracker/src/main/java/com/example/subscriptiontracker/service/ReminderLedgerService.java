@@ -0,0 +1,103 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.SentReminder;
+import com.example.subscriptiontracker.repository.SentReminderRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records which renewal reminders were delivered, keyed by (subscription, renewal date, days
+ * ahead), so retrying or resuming a reminder run never emails anyone twice. Each chunk is checked
+ * with a single query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ReminderLedgerService {
+
+    private final SentReminderRepository sentReminderRepository;
+
+    // Entries are kept this long after the renewal they announced.
+    @Value("${notifications.reminder.ledger-retention-days:7}")
+    private int retentionDays;
+
+    private record Key(Long subscriptionId, LocalDate renewalDate, int daysAhead) {
+    }
+
+    /**
+     * Returns the candidates of one chunk whose reminder for {@code today} has not been sent yet.
+     */
+    @Transactional(readOnly = true)
+    public List<ReminderCandidateRow> filterUnsent(List<ReminderCandidateRow> candidates, LocalDate today) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        List<Long> ids = new ArrayList<>(candidates.size());
+        LocalDate from = null;
+        LocalDate to = null;
+        for (ReminderCandidateRow candidate : candidates) {
+            ids.add(candidate.getId());
+            LocalDate renewalDate = candidate.getNextRenewalDate().toLocalDate();
+            from = from == null || renewalDate.isBefore(from) ? renewalDate : from;
+            to = to == null || renewalDate.isAfter(to) ? renewalDate : to;
+        }
+
+        Set<Key> sent = new HashSet<>();
+        for (SentReminder reminder : sentReminderRepository.findSent(ids, from, to)) {
+            sent.add(new Key(reminder.getSubscriptionId(), reminder.getRenewalDate(), reminder.getDaysAhead()));
+        }
+        if (sent.isEmpty()) {
+            return candidates;
+        }
+
+        List<ReminderCandidateRow> unsent = new ArrayList<>(candidates.size());
+        for (ReminderCandidateRow candidate : candidates) {
+            if (!sent.contains(keyOf(candidate, today))) {
+                unsent.add(candidate);
+            }
+        }
+        return unsent;
+    }
+
+    public void recordSent(List<ReminderCandidateRow> delivered, LocalDate today) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SentReminder> entries = new ArrayList<>(delivered.size());
+        for (ReminderCandidateRow candidate : delivered) {
+            Key key = keyOf(candidate, today);
+            entries.add(SentReminder.builder()
+                    .subscriptionId(key.subscriptionId())
+                    .renewalDate(key.renewalDate())
+                    .daysAhead(key.daysAhead())
+                    .sentAt(now)
+                    .build());
+        }
+        sentReminderRepository.saveAll(entries);
+    }
+
+    public int prune(LocalDate today) {
+        int deleted = sentReminderRepository.deleteByRenewalDateBefore(today.minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("🧹 Pruned {} sent reminder ledger entries", deleted);
+        }
+        return deleted;
+    }
+
+    private static Key keyOf(ReminderCandidateRow candidate, LocalDate today) {
+        LocalDate renewalDate = candidate.getNextRenewalDate().toLocalDate();
+        return new Key(candidate.getId(), renewalDate, (int) ChronoUnit.DAYS.between(today, renewalDate));
+    }
+}
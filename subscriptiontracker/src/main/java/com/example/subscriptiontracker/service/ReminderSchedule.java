@@ -0,0 +1,100 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.repository.projection.ReminderScheduleRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * When each user's renewal reminders go out. Send times are whole slots of
+ * {@code notifications.reminder.slot-minutes}. Users who have not chosen a time are spread by id
+ * over the slots between {@code default-send-from} and {@code default-send-to}, so the default
+ * is not one burst either. Users without a zone use {@code default-zone}, which defaults to UTC
+ * rather than the host's zone so that every node computes the same slots.
+ */
+@Component
+@Slf4j
+public class ReminderSchedule {
+
+    private final ZoneId defaultZone;
+    private final LocalTime defaultFrom;
+    private final int slotMinutes;
+    private final int defaultSlotCount;
+
+    public ReminderSchedule(@Value("${notifications.reminder.default-zone:UTC}") String defaultZone,
+                            @Value("${notifications.reminder.default-send-from:08:00}") LocalTime defaultFrom,
+                            @Value("${notifications.reminder.default-send-to:12:00}") LocalTime defaultTo,
+                            @Value("${notifications.reminder.slot-minutes:15}") int slotMinutes) {
+        this.defaultZone = ZoneId.of(defaultZone);
+        this.slotMinutes = slotMinutes;
+        this.defaultFrom = truncate(defaultFrom);
+        this.defaultSlotCount = Math.max(1, (int) Duration.between(this.defaultFrom, defaultTo).toMinutes() / slotMinutes);
+    }
+
+    public String getDefaultZone() {
+        return defaultZone.getId();
+    }
+
+    public int getDefaultSlotCount() {
+        return defaultSlotCount;
+    }
+
+    public String zoneFor(String timeZone) {
+        return timeZone != null ? timeZone : defaultZone.getId();
+    }
+
+    /**
+     * The send time of a user's reminders: their own, or default slot {@code userId % defaultSlotCount}.
+     */
+    public LocalTime slotFor(Long userId, LocalTime sendTime) {
+        return sendTime != null ? sendTime : defaultSlot((int) (userId % defaultSlotCount));
+    }
+
+    public LocalTime defaultSlot(int index) {
+        return defaultFrom.plusMinutes((long) index * slotMinutes);
+    }
+
+    public LocalTime truncate(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute();
+        return LocalTime.of(0, 0).plusMinutes(minutes - minutes % slotMinutes);
+    }
+
+    /**
+     * Every slot of the given (zone, send time) combinations that falls in {@code [from, to)},
+     * which must be shorter than a day. The combinations are users' effective ones, as set by
+     * {@link #zoneFor} and {@link #slotFor}.
+     */
+    public List<ReminderSlot> slotsBetween(List<ReminderScheduleRow> schedules, Instant from, Instant to) {
+        Set<ReminderSlot> slots = new LinkedHashSet<>();
+        for (ReminderScheduleRow schedule : schedules) {
+            ZoneId zone;
+            try {
+                zone = ZoneId.of(schedule.getTimeZone());
+            } catch (DateTimeException e) {
+                log.warn("⚠️ Skipping reminders for unknown time zone {}", schedule.getTimeZone());
+                continue;
+            }
+
+            LocalDate firstDate = from.atZone(zone).toLocalDate();
+            LocalDate lastDate = to.atZone(zone).toLocalDate();
+            for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+                ReminderSlot slot = ReminderSlot.of(zone.getId(), schedule.getSendTime(), date);
+                if (!slot.sendAt().isBefore(from) && slot.sendAt().isBefore(to)) {
+                    slots.add(slot);
+                }
+            }
+        }
+        return new ArrayList<>(slots);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.subscriptiontracker.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The renewal reminders of every user in {@code zone} whose send time is {@code sendTime}, for
+ * {@code localDate} in that zone. Slots wait in a {@link java.util.concurrent.DelayQueue} until
+ * {@code sendAt}.
+ */
+public record ReminderSlot(String zone, LocalTime sendTime, LocalDate localDate, Instant sendAt) implements Delayed {
+
+    public static ReminderSlot of(String zone, LocalTime sendTime, LocalDate localDate) {
+        // A send time inside a DST gap moves forward by the length of the gap.
+        Instant sendAt = localDate.atTime(sendTime).atZone(ZoneId.of(zone)).toInstant();
+        return new ReminderSlot(zone, sendTime, localDate, sendAt);
+    }
+
+    // Zone ids never contain '@'.
+    public String key() {
+        return zone + "@" + sendTime;
+    }
+
+    public static ReminderSlot parse(String key, LocalDate localDate) {
+        int at = key.lastIndexOf('@');
+        return of(key.substring(0, at), LocalTime.parse(key.substring(at + 1)), localDate);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(sendAt.toEpochMilli() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof ReminderSlot slot) {
+            return sendAt.compareTo(slot.sendAt);
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
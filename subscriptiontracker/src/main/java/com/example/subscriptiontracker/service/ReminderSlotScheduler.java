@@ -0,0 +1,186 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderScheduleRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Spreads renewal reminders over the day by sending each {@link ReminderSlot} at its own time
+ * instead of in one daily batch. {@link #loadUpcoming} is called periodically and queues the slots
+ * due in the next {@code notifications.reminder.lookahead} on a {@link DelayQueue}. A single worker
+ * thread takes each slot when it is due and sends it through {@link RenewalReminderService}.
+ * <p>
+ * The distinct (zone, send time) combinations take a pass over all users to read, so they are
+ * read once per {@code notifications.reminder.schedule-refresh} and kept in memory. Combinations
+ * users pick in between are added through {@link #addSchedule} by the instance that saved them.
+ */
+@Service
+@Slf4j
+public class ReminderSlotScheduler {
+
+    private static final int REMINDER_DAYS_AHEAD = 3;
+
+    private final DelayQueue<ReminderSlot> queue = new DelayQueue<>();
+    private final UserRepository userRepository;
+    private final ReminderSchedule schedule;
+    private final RenewalReminderService renewalReminderService;
+    private final Duration lookahead;
+    private final Duration catchUp;
+
+    private final Duration scheduleRefresh;
+
+    private final Set<Schedule> schedules = new LinkedHashSet<>();
+    private Instant schedulesReadAt;
+    // End of the last loaded window; slots before it are already queued or sent.
+    private Instant loadedUntil;
+    private Thread worker;
+
+    public ReminderSlotScheduler(UserRepository userRepository,
+                                 ReminderSchedule schedule,
+                                 RenewalReminderService renewalReminderService,
+                                 @Value("${notifications.reminder.lookahead:PT30M}") Duration lookahead,
+                                 @Value("${notifications.reminder.catch-up:PT1H}") Duration catchUp,
+                                 @Value("${notifications.reminder.schedule-refresh:PT24H}") Duration scheduleRefresh) {
+        this.userRepository = userRepository;
+        this.schedule = schedule;
+        this.renewalReminderService = renewalReminderService;
+        this.lookahead = lookahead;
+        this.catchUp = catchUp;
+        this.scheduleRefresh = scheduleRefresh;
+    }
+
+    @PostConstruct
+    public void start() {
+        assignReminderSlots();
+        worker = new Thread(this::work, "reminder-slots");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    /**
+     * Queues every slot due before {@code now + lookahead} that an earlier call has not queued.
+     * After a restart the first call also queues slots from the last {@code catch-up}; the slots'
+     * leases and the sent reminder ledger keep those from being sent twice.
+     */
+    public synchronized int loadUpcoming(Instant now) {
+        Instant from = loadedUntil != null ? loadedUntil : now.minus(catchUp);
+        Instant to = now.plus(lookahead);
+        if (!to.isAfter(from)) {
+            return 0;
+        }
+
+        if (schedulesReadAt == null || !now.isBefore(schedulesReadAt.plus(scheduleRefresh))) {
+            schedules.clear();
+            userRepository.findReminderSchedules().forEach(row -> schedules.add(new Schedule(row.getTimeZone(), row.getSendTime())));
+            schedulesReadAt = now;
+        }
+
+        List<ReminderSlot> slots = schedule.slotsBetween(List.copyOf(schedules), from, to);
+        queue.addAll(slots);
+        loadedUntil = to;
+
+        log.debug("Queued {} reminder slots due before {}", slots.size(), to);
+        return slots.size();
+    }
+
+    /**
+     * Makes sure the slots of a user's effective zone and send time are sent, including one still
+     * due in the window already loaded. Inside a transaction it waits for the commit.
+     */
+    public void addSchedule(String zone, LocalTime sendTime) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addScheduleNow(new Schedule(zone, sendTime));
+                }
+            });
+        } else {
+            addScheduleNow(new Schedule(zone, sendTime));
+        }
+    }
+
+    private synchronized void addScheduleNow(Schedule added) {
+        // Until the first load reads them all, there is nothing to add to.
+        if (schedulesReadAt == null || !schedules.add(added)) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (loadedUntil.isAfter(now)) {
+            queue.addAll(schedule.slotsBetween(List.of(added), now, loadedUntil));
+        }
+    }
+
+    /**
+     * Fills in the effective reminder zone and send time of users who have none yet, and moves
+     * users on the defaults when the default zone or window has changed. Writes nothing when
+     * every user is up to date.
+     */
+    public int assignReminderSlots() {
+        int updated = userRepository.assignReminderZones(schedule.getDefaultZone());
+        for (int i = 0; i < schedule.getDefaultSlotCount(); i++) {
+            updated += userRepository.assignReminderSlots(schedule.getDefaultSlotCount(), i, schedule.defaultSlot(i));
+        }
+        if (updated > 0) {
+            log.info("Updated {} reminder zones and send times to the current defaults", updated);
+        }
+        return updated;
+    }
+
+    public BulkMailDispatcher.Result resumeAbandoned() {
+        return renewalReminderService.resumeAbandonedReminders(REMINDER_DAYS_AHEAD);
+    }
+
+    public int getQueuedSlots() {
+        return queue.size();
+    }
+
+    private record Schedule(String zone, LocalTime sendTime) implements ReminderScheduleRow {
+        @Override
+        public String getTimeZone() {
+            return zone;
+        }
+
+        @Override
+        public LocalTime getSendTime() {
+            return sendTime;
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ReminderSlot slot;
+            try {
+                slot = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                renewalReminderService.sendSlot(slot, REMINDER_DAYS_AHEAD);
+            } catch (Exception e) {
+                log.error("❌ Error sending renewal reminders for slot {} on {}: {}",
+                        slot.key(), slot.localDate(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.subscriptiontracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projects monthly renewals over a horizon starting at {@code start}. Every occurrence is added
+ * to a per-day cents/count array, using a precomputed table of month start offsets, so a
+ * subscription costs one loop iteration per month and no date objects. A renewal anchored on the
+ * 31st falls on the last day of shorter months, the same as {@link LocalDate#plusMonths}.
+ */
+public final class RenewalForecast {
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    public record Bucket(LocalDate periodStart, LocalDate periodEnd, long amountCents, int renewals) {
+    }
+
+    private final LocalDate start;
+    private final long startEpochDay;
+    private final int firstMonth;
+    private final int days;
+    // Offset of the 1st of each month from start; index 0 is start's month, so it is <= 0.
+    private final int[] monthStart;
+    private final int[] monthLength;
+
+    private final long[] dayCents;
+    private final int[] dayRenewals;
+
+    public RenewalForecast(LocalDate start, int months) {
+        if (months < 1) {
+            throw new IllegalArgumentException("Forecast horizon must be at least one month: " + months);
+        }
+        this.start = start;
+        this.startEpochDay = start.toEpochDay();
+        this.firstMonth = monthIndex(start);
+        this.days = (int) (start.plusMonths(months).toEpochDay() - startEpochDay);
+
+        // The horizon ends inside month `months`, so it spans months + 1 calendar months.
+        this.monthStart = new int[months + 1];
+        this.monthLength = new int[months + 1];
+        LocalDate firstOfMonth = start.withDayOfMonth(1);
+        for (int m = 0; m <= months; m++) {
+            LocalDate month = firstOfMonth.plusMonths(m);
+            monthStart[m] = (int) (month.toEpochDay() - startEpochDay);
+            monthLength[m] = month.lengthOfMonth();
+        }
+
+        this.dayCents = new long[days];
+        this.dayRenewals = new int[days];
+    }
+
+    /**
+     * Adds every renewal of a subscription from {@code nextRenewal} onwards, stopping after
+     * {@code endDate} when one is set. Renewals before the forecast start are skipped.
+     */
+    public void add(long priceCents, LocalDate nextRenewal, LocalDate endDate) {
+        int lastDay = days - 1;
+        if (endDate != null) {
+            lastDay = (int) Math.min(lastDay, endDate.toEpochDay() - startEpochDay);
+        }
+        int dayOfMonth = nextRenewal.getDayOfMonth();
+
+        for (int m = Math.max(0, monthIndex(nextRenewal) - firstMonth); m < monthStart.length; m++) {
+            int day = monthStart[m] + Math.min(dayOfMonth, monthLength[m]) - 1;
+            if (day > lastDay) {
+                break;
+            }
+            if (day < 0) {
+                continue;
+            }
+            dayCents[day] += priceCents;
+            dayRenewals[day]++;
+        }
+    }
+
+    public long totalCents() {
+        long total = 0;
+        for (long cents : dayCents) {
+            total += cents;
+        }
+        return total;
+    }
+
+    public int totalRenewals() {
+        int total = 0;
+        for (int renewals : dayRenewals) {
+            total += renewals;
+        }
+        return total;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getEnd() {
+        return start.plusDays(days - 1);
+    }
+
+    public List<Bucket> buckets(Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> dayBuckets();
+            case WEEK -> weekBuckets();
+            case MONTH -> monthBuckets();
+        };
+    }
+
+    private List<Bucket> dayBuckets() {
+        List<Bucket> buckets = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = start.plusDays(day);
+            buckets.add(new Bucket(date, date, dayCents[day], dayRenewals[day]));
+        }
+        return buckets;
+    }
+
+    private List<Bucket> weekBuckets() {
+        // Weeks run Monday to Sunday; the first and last ones are cut to the horizon.
+        int daysIntoWeek = start.getDayOfWeek().getValue() - 1;
+        List<Bucket> buckets = new ArrayList<>((days + daysIntoWeek) / 7 + 1);
+        for (int from = 0; from < days; ) {
+            int to = Math.min(days, from + 7 - (from == 0 ? daysIntoWeek : 0));
+            buckets.add(sum(from, to));
+            from = to;
+        }
+        return buckets;
+    }
+
+    private List<Bucket> monthBuckets() {
+        List<Bucket> buckets = new ArrayList<>(monthStart.length);
+        for (int m = 0; m < monthStart.length; m++) {
+            int from = Math.max(0, monthStart[m]);
+            int to = Math.min(days, monthStart[m] + monthLength[m]);
+            if (from < to) {
+                buckets.add(sum(from, to));
+            }
+        }
+        return buckets;
+    }
+
+    private Bucket sum(int from, int to) {
+        long cents = 0;
+        int renewals = 0;
+        for (int day = from; day < to; day++) {
+            cents += dayCents[day];
+            renewals += dayRenewals[day];
+        }
+        return new Bucket(start.plusDays(from), start.plusDays(to - 1), cents, renewals);
+    }
+
+    private static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sends the renewal reminders of one {@link ReminderSlot} in keyset chunks of
+ * {@code notifications.reminder.chunk-size} projection rows. Each chunk is sent before the next
+ * one is read, and no transaction spans the run, so memory stays at one chunk however many
+ * renewals are due.
+ * <p>
+ * Subscriptions are split by id into {@code scheduler.reminders.partitions} partitions, each
+ * guarded by a {@link JobLease}, so with several instances every partition is sent by exactly
+ * one of them. With the default of one partition the lease simply makes the run single-owner.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RenewalReminderService {
+    public static final String JOB_NAME = "renewal-reminders";
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final NotificationService notificationService;
+    private final JobLeaseService leaseService;
+
+    @Value("${notifications.reminder.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${scheduler.reminders.partitions:1}")
+    private int partitions;
+
+    /**
+     * Reminds the slot's users about every active subscription renewing from the slot's date
+     * through {@code maxDaysAhead} days later, in the partitions no other instance has claimed.
+     */
+    public BulkMailDispatcher.Result sendSlot(ReminderSlot slot, int maxDaysAhead) {
+        return run(slot, maxDaysAhead, false);
+    }
+
+    /**
+     * Continues slots whose owner stopped renewing its lease, from their last checkpoint. Never
+     * starts a slot that has not begun.
+     */
+    public BulkMailDispatcher.Result resumeAbandonedReminders(int maxDaysAhead) {
+        Set<ReminderSlot> slots = new LinkedHashSet<>();
+        for (JobLease lease : leaseService.findAbandoned(JOB_NAME + ":")) {
+            try {
+                String key = lease.getLeaseKey();
+                slots.add(ReminderSlot.parse(key.substring(JOB_NAME.length() + 1, key.lastIndexOf(':')),
+                        LocalDate.parse(lease.getRunKey())));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Ignoring unrecognised reminder lease {}: {}", lease.getLeaseKey(), e.getMessage());
+            }
+        }
+
+        int sent = 0;
+        int failed = 0;
+        int skipped = 0;
+        long startedAt = System.currentTimeMillis();
+        for (ReminderSlot slot : slots) {
+            BulkMailDispatcher.Result result = run(slot, maxDaysAhead, true);
+            sent += result.sent();
+            failed += result.failed();
+            skipped += result.skipped();
+        }
+        return new BulkMailDispatcher.Result(sent, failed, skipped, System.currentTimeMillis() - startedAt);
+    }
+
+    private BulkMailDispatcher.Result run(ReminderSlot slot, int maxDaysAhead, boolean resumeOnly) {
+        long startedAt = System.currentTimeMillis();
+        RunTotals totals = new RunTotals(maxDaysAhead);
+
+        // Instances start at different partitions so they rarely contend for the same lease.
+        int offset = Math.floorMod(leaseService.getInstanceId().hashCode(), partitions);
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            String leaseKey = JOB_NAME + ":" + slot.key() + ":" + partition + "/" + partitions;
+
+            Optional<JobLease> lease = leaseService.tryAcquire(leaseKey, slot.localDate().toString(), resumeOnly);
+            if (lease.isPresent()) {
+                sendPartition(lease.get(), partition, slot, maxDaysAhead, totals);
+                totals.partitions++;
+            }
+        }
+
+        BulkMailDispatcher.Result total = new BulkMailDispatcher.Result(totals.sent, totals.failed, totals.skipped,
+                System.currentTimeMillis() - startedAt);
+        if (totals.partitions == 0) {
+            if (!resumeOnly) {
+                log.debug("Renewal reminders for slot {} on {} are handled by another instance", slot.key(), slot.localDate());
+            }
+            return total;
+        }
+
+        for (int days = 0; days <= maxDaysAhead; days++) {
+            log.debug("{} subscriptions in slot {} renewing {}", totals.candidatesPerDay[days], slot.key(), describeDays(days));
+        }
+        log.info("📊 Renewal reminders for slot {} on {} ({} of {} partitions) - Sent: {}, Failed: {}, Skipped: {} in {} ms",
+                slot.key(), slot.localDate(), totals.partitions, partitions,
+                total.sent(), total.failed(), total.skipped(), total.durationMs());
+        return total;
+    }
+
+    private void sendPartition(JobLease lease, int partition, ReminderSlot slot, int maxDaysAhead, RunTotals totals) {
+        LocalDate today = slot.localDate();
+        LocalDateTime end = today.plusDays(maxDaysAhead + 1).atStartOfDay();
+        LocalDateTime afterDate = lease.getCheckpointAt() != null ? lease.getCheckpointAt() : today.atStartOfDay();
+        long afterId = lease.getCheckpointId() != null ? lease.getCheckpointId() : 0L;
+
+        while (true) {
+            List<ReminderCandidateRow> chunk = subscriptionRepository.findReminderCandidates(
+                    end, afterDate, afterId, partitions, partition, slot.zone(), slot.sendTime(), Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            for (ReminderCandidateRow candidate : chunk) {
+                totals.candidatesPerDay[(int) ChronoUnit.DAYS.between(today, candidate.getNextRenewalDate().toLocalDate())]++;
+            }
+
+            BulkMailDispatcher.Result result = notificationService.sendRenewalReminders(chunk, today);
+            totals.sent += result.sent();
+            totals.failed += result.failed();
+            totals.skipped += result.skipped();
+
+            ReminderCandidateRow last = chunk.get(chunk.size() - 1);
+            afterDate = last.getNextRenewalDate();
+            afterId = last.getId();
+            if (!leaseService.checkpoint(lease.getLeaseKey(), afterDate, afterId)) {
+                log.warn("⚠️ Lost lease {} after subscription {}, stopping", lease.getLeaseKey(), afterId);
+                return;
+            }
+
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        leaseService.complete(lease.getLeaseKey());
+    }
+
+    private static String describeDays(int days) {
+        return switch (days) {
+            case 0 -> "TODAY";
+            case 1 -> "TOMORROW";
+            default -> "in " + days + " days";
+        };
+    }
+
+    private static final class RunTotals {
+        private final int[] candidatesPerDay;
+        private int partitions;
+        private int sent;
+        private int failed;
+        private int skipped;
+
+        private RunTotals(int maxDaysAhead) {
+            this.candidatesPerDay = new int[maxDaysAhead + 1];
+        }
+    }
+}
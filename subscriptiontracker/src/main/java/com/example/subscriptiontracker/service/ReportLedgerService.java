@@ -0,0 +1,89 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.SentReport;
+import com.example.subscriptiontracker.repository.SentReportRepository;
+import com.example.subscriptiontracker.repository.projection.ReportRecipientRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records which users a weekly report run has served, keyed by (user, run date). A report is
+ * queued in the mail outbox in the same transaction as its ledger entry, so retrying or resuming
+ * a run queues each user's report exactly once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ReportLedgerService {
+
+    public record Report(Long userId, SimpleMailMessage message) {
+    }
+
+    private final SentReportRepository sentReportRepository;
+    private final MailOutboxService mailOutboxService;
+
+    // Entries are kept this long after their run.
+    @Value("${reports.weekly.ledger-retention-days:28}")
+    private int retentionDays;
+
+    /**
+     * Returns the recipients of one batch that the run for {@code reportDate} has not served yet.
+     */
+    @Transactional(readOnly = true)
+    public List<ReportRecipientRow> filterUnserved(List<ReportRecipientRow> recipients, LocalDate reportDate) {
+        if (recipients.isEmpty()) {
+            return recipients;
+        }
+
+        List<Long> ids = recipients.stream().map(ReportRecipientRow::getId).toList();
+        Set<Long> served = new HashSet<>(sentReportRepository.findServedUserIds(ids, reportDate));
+        if (served.isEmpty()) {
+            return recipients;
+        }
+
+        List<ReportRecipientRow> unserved = new ArrayList<>(recipients.size());
+        for (ReportRecipientRow recipient : recipients) {
+            if (!served.contains(recipient.getId())) {
+                unserved.add(recipient);
+            }
+        }
+        return unserved;
+    }
+
+    /**
+     * Queues one batch of reports and records their users as served, all or nothing.
+     */
+    public void queue(List<Report> reports, LocalDate reportDate) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SentReport> entries = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            mailOutboxService.enqueue(report.message());
+            entries.add(SentReport.builder()
+                    .userId(report.userId())
+                    .reportDate(reportDate)
+                    .queuedAt(now)
+                    .build());
+        }
+        sentReportRepository.saveAll(entries);
+    }
+
+    public int prune(LocalDate today) {
+        int deleted = sentReportRepository.deleteByReportDateBefore(today.minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("🧹 Pruned {} weekly report ledger entries", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.subscriptiontracker.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps up to {@code maxConnections} SMTP transports connected between sends. Idle transports are
+ * reused most recently returned first, so a quiet period only leaves the coldest ones to be
+ * dropped by the server; each one is checked with a NOOP before it is handed out again.
+ */
+@Slf4j
+public final class SmtpTransportPool implements AutoCloseable {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingDeque<Transport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender, int maxConnections) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(Math.max(1, maxConnections));
+    }
+
+    /**
+     * Waits until fewer than {@code maxConnections} transports are borrowed, then returns an idle
+     * one or connects a new one. Must be followed by {@link #release} or {@link #invalidate}.
+     */
+    public Transport borrow() throws MessagingException, InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("SMTP transport pool is closed");
+        }
+        permits.acquire();
+        try {
+            Transport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                if (transport.isConnected()) {
+                    return transport;
+                }
+                closeQuietly(transport);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Transport transport) {
+        if (closed) {
+            closeQuietly(transport);
+        } else {
+            idle.offerFirst(transport);
+        }
+        permits.release();
+    }
+
+    /** Drops a transport that failed mid-conversation instead of returning it to the pool. */
+    public void invalidate(Transport transport) {
+        closeQuietly(transport);
+        permits.release();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Transport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            closeQuietly(transport);
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+        }
+        Transport transport = mailSender.getSession().getTransport(protocol != null ? protocol : "smtp");
+
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+        return transport;
+    }
+
+    private void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP transport: {}", e.getMessage());
+        }
+    }
+}
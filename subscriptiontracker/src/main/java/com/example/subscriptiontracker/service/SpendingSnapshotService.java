@@ -0,0 +1,202 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.CategorySpending;
+import com.example.subscriptiontracker.model.JobCheckpoint;
+import com.example.subscriptiontracker.model.SpendingSnapshot;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.UserSpendingSummary;
+import com.example.subscriptiontracker.repository.JobCheckpointRepository;
+import com.example.subscriptiontracker.repository.SpendingSnapshotRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.UserSpendingSummaryRepository;
+import com.example.subscriptiontracker.repository.projection.SubscriptionSpendingRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Copies every user's spending summary into the current month's {@link SpendingSnapshot}. Users
+ * are processed in id order, one chunk per transaction, with progress kept in a
+ * {@link JobCheckpoint} so an interrupted run continues where it stopped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class SpendingSnapshotService {
+    public static final String JOB_NAME = "spending-snapshot";
+
+    // How far back the first snapshot of a user is seeded from their subscriptions.
+    private static final int SEED_MONTHS = 60;
+
+    private final SpendingSnapshotRepository snapshotRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final JobCheckpointService checkpointService;
+    private final UserRepository userRepository;
+    private final UserSpendingSummaryRepository summaryRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final SpendingSummaryService spendingSummaryService;
+
+    @Value("${analytics.snapshot.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Continues an unfinished run, or starts a new one unless a run already completed for
+     * {@code runDate}.
+     */
+    public JobCheckpoint startRun(LocalDate runDate) {
+        String runKey = runDate.toString();
+        JobCheckpoint checkpoint = checkpointService.lock(JOB_NAME,
+                () -> JobCheckpoint.builder().jobName(JOB_NAME).completed(true).build());
+
+        if (!checkpoint.isCompleted()) {
+            log.info("Resuming spending snapshot run {} after user {} ({} users done)",
+                    checkpoint.getRunKey(), checkpoint.getLastProcessedId(), checkpoint.getProcessedCount());
+            checkpoint.setRunKey(runKey);
+        } else if (runKey.equals(checkpoint.getRunKey())) {
+            log.info("Spending snapshot run {} already completed", runKey);
+        } else {
+            checkpoint.setRunKey(runKey);
+            checkpoint.setLastProcessedId(0L);
+            checkpoint.setProcessedCount(0);
+            checkpoint.setCompleted(false);
+            checkpoint.setStartedAt(LocalDateTime.now());
+        }
+        return checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Snapshots the next chunk of users and advances the checkpoint in the same transaction.
+     *
+     * @return false once every user has been processed
+     */
+    public boolean snapshotNextChunk(YearMonth month) {
+        JobCheckpoint checkpoint = checkpointRepository.findByJobNameForUpdate(JOB_NAME)
+                .orElseThrow(() -> new RuntimeException("No checkpoint found for job: " + JOB_NAME));
+        if (checkpoint.isCompleted()) {
+            return false;
+        }
+
+        List<Long> userIds = userRepository.findIdsAfter(checkpoint.getLastProcessedId(), Limit.of(batchSize));
+        if (userIds.isEmpty()) {
+            checkpoint.setCompleted(true);
+            checkpointRepository.save(checkpoint);
+            log.info("Spending snapshot run {} completed: {} users", checkpoint.getRunKey(), checkpoint.getProcessedCount());
+            return false;
+        }
+
+        snapshotUsers(userIds, month);
+
+        checkpoint.setLastProcessedId(userIds.get(userIds.size() - 1));
+        checkpoint.setProcessedCount(checkpoint.getProcessedCount() + userIds.size());
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    private void snapshotUsers(List<Long> userIds, YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+
+        Map<Long, UserSpendingSummary> summaries = summaryRepository.findAllWithCategories(userIds).stream()
+                .collect(Collectors.toMap(UserSpendingSummary::getUserId, Function.identity()));
+        Map<Long, SpendingSnapshot> existing = snapshotRepository.findForMonth(userIds, monthStart).stream()
+                .collect(Collectors.toMap(SpendingSnapshot::getUserId, Function.identity()));
+        Set<Long> seeded = new HashSet<>(snapshotRepository.findUserIdsWithSnapshots(userIds));
+
+        List<SpendingSnapshot> snapshots = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            if (!seeded.contains(userId)) {
+                snapshots.addAll(seedHistory(userId, month));
+            }
+
+            UserSpendingSummary summary = summaries.get(userId);
+            if (summary == null) {
+                summary = spendingSummaryService.rebuildSummary(userId);
+            }
+
+            SpendingSnapshot snapshot = existing.computeIfAbsent(userId,
+                    id -> SpendingSnapshot.builder().userId(id).snapshotMonth(monthStart).build());
+            snapshot.setTotalSpendingCents(summary.getMonthlySpendingCents());
+            snapshot.setSubscriptionCount(summary.getActiveSubscriptions());
+            snapshot.getCategories().clear();
+            summary.getCategories().forEach((category, spending) -> snapshot.getCategories().put(category,
+                    new CategorySpending(spending.getTotalSpendingCents(), spending.getSubscriptionCount())));
+            snapshots.add(snapshot);
+        }
+
+        snapshotRepository.saveAll(snapshots);
+    }
+
+    /**
+     * Months before a user's first snapshot have no recorded history, so they are seeded once with
+     * {@link #estimateHistory}.
+     */
+    private List<SpendingSnapshot> seedHistory(Long userId, YearMonth currentMonth) {
+        return estimateHistory(userId, currentMonth.minusMonths(SEED_MONTHS), currentMonth);
+    }
+
+    /**
+     * Reconstructs the spending a user had active at the end of each month from {@code from} up
+     * to, not including, {@code to}, using today's prices: a subscription counts from its creation
+     * until its cancellation. Months before the user's first subscription are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<SpendingSnapshot> estimateHistory(Long userId, YearMonth from, YearMonth to) {
+        List<SubscriptionSpendingRow> rows = subscriptionRepository.findSpendingRows(userId);
+        List<SpendingSnapshot> history = new ArrayList<>();
+
+        for (YearMonth month = from; month.isBefore(to); month = month.plusMonths(1)) {
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            long spendingCents = 0;
+            int count = 0;
+            for (SubscriptionSpendingRow row : rows) {
+                if (wasActiveAt(row, monthEnd)) {
+                    spendingCents += MoneyMath.toCents(row.getPrice());
+                    count++;
+                }
+            }
+            if (count == 0 && history.isEmpty()) {
+                continue;
+            }
+            history.add(SpendingSnapshot.builder()
+                    .userId(userId)
+                    .snapshotMonth(month.atDay(1))
+                    .totalSpendingCents(spendingCents)
+                    .subscriptionCount(count)
+                    .build());
+        }
+        return history;
+    }
+
+    /**
+     * Only ACTIVE and CANCELLED subscriptions are counted, since no other status records when it
+     * was entered. Cancellations from before {@code cancelledAt} existed use the last update.
+     */
+    private boolean wasActiveAt(SubscriptionSpendingRow row, LocalDateTime moment) {
+        if (!row.getCreatedAt().isBefore(moment)) {
+            return false;
+        }
+        if (row.getStatus() == SubscriptionStatus.ACTIVE) {
+            return true;
+        }
+        if (row.getStatus() != SubscriptionStatus.CANCELLED) {
+            return false;
+        }
+        LocalDateTime cancelledAt = row.getCancelledAt() != null ? row.getCancelledAt() : row.getUpdatedAt();
+        return cancelledAt != null && !cancelledAt.isBefore(moment);
+    }
+}
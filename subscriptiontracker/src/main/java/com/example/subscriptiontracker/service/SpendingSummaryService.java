@@ -0,0 +1,258 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.CategorySpending;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.UserSpendingSummary;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserSpendingSummaryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Slf4j
+@Transactional
+public class SpendingSummaryService {
+    private final UserSpendingSummaryRepository summaryRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final TransactionTemplate newTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SpendingSummaryService(UserSpendingSummaryRepository summaryRepository,
+                                  SubscriptionRepository subscriptionRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The fields of a subscription that feed the summary, captured before a change is applied.
+     */
+    public record SubscriptionState(SubscriptionStatus status, long priceCents, String category) {
+        public static SubscriptionState of(Subscription subscription) {
+            return new SubscriptionState(subscription.getStatus(),
+                    MoneyMath.toCents(subscription.getPrice()), subscription.getCategory());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserSpendingSummary> findSummary(Long userId) {
+        return summaryRepository.findById(userId);
+    }
+
+    /**
+     * Current version of the user's data without loading the summary. Users without a summary
+     * row are at version 0.
+     */
+    @Transactional(readOnly = true)
+    public long getDataVersion(Long userId) {
+        return summaryRepository.findDataVersion(userId).orElse(0L);
+    }
+
+    /**
+     * Creates the empty summary of a newly registered user, so that subscription writes always
+     * find a row to lock.
+     */
+    public void createSummary(Long userId) {
+        summaryRepository.save(UserSpendingSummary.builder().userId(userId).build());
+    }
+
+    /**
+     * Builds the summary of a user that has none from their committed subscriptions and inserts
+     * it in a transaction of its own, so read-only callers can bootstrap users without a summary
+     * row. A row that exists already, or that another transaction inserts first, is returned
+     * as it is instead of being overwritten.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UserSpendingSummary rebuildSummary(Long userId) {
+        try {
+            return newTransaction.execute(status -> summaryRepository.findById(userId).orElseGet(() -> {
+                log.info("Rebuilding spending summary for user: {}", userId);
+                UserSpendingSummary summary = rebuild(userId);
+                entityManager.persist(summary);
+                entityManager.flush();
+                return summary;
+            }));
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            log.debug("Spending summary for user {} was created concurrently", userId);
+            return newTransaction.execute(status -> summaryRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("Spending summary not found for user: " + userId)));
+        }
+    }
+
+    /**
+     * Moves the data version of the owners of the given subscriptions that are about to be
+     * flagged with a payment issue. The flag is set by a bulk update that bypasses
+     * {@link #onSubscriptionChanged}, but it is part of the subscription responses.
+     */
+    public void onPaymentIssuesFlagging(Collection<Long> subscriptionIds) {
+        summaryRepository.bumpVersionsForUnflagged(subscriptionIds);
+    }
+
+    public void onSubscriptionCreated(Subscription subscription) {
+        UserSpendingSummary summary = lockSummary(subscription.getUser().getId());
+        summary.setDataVersion(summary.getDataVersion() + 1);
+        summary.setTotalSubscriptions(summary.getTotalSubscriptions() + 1);
+        add(summary, SubscriptionState.of(subscription));
+        updateMostExpensive(summary, subscription);
+
+        updateNewest(summary, subscription);
+
+        summaryRepository.save(summary);
+    }
+
+    public void onSubscriptionChanged(SubscriptionState before, Subscription subscription) {
+        UserSpendingSummary summary = lockSummary(subscription.getUser().getId());
+        summary.setDataVersion(summary.getDataVersion() + 1);
+        remove(summary, before);
+        add(summary, SubscriptionState.of(subscription));
+        updateMostExpensive(summary, subscription);
+
+        if (subscription.getId().equals(summary.getNewestSubscriptionId())) {
+            summary.setNewestSubscription(subscription.getName());
+        }
+
+        summaryRepository.save(summary);
+    }
+
+    /**
+     * Locks the user's summary row. Users registered before summaries were created at sign-up may
+     * not have one yet: it is built in a separate transaction, which cannot see this transaction's
+     * uncommitted change, so the caller applies that change to it as usual.
+     */
+    private UserSpendingSummary lockSummary(Long userId) {
+        Optional<UserSpendingSummary> summary = summaryRepository.findByUserIdForUpdate(userId);
+        if (summary.isPresent()) {
+            return summary.get();
+        }
+        rebuildSummary(userId);
+        return summaryRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new RuntimeException("Spending summary not found for user: " + userId));
+    }
+
+    private void add(UserSpendingSummary summary, SubscriptionState state) {
+        if (state.status() == SubscriptionStatus.CANCELLED) {
+            summary.setCancelledSubscriptions(summary.getCancelledSubscriptions() + 1);
+        }
+        if (state.status() != SubscriptionStatus.ACTIVE) {
+            return;
+        }
+
+        summary.setActiveSubscriptions(summary.getActiveSubscriptions() + 1);
+        summary.setMonthlySpendingCents(summary.getMonthlySpendingCents() + state.priceCents());
+
+        CategorySpending spending = summary.getCategories()
+                .computeIfAbsent(categoryKey(state.category()), k -> new CategorySpending(0L, 0));
+        spending.setTotalSpendingCents(spending.getTotalSpendingCents() + state.priceCents());
+        spending.setSubscriptionCount(spending.getSubscriptionCount() + 1);
+    }
+
+    private void remove(UserSpendingSummary summary, SubscriptionState state) {
+        if (state.status() == SubscriptionStatus.CANCELLED) {
+            summary.setCancelledSubscriptions(summary.getCancelledSubscriptions() - 1);
+        }
+        if (state.status() != SubscriptionStatus.ACTIVE) {
+            return;
+        }
+
+        summary.setActiveSubscriptions(summary.getActiveSubscriptions() - 1);
+        summary.setMonthlySpendingCents(summary.getMonthlySpendingCents() - state.priceCents());
+
+        String key = categoryKey(state.category());
+        CategorySpending spending = summary.getCategories().get(key);
+        if (spending == null) {
+            return;
+        }
+        if (spending.getSubscriptionCount() <= 1) {
+            summary.getCategories().remove(key);
+        } else {
+            spending.setTotalSpendingCents(spending.getTotalSpendingCents() - state.priceCents());
+            spending.setSubscriptionCount(spending.getSubscriptionCount() - 1);
+        }
+    }
+
+    private void updateMostExpensive(UserSpendingSummary summary, Subscription subscription) {
+        boolean active = subscription.getStatus() == SubscriptionStatus.ACTIVE;
+        boolean wasMostExpensive = subscription.getId().equals(summary.getMostExpensiveSubscriptionId());
+
+        if (active && MoneyMath.toCents(subscription.getPrice()) > summary.getMostExpensiveCents()) {
+            setMostExpensive(summary, subscription);
+        } else if (wasMostExpensive) {
+            // The current maximum went down or left the active set, so the next one has to be looked up.
+            setMostExpensive(summary, subscriptionRepository
+                    .findFirstByUserIdAndStatusOrderByPriceDescIdAsc(summary.getUserId(), SubscriptionStatus.ACTIVE)
+                    .orElse(null));
+        }
+    }
+
+    /**
+     * Newest by creation time, and by id among subscriptions created at the same instant, so
+     * incremental updates and a rebuild agree.
+     */
+    private void updateNewest(UserSpendingSummary summary, Subscription subscription) {
+        if (summary.getNewestCreatedAt() == null
+                || subscription.getCreatedAt().isAfter(summary.getNewestCreatedAt())
+                || (subscription.getCreatedAt().isEqual(summary.getNewestCreatedAt())
+                && subscription.getId() > summary.getNewestSubscriptionId())) {
+            summary.setNewestSubscriptionId(subscription.getId());
+            summary.setNewestSubscription(subscription.getName());
+            summary.setNewestCreatedAt(subscription.getCreatedAt());
+        }
+    }
+
+    private void setMostExpensive(UserSpendingSummary summary, Subscription subscription) {
+        long priceCents = subscription != null ? MoneyMath.toCents(subscription.getPrice()) : 0L;
+        if (priceCents <= 0) {
+            summary.setMostExpensiveSubscriptionId(null);
+            summary.setMostExpensiveSubscription(null);
+            summary.setMostExpensiveCents(0L);
+            return;
+        }
+        summary.setMostExpensiveSubscriptionId(subscription.getId());
+        summary.setMostExpensiveSubscription(subscription.getName());
+        summary.setMostExpensiveCents(priceCents);
+    }
+
+    private UserSpendingSummary rebuild(Long userId) {
+        List<Subscription> subscriptions = subscriptionRepository.findByUserId(userId);
+        UserSpendingSummary summary = UserSpendingSummary.builder()
+                .userId(userId)
+                .totalSubscriptions(subscriptions.size())
+                // There was no row to carry a version over from, so start from the clock: a version
+                // handed out before the row went missing can then never match the rebuilt one.
+                .dataVersion(System.currentTimeMillis())
+                .build();
+
+        for (Subscription subscription : subscriptions) {
+            add(summary, SubscriptionState.of(subscription));
+
+            if (subscription.getStatus() == SubscriptionStatus.ACTIVE
+                    && MoneyMath.toCents(subscription.getPrice()) > summary.getMostExpensiveCents()) {
+                setMostExpensive(summary, subscription);
+            }
+            updateNewest(summary, subscription);
+        }
+        return summary;
+    }
+
+    private String categoryKey(String category) {
+        return category != null ? category : "Other";
+    }
+}
@@ -28,6 +28,8 @@ public class SubscriptionService {
     private final PaymentEventRepository paymentEventRepository;
 
     private final NotificationService notificationService;
+    private final SpendingSummaryService spendingSummaryService;
+    private final AnalyticsCacheService analyticsCacheService;
 
     @Transactional(readOnly = true)
     public List<Subscription> getUserSubscriptions(Long userId) {
@@ -82,6 +84,9 @@ public class SubscriptionService {
         priceHistoryRepository.save(initialPrice);
         log.info("Initial price history created for subscription: {}", savedSubscription.getId());
 
+        spendingSummaryService.onSubscriptionCreated(savedSubscription);
+        analyticsCacheService.evictUser(userId);
+
         return savedSubscription;
     }
 
@@ -94,6 +99,7 @@ public class SubscriptionService {
                 .orElseThrow(() -> new RuntimeException("Subscription not found with id: " + subscriptionId));
 
         BigDecimal oldPrice = subscription.getPrice();
+        SpendingSummaryService.SubscriptionState before = SpendingSummaryService.SubscriptionState.of(subscription);
 
         subscription.setName(name);
         subscription.setPlanName(planName);
@@ -103,6 +109,8 @@ public class SubscriptionService {
         subscription.setNextRenewalDate(nextRenewalDate);
 
         Subscription updatedSubscription = subscriptionRepository.save(subscription);
+        spendingSummaryService.onSubscriptionChanged(before, updatedSubscription);
+        analyticsCacheService.evictUser(updatedSubscription.getUser().getId());
 
         if (!oldPrice.equals(newPrice)) {
             log.info("Price changed for subscription {}: {} -> {}", subscriptionId, oldPrice, newPrice);
@@ -133,8 +141,12 @@ public class SubscriptionService {
         Subscription subscription = subscriptionRepository.findById(subscriptionId)
                 .orElseThrow(() -> new RuntimeException("Subscription not found with id: " + subscriptionId));
 
+        SpendingSummaryService.SubscriptionState before = SpendingSummaryService.SubscriptionState.of(subscription);
         subscription.setStatus(SubscriptionStatus.CANCELLED);
+        subscription.setCancelledAt(LocalDateTime.now());
         subscriptionRepository.save(subscription);
+        spendingSummaryService.onSubscriptionChanged(before, subscription);
+        analyticsCacheService.evictUser(subscription.getUser().getId());
 
         notificationService.sendCancellationConfirmation(subscription);
     }
@@ -142,20 +154,11 @@ public class SubscriptionService {
     public List<Subscription> getSubscriptionsNeedingReminders(int daysAhead) {
         LocalDate targetDate = LocalDate.now().plusDays(daysAhead);
         log.info("🔍 Looking for subscriptions renewing on: {}", targetDate);
-        List<Subscription> subscriptions = subscriptionRepository
-                .findByNextRenewalDate(targetDate);
+        List<Subscription> subscriptions = subscriptionRepository.findRenewingBetween(
+                targetDate.atStartOfDay(), targetDate.plusDays(1).atStartOfDay());
 
         log.info("📊 Found {} subscriptions renewing on {}", subscriptions.size(), targetDate);
         return subscriptions;
-
-        /*LocalDateTime start = LocalDateTime.now();
-        LocalDateTime end = start.plusDays(daysAhead).plusHours(23).plusMinutes(59);
-
-        List<Subscription> subscriptions = subscriptionRepository
-                .findSubscriptionsForRenewalReminder(start, end);
-
-        log.info("Found {} subscriptions needing reminders in {} days", subscriptions.size(), daysAhead);
-        return subscriptions;*/
     }
 
     @Transactional(readOnly = true)
@@ -189,6 +192,7 @@ public class SubscriptionService {
         }
 
         Subscription subscription = subscriptionOpt.get();
+        SpendingSummaryService.SubscriptionState before = SpendingSummaryService.SubscriptionState.of(subscription);
 
         PaymentEvent paymentEvent = PaymentEvent.builder()
                 .subscription(subscription)
@@ -197,8 +201,9 @@ public class SubscriptionService {
                 .currency(currency)
                 .stripeEventId(stripeEventId)
                 .description("Payment event from Stripe webhook")
-                .processed(true)
                 .build();
+        // Failures stay unprocessed until the payment issue monitor has looked at them.
+        paymentEvent.setProcessed(!paymentEvent.isFailure());
 
         paymentEventRepository.save(paymentEvent);
         log.info("Payment event record created for subscription: {}", subscription.getId());
@@ -207,6 +212,7 @@ public class SubscriptionService {
             subscription.setStatus(SubscriptionStatus.ACTIVE);
 
             subscription.setNextRenewalDate(subscription.getNextRenewalDate().plusMonths(1));
+            subscriptionRepository.clearPaymentIssue(subscription.getId());
             log.info("Payment successful - subscription {} status updated to ACTIVE", subscription.getId());
 
         } else if ("PAYMENT_FAILED".equals(eventType)) {
@@ -217,6 +223,8 @@ public class SubscriptionService {
         }
 
         subscriptionRepository.save(subscription);
+        spendingSummaryService.onSubscriptionChanged(before, subscription);
+        analyticsCacheService.evictUser(subscription.getUser().getId());
         log.info("Successfully processed payment event: {}", eventType);
     }
 
@@ -235,9 +243,12 @@ public class SubscriptionService {
         BigDecimal oldPrice = subscription.getPrice();
 
         if (!oldPrice.equals(newPrice)) {
+            SpendingSummaryService.SubscriptionState before = SpendingSummaryService.SubscriptionState.of(subscription);
 
             subscription.setPrice(newPrice);
             subscriptionRepository.save(subscription);
+            spendingSummaryService.onSubscriptionChanged(before, subscription);
+            analyticsCacheService.evictUser(subscription.getUser().getId());
             log.info("Subscription {} price updated: {} -> {}", subscription.getId(), oldPrice, newPrice);
 
             PriceHistory priceChange = PriceHistory.builder()
@@ -269,8 +280,12 @@ public class SubscriptionService {
         }
 
         Subscription subscription = subscriptionOpt.get();
+        SpendingSummaryService.SubscriptionState before = SpendingSummaryService.SubscriptionState.of(subscription);
         subscription.setStatus(SubscriptionStatus.CANCELLED);
+        subscription.setCancelledAt(LocalDateTime.now());
         subscriptionRepository.save(subscription);
+        spendingSummaryService.onSubscriptionChanged(before, subscription);
+        analyticsCacheService.evictUser(subscription.getUser().getId());
 
         notificationService.sendCancellationConfirmation(subscription);
         log.info("Subscription {} cancelled via webhook", subscription.getId());
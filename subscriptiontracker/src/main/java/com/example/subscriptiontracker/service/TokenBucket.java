@@ -0,0 +1,52 @@
+package com.example.subscriptiontracker.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe token bucket. Callers reserve a token under the lock and sleep outside it, so
+ * concurrent senders queue up fairly behind the refill rate instead of spinning.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond sustained rate; zero or less disables limiting
+     * @param burst            tokens that may be spent at once after an idle period
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /** Takes several tokens at once, e.g. for a batch that goes out in one SMTP session. */
+    public void acquire(int permits) throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerSecond / 1e9);
+            lastRefillNanos = now;
+
+            // Going negative reserves a future token; the debt is the time until it refills.
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / permitsPerSecond * 1e9);
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
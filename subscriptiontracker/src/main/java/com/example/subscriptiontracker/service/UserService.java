@@ -8,6 +8,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 @Service
@@ -18,6 +21,9 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ReminderSchedule reminderSchedule;
+    private final SpendingSummaryService spendingSummaryService;
+    private final ReminderSlotScheduler reminderSlotScheduler;
 
     public User registerUser(String email, String name, String rawPassword) {
         log.info("Attempting to register user with email: {}", email);
@@ -36,6 +42,9 @@ public class UserService {
                 .emailNotifications(true)
                 .build();
         User savedUser = userRepository.save(user);
+        // The default send time depends on the id, so it is assigned once the row has one.
+        assignReminderSlot(savedUser);
+        spendingSummaryService.createSummary(savedUser.getId());
         log.info("Successfully registered user with ID: {}", savedUser.getId());
 
         return savedUser;
@@ -71,10 +80,44 @@ public class UserService {
     public User updateNotificationPreference(Long userId, boolean emailNotifications) {
         User user = getUserById(userId);
         user.setEmailNotifications(emailNotifications);
+        if (emailNotifications) {
+            reminderSlotScheduler.addSchedule(user.getReminderZone(), user.getReminderSlot());
+        }
 
         User updatedUser = userRepository.save(user);
         log.info("Updated notification preferences for user {}: {}", userId, emailNotifications);
 
         return updatedUser;
     }
+
+    /**
+     * Sets when the user's renewal reminders go out. A null zone or send time falls back to the
+     * configured default; send times are rounded down to a whole reminder slot.
+     */
+    public User updateReminderSchedule(Long userId, String timeZone, LocalTime sendTime) {
+        User user = getUserById(userId);
+
+        if (timeZone != null) {
+            try {
+                timeZone = ZoneId.of(timeZone).getId();
+            } catch (DateTimeException e) {
+                throw new RuntimeException("Unknown time zone: " + timeZone);
+            }
+        }
+        user.setTimeZone(timeZone);
+        user.setReminderSendTime(sendTime != null ? reminderSchedule.truncate(sendTime) : null);
+        assignReminderSlot(user);
+
+        User updatedUser = userRepository.save(user);
+        log.info("Updated reminder schedule for user {}: {} at {}", userId,
+                updatedUser.getTimeZone(), updatedUser.getReminderSendTime());
+
+        return updatedUser;
+    }
+
+    private void assignReminderSlot(User user) {
+        user.setReminderZone(reminderSchedule.zoneFor(user.getTimeZone()));
+        user.setReminderSlot(reminderSchedule.slotFor(user.getId(), user.getReminderSendTime()));
+        reminderSlotScheduler.addSchedule(user.getReminderZone(), user.getReminderSlot());
+    }
 }
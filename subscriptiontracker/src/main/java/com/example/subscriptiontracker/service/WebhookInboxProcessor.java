@@ -0,0 +1,89 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.WebhookInbox;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the webhook inbox on the {@code webhookExecutor} pool. Only as many events are claimed
+ * as there are free slots (twice the worker count), so a burst waits in the table, not in
+ * memory. Each event is applied by {@link StripeEventHandler}. Failures are retried with backoff
+ * by {@link WebhookInboxService} until they run out of attempts.
+ */
+@Service
+@Slf4j
+public class WebhookInboxProcessor {
+    private final WebhookInboxService inboxService;
+    private final StripeEventHandler eventHandler;
+    private final ThreadPoolTaskExecutor executor;
+    private final String webhookSecret;
+    private final Semaphore slots;
+
+    public WebhookInboxProcessor(WebhookInboxService inboxService,
+                                 StripeEventHandler eventHandler,
+                                 @Qualifier("webhookExecutor") ThreadPoolTaskExecutor executor,
+                                 @Value("${stripe.webhook.secret}") String webhookSecret) {
+        this.inboxService = inboxService;
+        this.eventHandler = eventHandler;
+        this.executor = executor;
+        this.webhookSecret = webhookSecret;
+        this.slots = new Semaphore(executor.getMaxPoolSize() * 2);
+    }
+
+    /**
+     * Claims due events for the free slots and hands them to the workers without waiting for
+     * them to finish.
+     *
+     * @return the number of events claimed; 0 when the inbox is drained or every slot is busy
+     */
+    public synchronized int dispatchDue() {
+        int free = slots.availablePermits();
+        if (free == 0) {
+            return 0;
+        }
+
+        List<WebhookInbox> claimed = inboxService.claimDue(free);
+        for (WebhookInbox event : claimed) {
+            // Only this method takes slots and it is synchronized, so this never blocks.
+            slots.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(event);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                inboxService.recordFailure(event.getId(), "Rejected by worker pool: " + e.getMessage());
+            }
+        }
+        return claimed.size();
+    }
+
+    public int getBusySlots() {
+        return executor.getMaxPoolSize() * 2 - slots.availablePermits();
+    }
+
+    private void process(WebhookInbox inbox) {
+        try {
+            // Tolerance 0 skips the timestamp check: the event was fresh when it was stored.
+            Event event = Webhook.constructEvent(inbox.getPayload(), inbox.getSignature(), webhookSecret, 0);
+            eventHandler.handle(event);
+            inboxService.recordProcessed(inbox.getId());
+        } catch (Exception e) {
+            log.warn("Failed to process webhook event {} ({}) (attempt {}): {}",
+                    inbox.getEventId(), inbox.getEventType(), inbox.getAttempts(), e.getMessage());
+            inboxService.recordFailure(inbox.getId(), e.getMessage());
+        }
+    }
+}
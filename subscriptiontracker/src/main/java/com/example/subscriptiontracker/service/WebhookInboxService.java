@@ -0,0 +1,168 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.WebhookInbox;
+import com.example.subscriptiontracker.model.WebhookStatus;
+import com.example.subscriptiontracker.repository.WebhookInboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.model.Event;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The durable side of asynchronous webhook ingestion: appending verified events, and the claim,
+ * retry and dead-letter bookkeeping for {@link WebhookInboxProcessor}. Every method is one short
+ * transaction; no event is processed while a row lock is held.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class WebhookInboxService {
+    private final WebhookInboxRepository inboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${webhooks.inbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${webhooks.inbox.initial-backoff:PT10S}")
+    private Duration initialBackoff;
+
+    @Value("${webhooks.inbox.max-backoff:PT30M}")
+    private Duration maxBackoff;
+
+    @Value("${webhooks.inbox.lease:PT5M}")
+    private Duration lease;
+
+    // Processed and dead events are kept this long after they arrived. Stripe stops redelivering
+    // an event after three days, so the inbox still catches every duplicate.
+    @Value("${webhooks.inbox.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Stores a verified event for processing. Stripe redelivers events it did not see
+     * acknowledged, so an event id that is already in the inbox is not stored again.
+     *
+     * @return false if the event was already in the inbox
+     */
+    public boolean append(Event event, String payload, String signature) {
+        if (inboxRepository.existsByEventId(event.getId())) {
+            return false;
+        }
+        inboxRepository.save(WebhookInbox.builder()
+                .eventId(event.getId())
+                .eventType(event.getType())
+                .objectKey(objectKey(event))
+                .payload(payload)
+                .signature(signature)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+        return true;
+    }
+
+    /**
+     * Locks up to {@code batchSize} due events and leases them to the caller as PROCESSING. An
+     * event is left for later while another one about the same subscription is being processed,
+     * in this batch or by another worker, or while an earlier one is still waiting for a retry. Events that already used up their attempts on an
+     * expired lease are dead-lettered instead.
+     */
+    public List<WebhookInbox> claimDue(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> busyKeys = new HashSet<>(inboxRepository.findKeysInFlight(now));
+        List<WebhookInbox> claimed = new ArrayList<>();
+
+        for (WebhookInbox event : inboxRepository.findDueForUpdate(now, Limit.of(batchSize))) {
+            if (event.getAttempts() >= maxAttempts) {
+                deadLetter(event, "Processing lease expired after " + event.getAttempts() + " attempts");
+                continue;
+            }
+            if (event.getObjectKey() != null && !busyKeys.add(event.getObjectKey())) {
+                continue;
+            }
+            event.setStatus(WebhookStatus.PROCESSING);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(now.plus(lease));
+            claimed.add(event);
+        }
+        return claimed;
+    }
+
+    public int prune(LocalDateTime now) {
+        int deleted = inboxRepository.deleteFinishedBefore(now.minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("🧹 Pruned {} finished webhook inbox events", deleted);
+        }
+        return deleted;
+    }
+
+    public void recordProcessed(Long id) {
+        inboxRepository.findById(id).ifPresent(event -> {
+            event.setStatus(WebhookStatus.PROCESSED);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+        });
+    }
+
+    /**
+     * Schedules a failed event for a retry with exponential backoff, or dead-letters it once it is
+     * out of attempts.
+     */
+    public void recordFailure(Long id, String error) {
+        inboxRepository.findById(id).ifPresent(event -> {
+            if (event.getAttempts() >= maxAttempts) {
+                deadLetter(event, error);
+            } else {
+                event.setStatus(WebhookStatus.PENDING);
+                event.setNextAttemptAt(LocalDateTime.now().plus(backoff(event.getAttempts())));
+                event.setLastError(truncate(error));
+            }
+        });
+    }
+
+    private void deadLetter(WebhookInbox event, String error) {
+        log.error("❌ Giving up on webhook event {} ({}) after {} attempts: {}",
+                event.getEventId(), event.getEventType(), event.getAttempts(), error);
+        event.setStatus(WebhookStatus.DEAD);
+        event.setLastError(truncate(error));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    /**
+     * The Stripe subscription an event is about: the {@code subscription} of an invoice, or the
+     * id of a subscription. Read from the raw JSON, since the typed object is only available when
+     * the event's API version matches the library's.
+     */
+    private String objectKey(Event event) {
+        try {
+            JsonNode object = objectMapper.readTree(event.getDataObjectDeserializer().getRawJson());
+            JsonNode key = "invoice".equals(object.path("object").asText()) ? object.path("subscription") : object.path("id");
+            return key.isTextual() ? key.asText() : null;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("No object key for webhook event {}: {}", event.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.repository.PaymentEventRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.projection.ReportRecipientRow;
+import com.example.subscriptiontracker.repository.projection.UpcomingRenewalRow;
+import com.example.subscriptiontracker.repository.projection.UserPaymentTotals;
+import com.example.subscriptiontracker.repository.projection.UserSubscriptionTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Queues the weekly spending report for every user with email notifications on. The run is a
+ * pipeline of four stages joined by queues that hold at most {@code reports.weekly.queue-capacity}
+ * batches:
+ * <ol>
+ *     <li>read: opted-in users in id-keyset batches of {@code reports.weekly.batch-size}</li>
+ *     <li>compute: skips users already served, then three grouped queries per batch over
+ *     subscriptions and payment events</li>
+ *     <li>render: the weekly-report template</li>
+ *     <li>queue: the mail outbox, on the calling thread</li>
+ * </ol>
+ * Compute and render run on their own worker threads. Because the queues are bounded, the
+ * slowest stage holds the others back instead of letting reports pile up in memory. Reports are
+ * delivered later by the {@link MailOutboxDispatcher}, which also retries them, so the run never
+ * waits on the mail server. A {@link JobLease} keeps the run to one instance.
+ * <p>
+ * Each queued batch is recorded in the {@link ReportLedgerService} in the same transaction. A run
+ * that could not read, prepare or queue every user's report leaves its lease incomplete, and
+ * {@link #resumeAbandoned()} runs it again once the lease expires for the users not served yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeeklyReportService {
+    public static final String JOB_NAME = "weekly-spending-report";
+
+    public record Result(int users, int reports, int queued, int failed, boolean complete, long durationMs,
+                         List<StageTiming> stages) {
+    }
+
+    public record StageTiming(String stage, int batches, int items, long busyMs) {
+    }
+
+    // Marks the end of a queue; compared by identity.
+    private static final List<?> END = new ArrayList<>(0);
+
+    private final UserRepository userRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final PaymentEventRepository paymentEventRepository;
+    private final NotificationService notificationService;
+    private final ReportLedgerService reportLedgerService;
+    private final JobLeaseService leaseService;
+
+    @Value("${reports.weekly.batch-size:200}")
+    private int batchSize;
+
+    @Value("${reports.weekly.compute-threads:4}")
+    private int computeThreads;
+
+    @Value("${reports.weekly.render-threads:2}")
+    private int renderThreads;
+
+    @Value("${reports.weekly.queue-capacity:4}")
+    private int queueCapacity;
+
+    /**
+     * Reports on payments in the seven days before {@code today} and renewals in the seven days
+     * from it.
+     */
+    public Result sendWeeklyReports(LocalDate today) {
+        return run(today, false);
+    }
+
+    /**
+     * Runs again a weekly report whose last attempt did not finish and whose lease has expired.
+     * Only users whose report that attempt did not queue are served.
+     */
+    public Result resumeAbandoned() {
+        for (JobLease lease : leaseService.findAbandoned(JOB_NAME)) {
+            if (JOB_NAME.equals(lease.getLeaseKey())) {
+                return run(LocalDate.parse(lease.getRunKey()), true);
+            }
+        }
+        return new Result(0, 0, 0, 0, true, 0, List.of());
+    }
+
+    private Result run(LocalDate today, boolean resumeOnly) {
+        long startedAt = System.currentTimeMillis();
+        if (leaseService.tryAcquire(JOB_NAME, today.toString(), resumeOnly).isEmpty()) {
+            log.info("⏭️ Weekly spending reports for {} are handled by another instance", today);
+            return new Result(0, 0, 0, 0, true, 0, List.of());
+        }
+        log.info("📊 Starting weekly spending reports for the week before {}", today);
+
+        LocalDate weekStart = today.minusDays(7);
+        LocalDate weekEnd = today.minusDays(1);
+
+        Stage read = new Stage("read");
+        Stage compute = new Stage("compute");
+        Stage render = new Stage("render");
+        Stage queue = new Stage("queue");
+        BlockingQueue<List<ReportRecipientRow>> recipients = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<WeeklySpendingSummary>> summaries = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<ReportLedgerService.Report>> reports = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger computing = new AtomicInteger(computeThreads);
+        AtomicInteger rendering = new AtomicInteger(renderThreads);
+
+        ExecutorService workers = Executors.newFixedThreadPool(1 + computeThreads + renderThreads,
+                new CustomizableThreadFactory("weekly-report-"));
+        boolean finished;
+        try {
+            workers.execute(() -> readRecipients(recipients, read));
+            for (int i = 0; i < computeThreads; i++) {
+                workers.execute(() -> runStage(recipients, summaries, computing, renderThreads, compute,
+                        batch -> summarize(reportLedgerService.filterUnserved(batch, today), weekStart, today)));
+            }
+            for (int i = 0; i < renderThreads; i++) {
+                workers.execute(() -> runStage(summaries, reports, rendering, 1, render,
+                        batch -> batch.stream()
+                                .map(summary -> new ReportLedgerService.Report(summary.userId(),
+                                        notificationService.buildWeeklyReport(summary, weekStart, weekEnd)))
+                                .toList()));
+            }
+            finished = queueReports(reports, queue, today);
+        } finally {
+            // Unblocks any stage still waiting on a queue if queueing stopped early.
+            workers.shutdownNow();
+        }
+        // Users lost to a failed stage never got a report, so the run is retried for them.
+        boolean complete = finished && read.failed.get() == 0 && compute.failed.get() == 0
+                && render.failed.get() == 0 && queue.failed.get() == 0;
+        if (complete) {
+            leaseService.complete(JOB_NAME);
+        } else {
+            log.warn("⚠️ Weekly spending reports for {} are incomplete, retrying once lease {} expires", today, JOB_NAME);
+        }
+
+        Result result = new Result(read.items.get(), render.items.get(), queue.items.get(),
+                compute.failed.get() + render.failed.get() + queue.failed.get(), complete,
+                System.currentTimeMillis() - startedAt,
+                List.of(read.timing(), compute.timing(), render.timing(), queue.timing()));
+        double seconds = Math.max(result.durationMs(), 1) / 1000.0;
+        log.info("📊 Weekly spending reports - Users: {}, Reports: {}, Queued: {}, Failed: {} in {} ms ({} users/s, {} emails/s)",
+                result.users(), result.reports(), result.queued(), result.failed(), result.durationMs(),
+                Math.round(result.users() / seconds), Math.round(result.queued() / seconds));
+        for (StageTiming stage : result.stages()) {
+            log.info("⏱️ {} stage - {} batches, {} items, {} ms busy",
+                    stage.stage(), stage.batches(), stage.items(), stage.busyMs());
+        }
+        return result;
+    }
+
+    private void readRecipients(BlockingQueue<List<ReportRecipientRow>> out, Stage stage) {
+        boolean done = false;
+        try {
+            long afterId = 0L;
+            while (true) {
+                long started = System.nanoTime();
+                List<ReportRecipientRow> batch = userRepository.findReportRecipientsAfter(afterId, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                stage.record(batch.size(), System.nanoTime() - started);
+                out.put(batch);
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            done = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to read weekly report recipients: {}", e.getMessage(), e);
+        } finally {
+            if (!done) {
+                // The number of users left unread is unknown; this only marks the stage as failed.
+                stage.failed.incrementAndGet();
+            }
+            // Sent even if the reader died of an Error, so the next stage is never left waiting.
+            signalEnd(out, computeThreads);
+        }
+    }
+
+    /**
+     * Worker loop of a middle stage. Each worker stops at one end marker; the last one to stop,
+     * however it stopped, passes an end marker to each of the {@code consumers} workers of the
+     * next stage.
+     */
+    private <I, O> void runStage(BlockingQueue<List<I>> in, BlockingQueue<List<O>> out, AtomicInteger running,
+                                 int consumers, Stage stage, Function<List<I>, List<O>> work) {
+        List<I> batch = null;
+        try {
+            while (true) {
+                batch = in.take();
+                if (batch == END) {
+                    batch = null;
+                    break;
+                }
+
+                long started = System.nanoTime();
+                List<O> result;
+                try {
+                    result = work.apply(batch);
+                } catch (RuntimeException e) {
+                    log.error("❌ Weekly report {} stage failed for {} users: {}", stage.name, batch.size(), e.getMessage(), e);
+                    stage.failed.addAndGet(batch.size());
+                    batch = null;
+                    continue;
+                }
+                stage.record(result.size(), System.nanoTime() - started);
+                if (!result.isEmpty()) {
+                    out.put(result);
+                }
+                batch = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (batch != null) {
+                // The worker died of an Error mid-batch.
+                stage.failed.addAndGet(batch.size());
+            }
+            if (running.decrementAndGet() == 0) {
+                signalEnd(out, consumers);
+            }
+        }
+    }
+
+    /**
+     * Queues each batch of reports in the outbox together with its ledger entries. A batch that
+     * fails to queue is left for the retried run.
+     *
+     * @return false if queueing stopped before the last report, because the lease was lost or the
+     * thread was interrupted
+     */
+    private boolean queueReports(BlockingQueue<List<ReportLedgerService.Report>> in, Stage stage, LocalDate today) {
+        try {
+            while (true) {
+                List<ReportLedgerService.Report> batch = in.take();
+                if (batch == END) {
+                    return true;
+                }
+
+                long started = System.nanoTime();
+                try {
+                    reportLedgerService.queue(batch, today);
+                    stage.record(batch.size(), System.nanoTime() - started);
+                } catch (RuntimeException e) {
+                    log.error("❌ Failed to queue {} weekly reports: {}", batch.size(), e.getMessage(), e);
+                    stage.failed.addAndGet(batch.size());
+                }
+
+                if (!leaseService.renew(JOB_NAME)) {
+                    log.warn("⚠️ Lost lease {}, stopping weekly spending reports", JOB_NAME);
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<WeeklySpendingSummary> summarize(List<ReportRecipientRow> batch, LocalDate weekStart, LocalDate today) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<Long> userIds = batch.stream().map(ReportRecipientRow::getId).toList();
+        LocalDateTime from = weekStart.atStartOfDay();
+        LocalDateTime now = today.atStartOfDay();
+
+        Map<Long, UserSubscriptionTotals> subscriptions = new HashMap<>();
+        for (UserSubscriptionTotals totals : subscriptionRepository.findActiveTotalsByUser(userIds)) {
+            subscriptions.put(totals.getUserId(), totals);
+        }
+        Map<Long, UserPaymentTotals> payments = new HashMap<>();
+        for (UserPaymentTotals totals : paymentEventRepository.findPaymentTotalsByUser(userIds, from, now)) {
+            payments.put(totals.getUserId(), totals);
+        }
+        Map<Long, List<WeeklySpendingSummary.UpcomingRenewal>> upcoming = new HashMap<>();
+        for (UpcomingRenewalRow row : subscriptionRepository.findUpcomingRenewalsByUser(userIds, now, now.plusDays(7))) {
+            upcoming.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(new WeeklySpendingSummary.UpcomingRenewal(
+                    row.getName(), row.getPrice(), row.getCurrency(), row.getNextRenewalDate()));
+        }
+
+        List<WeeklySpendingSummary> summaries = new ArrayList<>(batch.size());
+        for (ReportRecipientRow recipient : batch) {
+            UserSubscriptionTotals active = subscriptions.get(recipient.getId());
+            UserPaymentTotals paid = payments.get(recipient.getId());
+            // Nothing to report for users without active subscriptions or payments this week.
+            if (active == null && paid == null) {
+                continue;
+            }
+            summaries.add(new WeeklySpendingSummary(recipient.getId(), recipient.getEmail(), recipient.getName(),
+                    active != null ? active.getActiveSubscriptions() : 0,
+                    active != null ? active.getMonthlySpending() : BigDecimal.ZERO,
+                    paid != null ? paid.getSucceeded() : 0,
+                    paid != null && paid.getPaidAmount() != null ? paid.getPaidAmount() : BigDecimal.ZERO,
+                    paid != null ? paid.getFailed() : 0,
+                    upcoming.getOrDefault(recipient.getId(), List.of())));
+        }
+        return summaries;
+    }
+
+    private static <T> void signalEnd(BlockingQueue<List<T>> out, int consumers) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                out.put(end());
+            }
+        } catch (InterruptedException e) {
+            // Only interrupted when the run is being torn down, so nobody is waiting for the markers.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> end() {
+        return (List<T>) (List<?>) END;
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger items = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private void record(int count, long nanos) {
+            batches.incrementAndGet();
+            items.addAndGet(count);
+            busyNanos.addAndGet(nanos);
+        }
+
+        private StageTiming timing() {
+            return new StageTiming(name, batches.get(), items.get(), busyNanos.get() / 1_000_000);
+        }
+    }
+}
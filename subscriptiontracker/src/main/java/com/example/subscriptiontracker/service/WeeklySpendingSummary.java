@@ -0,0 +1,17 @@
+package com.example.subscriptiontracker.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One user's week as shown in the weekly spending report.
+ */
+public record WeeklySpendingSummary(Long userId, String email, String name,
+                                    long activeSubscriptions, BigDecimal monthlySpending,
+                                    long paymentsSucceeded, BigDecimal amountPaid, long paymentsFailed,
+                                    List<UpcomingRenewal> upcomingRenewals) {
+
+    public record UpcomingRenewal(String name, BigDecimal price, String currency, LocalDateTime renewalDate) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.subscriptiontracker.benchmark;
+
+import com.example.subscriptiontracker.service.MailBatchSender;
+import com.example.subscriptiontracker.support.SmtpStub;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second delivered to a local {@link SmtpStub}, one SMTP session per message
+ * ({@code SINGLE}) against batched and pooled sessions, from one thread and from four. Scores
+ * are messages per second. Run {@link #main} after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailBatchBenchmark {
+
+    private static final int MESSAGES = 50;
+
+    @Param({"SINGLE", "BATCH", "POOLED"})
+    private MailBatchSender.Mode mode;
+
+    private SmtpStub smtp;
+    private MailBatchSender sender;
+    private List<SimpleMailMessage> messages;
+
+    @Setup
+    public void setUp() {
+        smtp = SmtpStub.start();
+        smtp.discardMessages();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+        sender = new MailBatchSender(mailSender, mode, MESSAGES, 4);
+
+        messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo("user" + i + "@example.com");
+            message.setFrom("noreply@subscriptiontracker.com");
+            message.setSubject("🔔 Subscription Renewal Reminder - Service " + i);
+            message.setText("Your subscription renews in 3 days.\n\nBest regards,\nSubscription Tracker Team");
+            messages.add(message);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sender.close();
+        smtp.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    @Threads(1)
+    public Map<Integer, Exception> oneSender() {
+        return sender.send(messages);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    @Threads(4)
+    public Map<Integer, Exception> fourSenders() {
+        return sender.send(messages);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MailBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.subscriptiontracker.benchmark;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.service.NotificationTemplates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders one renewal reminder with the compiled templates (text and HTML) and with the
+ * {@code String.format} body they replaced. Run {@link #main} after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationTemplatesBenchmark {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+
+    private NotificationTemplates templates;
+    private User user;
+    private Subscription subscription;
+
+    @Setup
+    public void setUp() {
+        templates = new NotificationTemplates();
+        user = User.builder().name("Alice").email("alice@example.com").build();
+        subscription = Subscription.builder()
+                .name("Netflix")
+                .planName("Premium")
+                .price(new BigDecimal("15.99"))
+                .card("Chase Sapphire")
+                .nextRenewalDate(LocalDateTime.of(2025, 3, 14, 9, 0))
+                .user(user)
+                .build();
+    }
+
+    @Benchmark
+    public NotificationTemplates.Rendered compiledTemplate() {
+        return templates.renewalReminder(user, subscription, 3);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(
+                "Hi %s,\n\n" +
+                        "Your %s subscription (%s) will renew in %s.\n\n" +
+                        "📅 Renewal Date: %s\n" +
+                        "💰 Amount: $%.2f %s\n" +
+                        "💳 Payment Method: %s\n\n" +
+                        "If you want to cancel or modify this subscription, please log into your account.\n\n" +
+                        "Manage subscriptions: http://localhost:3000/subscriptions\n\n" +
+                        "Best regards,\n" +
+                        "Subscription Tracker Team",
+                user.getName(),
+                subscription.getName(),
+                subscription.getPlanName(),
+                "3 days",
+                subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER),
+                subscription.getPrice(),
+                subscription.getCurrency(),
+                subscription.getCard());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NotificationTemplatesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
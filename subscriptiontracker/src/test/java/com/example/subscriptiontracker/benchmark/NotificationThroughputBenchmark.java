@@ -0,0 +1,261 @@
+package com.example.subscriptiontracker.benchmark;
+
+import com.example.subscriptiontracker.SubscriptiontrackerApplication;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.service.MailOutboxDispatcher;
+import com.example.subscriptiontracker.service.RenewalReminderService;
+import com.example.subscriptiontracker.service.ReminderSlot;
+import com.example.subscriptiontracker.service.SubscriptionService;
+import com.example.subscriptiontracker.support.SmtpStub;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end notification throughput against a local {@link SmtpStub} that adds
+ * {@code smtpLatencyMs} to every message and rejects a {@code smtpFailureRate} share of them.
+ * Each invocation notifies about all {@code subscriptions} synthetic subscriptions through one
+ * path:
+ * <ul>
+ *     <li>{@code REMINDER}: a renewal reminder slot through {@link RenewalReminderService}</li>
+ *     <li>{@code PRICE_INCREASE}: a Stripe price change per subscription, then the mail outbox</li>
+ *     <li>{@code CANCELLATION}: a cancellation per subscription, then the mail outbox</li>
+ * </ul>
+ * The {@code messages} counter is messages accepted by the stub per second. After each trial,
+ * the benchmark prints latency percentiles and the JDBC statements issued per delivered
+ * message, both taken from the measurement iterations. Latency runs from the start of the
+ * invocation to the stub's acknowledgement, so it includes the time to trigger the whole batch.
+ * Run {@link #main} after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationThroughputBenchmark {
+
+    public enum Path {
+        REMINDER, PRICE_INCREASE, CANCELLATION
+    }
+
+    private static final int SUBSCRIPTIONS_PER_USER = 4;
+
+    @Param({"REMINDER", "PRICE_INCREASE", "CANCELLATION"})
+    private Path path;
+
+    @Param({"2000"})
+    private int subscriptions;
+
+    @Param({"0", "5"})
+    private int smtpLatencyMs;
+
+    @Param({"0", "0.02"})
+    private double smtpFailureRate;
+
+    private SmtpStub smtp;
+    private ConfigurableApplicationContext context;
+    private RenewalReminderService renewalReminderService;
+    private SubscriptionService subscriptionService;
+    private MailOutboxDispatcher mailOutboxDispatcher;
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+
+    private final LocalDate today = LocalDate.now();
+    private final ReminderSlot slot = ReminderSlot.of("UTC", LocalTime.of(9, 0), today);
+    private final List<Subscription> seeded = new ArrayList<>();
+    private BigDecimal price = new BigDecimal("10.00");
+
+    private boolean measuring;
+    private final List<double[]> latencies = new ArrayList<>();
+    private long measuredMessages;
+    private long measuredStatements;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Delivered {
+        public long messages;
+        public long failures;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            messages = 0;
+            failures = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        smtp = SmtpStub.start();
+        smtp.discardMessages();
+        smtp.setLatency(Duration.ofMillis(smtpLatencyMs));
+        smtp.setFailureRate(smtpFailureRate);
+
+        context = new SpringApplicationBuilder(SubscriptiontrackerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "spring.mail.host=localhost",
+                        "spring.mail.port=" + smtp.getPort(),
+                        "stripe.webhook.secret=whsec_test",
+                        "logging.level.com.example.subscriptiontracker=WARN",
+                        // Injected failures are counted; logging each one would skew the timings.
+                        "logging.level.com.example.subscriptiontracker.service.BulkMailDispatcher=OFF",
+                        "logging.level.com.example.subscriptiontracker.service.MailOutboxDispatcher=OFF",
+                        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                        "mail.dispatch.rate-per-second=0",
+                        "mail.outbox.initial-delay=3600000",
+                        "mail.outbox.initial-backoff=PT0S",
+                        "notifications.reminder.load-initial-delay=3600000",
+                        "notifications.digest.flush-initial-delay=3600000",
+                        "payments.monitor.initial-delay=3600000",
+                        "scheduler.reminders.recovery-interval=3600000")
+                .run();
+        renewalReminderService = context.getBean(RenewalReminderService.class);
+        subscriptionService = context.getBean(SubscriptionService.class);
+        mailOutboxDispatcher = context.getBean(MailOutboxDispatcher.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        report();
+        context.close();
+        smtp.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT;
+    }
+
+    @Setup(Level.Invocation)
+    public void resetState() {
+        jdbc.update("DELETE FROM sent_reminder");
+        jdbc.update("DELETE FROM job_lease");
+        jdbc.update("DELETE FROM mail_outbox");
+        jdbc.update("UPDATE subscription SET status = 'ACTIVE'");
+        smtp.drainAcceptTimes();
+        price = price.add(new BigDecimal("0.01"));
+    }
+
+    @Benchmark
+    public void deliver(Delivered delivered) {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long invocationStart = System.nanoTime();
+
+        switch (path) {
+            case REMINDER -> renewalReminderService.sendSlot(slot, 3);
+            case PRICE_INCREASE -> {
+                for (Subscription subscription : seeded) {
+                    subscriptionService.handlePriceChangeFromWebhook(subscription.getStripeSubscriptionId(), price);
+                }
+                drainOutbox();
+            }
+            case CANCELLATION -> {
+                for (Subscription subscription : seeded) {
+                    subscriptionService.cancelSubscription(subscription.getId());
+                }
+                drainOutbox();
+            }
+        }
+
+        long[] acceptTimes = smtp.drainAcceptTimes();
+        delivered.messages += acceptTimes.length;
+        delivered.failures += subscriptions - acceptTimes.length;
+        if (measuring) {
+            double[] millis = new double[acceptTimes.length];
+            for (int i = 0; i < acceptTimes.length; i++) {
+                millis[i] = (acceptTimes[i] - invocationStart) / 1_000_000.0;
+            }
+            latencies.add(millis);
+            measuredMessages += acceptTimes.length;
+            measuredStatements += statistics.getPrepareStatementCount() - statementsBefore;
+        }
+    }
+
+    // Failed sends are due again at once; rows still failing after that count as failures.
+    private void drainOutbox() {
+        while (mailOutboxDispatcher.dispatchDue() > 0) {
+        }
+    }
+
+    private void seed() {
+        UserRepository users = context.getBean(UserRepository.class);
+        SubscriptionRepository subscriptionRepository = context.getBean(SubscriptionRepository.class);
+
+        List<Subscription> batch = new ArrayList<>(subscriptions);
+        for (int i = 0; i < subscriptions; i += SUBSCRIPTIONS_PER_USER) {
+            User user = users.save(User.builder()
+                    .email("user" + i + "@example.com")
+                    .name("User " + i)
+                    .password("pw")
+                    .timeZone("UTC")
+                    .reminderSendTime(slot.sendTime())
+                    .build());
+            for (int j = i; j < Math.min(i + SUBSCRIPTIONS_PER_USER, subscriptions); j++) {
+                batch.add(Subscription.builder()
+                        .name("Service " + j)
+                        .planName("Premium")
+                        .price(price)
+                        .startDate(today.minusMonths(1))
+                        .nextRenewalDate(today.plusDays(1 + j % 3).atTime(12, 0))
+                        .stripeSubscriptionId("sub_" + j)
+                        .user(user)
+                        .build());
+            }
+        }
+        seeded.addAll(subscriptionRepository.saveAll(batch));
+    }
+
+    private void report() {
+        double[] all = latencies.stream().flatMapToDouble(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.printf("%n%s (latency %d ms, failure rate %.2f): no messages delivered%n",
+                    path, smtpLatencyMs, smtpFailureRate);
+            return;
+        }
+        System.out.printf("%n%s (latency %d ms, failure rate %.2f): %d messages, latency p50 %.1f ms, p95 %.1f ms, "
+                        + "p99 %.1f ms, max %.1f ms, %.2f DB statements per message%n",
+                path, smtpLatencyMs, smtpFailureRate, all.length,
+                percentile(all, 50), percentile(all, 95), percentile(all, 99), all[all.length - 1],
+                (double) measuredStatements / measuredMessages);
+    }
+
+    private static double percentile(double[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NotificationThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
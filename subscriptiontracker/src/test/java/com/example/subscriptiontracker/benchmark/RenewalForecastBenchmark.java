@@ -0,0 +1,85 @@
+package com.example.subscriptiontracker.benchmark;
+
+import com.example.subscriptiontracker.service.RenewalForecast;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projects a 24 month forecast for a synthetic portfolio and compares it with stepping each
+ * subscription through {@link LocalDate#plusMonths}. Run {@link #main} after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenewalForecastBenchmark {
+
+    @Param({"100", "5000"})
+    private int subscriptions;
+
+    @Param({"24"})
+    private int months;
+
+    private LocalDate today;
+    private long[] priceCents;
+    private LocalDate[] nextRenewals;
+    private LocalDate[] endDates;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        today = LocalDate.of(2025, 1, 15);
+        priceCents = new long[subscriptions];
+        nextRenewals = new LocalDate[subscriptions];
+        endDates = new LocalDate[subscriptions];
+        for (int i = 0; i < subscriptions; i++) {
+            priceCents[i] = 99 + random.nextInt(5_000);
+            nextRenewals[i] = today.plusDays(random.nextInt(60) - 10);
+            endDates[i] = random.nextInt(4) == 0 ? today.plusDays(random.nextInt(720)) : null;
+        }
+    }
+
+    @Benchmark
+    public void dayIndexProjection(Blackhole blackhole) {
+        RenewalForecast forecast = new RenewalForecast(today, months);
+        for (int i = 0; i < subscriptions; i++) {
+            forecast.add(priceCents[i], nextRenewals[i], endDates[i]);
+        }
+        blackhole.consume(forecast.buckets(RenewalForecast.Granularity.MONTH));
+    }
+
+    @Benchmark
+    public long[] localDateProjection() {
+        LocalDate end = today.plusMonths(months);
+        long[] monthlyCents = new long[months + 1];
+        for (int i = 0; i < subscriptions; i++) {
+            for (int k = 0; ; k++) {
+                LocalDate renewal = nextRenewals[i].plusMonths(k);
+                if (!renewal.isBefore(end) || (endDates[i] != null && renewal.isAfter(endDates[i]))) {
+                    break;
+                }
+                if (!renewal.isBefore(today)) {
+                    int month = (renewal.getYear() - today.getYear()) * 12
+                            + renewal.getMonthValue() - today.getMonthValue();
+                    monthlyCents[month] += priceCents[i];
+                }
+            }
+        }
+        return monthlyCents;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RenewalForecastBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.subscriptiontracker.controller;
+
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.service.AnalyticsCacheService;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AnalyticsControllerTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Test
+    void anUnchangedDashboardIsNotSentAgain() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99");
+
+        String eTag = dashboardETag(user);
+
+        mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void aWriteChangesTheETagAndTheBody() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99");
+        String before = dashboardETag(user);
+
+        fixtures.newSubscription(user, "Spotify", "9.99");
+
+        String after = mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeSubscriptions").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(after).isNotNull().isNotEqualTo(before);
+    }
+
+    @Test
+    void aCachedBodyKeepsTheETagOfTheVersionItWasBuiltFrom() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99");
+        String cached = dashboardETag(user);
+        String cachedBreakdown = mvc.perform(get("/api/analytics/categories/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // A write that has committed but whose cache eviction has not run yet.
+        jdbc.update("UPDATE user_spending_summary SET data_version = data_version + 1 WHERE user_id = ?", user.getId());
+
+        mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, cached));
+        mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, cached))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/analytics/categories/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, cachedBreakdown));
+
+        // Once the eviction runs, the client's copy is replaced.
+        analyticsCacheService.evictUser(user.getId());
+        String refreshed = mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, cached))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(refreshed).isNotEqualTo(cached);
+    }
+
+    @Test
+    void subscriptionListsAnswerConditionalRequests() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99");
+
+        String eTag = mvc.perform(get("/api/subscriptions/user/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/subscriptions/user/{userId}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        fixtures.newSubscription(user, "Spotify", "9.99");
+        mvc.perform(get("/api/subscriptions/user/{userId}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void everyTaggedEndpointSendsOneETagAndAnswersItWithA304() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99");
+        String[] paths = {
+                "/api/analytics/dashboard/{userId}", "/api/analytics/spending-trends/{userId}",
+                "/api/analytics/forecast/{userId}", "/api/analytics/categories/{userId}",
+                "/api/analytics/activity/{userId}", "/api/subscriptions/user/{userId}",
+                "/api/subscriptions/user/{userId}/active"
+        };
+
+        for (String path : paths) {
+            MockHttpServletResponse response = mvc.perform(get(path, user.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            assertThat(response.getHeaders(HttpHeaders.ETAG)).as(path).hasSize(1);
+            String eTag = response.getHeader(HttpHeaders.ETAG);
+
+            mvc.perform(get(path, user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().stringValues(HttpHeaders.ETAG, eTag));
+        }
+    }
+
+    private String dashboardETag(User user) throws Exception {
+        String eTag = mvc.perform(get("/api/analytics/dashboard/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+        return eTag;
+    }
+}
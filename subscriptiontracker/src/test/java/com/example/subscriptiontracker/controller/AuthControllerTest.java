@@ -0,0 +1,85 @@
+package com.example.subscriptiontracker.controller;
+
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.service.BulkMailDispatcher;
+import com.example.subscriptiontracker.service.ReminderSlot;
+import com.example.subscriptiontracker.service.RenewalReminderService;
+import com.example.subscriptiontracker.service.SubscriptionService;
+import com.example.subscriptiontracker.service.UserService;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "notifications.reminder.slot-minutes=15"
+})
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private RenewalReminderService renewalReminderService;
+
+    @Test
+    void reminderScheduleIsValidatedAndDecidesTheUsersSlot() throws Exception {
+        User user = fixtures.newUser();
+        LocalDate today = LocalDate.now(ZoneId.of("Asia/Tokyo"));
+        subscriptionService.createSubscription(user.getId(), "Netflix", "Premium",
+                new BigDecimal("15.99"), "Video", null, today.plusDays(1).atTime(12, 0));
+
+        updateSchedule(user.getId(), "{\"timeZone\":\"Asia/Tokyo\",\"sendTime\":\"07:40\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeZone").value("Asia/Tokyo"))
+                // Rounded down to a whole slot.
+                .andExpect(jsonPath("$.reminderSendTime").value("07:30:00"));
+
+        updateSchedule(user.getId(), "{\"timeZone\":\"Mars/Olympus\",\"sendTime\":\"07:40\"}")
+                .andExpect(status().isBadRequest());
+        updateSchedule(user.getId(), "{\"timeZone\":\"\"}")
+                .andExpect(status().isBadRequest());
+        updateSchedule(user.getId(), "{\"sendTime\":\"25:00\"}")
+                .andExpect(status().isBadRequest());
+        assertThat(userService.getUserById(user.getId()).getTimeZone()).isEqualTo("Asia/Tokyo");
+
+        assertThat(attempted(renewalReminderService.sendSlot(
+                ReminderSlot.of("UTC", LocalTime.of(7, 30), today), 3))).isZero();
+        assertThat(attempted(renewalReminderService.sendSlot(
+                ReminderSlot.of("Asia/Tokyo", LocalTime.of(7, 30), today), 3))).isEqualTo(1);
+    }
+
+    private ResultActions updateSchedule(Long userId, String body) throws Exception {
+        return mvc.perform(put("/api/auth/users/{userId}/reminder-schedule", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private static int attempted(BulkMailDispatcher.Result result) {
+        return result.sent() + result.failed() + result.skipped();
+    }
+}
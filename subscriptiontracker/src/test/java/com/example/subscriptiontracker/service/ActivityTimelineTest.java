@@ -0,0 +1,78 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.dto.RecentActivityItem;
+import com.example.subscriptiontracker.model.PaymentEvent;
+import com.example.subscriptiontracker.model.PriceHistory;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.PaymentEventRepository;
+import com.example.subscriptiontracker.repository.PriceHistoryRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ActivityTimelineTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+
+    @Autowired
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void pagesDoNotDropItemsSharingTheBoundaryTimestamp() {
+        User user = fixtures.newUser();
+        Subscription subscription = fixtures.newSubscription(user);
+
+        for (int i = 0; i < 3; i++) {
+            paymentEventRepository.save(PaymentEvent.builder()
+                    .subscription(subscription)
+                    .eventType("PAYMENT_SUCCESS")
+                    .amount(new BigDecimal("15.99"))
+                    .currency("USD")
+                    .build());
+            priceHistoryRepository.save(PriceHistory.builder()
+                    .subscription(subscription)
+                    .oldPrice(new BigDecimal("15.99"))
+                    .newPrice(new BigDecimal("16.99"))
+                    .build());
+        }
+        LocalDateTime sameInstant = LocalDateTime.now().withNano(0);
+        jdbc.update("UPDATE payment_events SET event_date = ? WHERE subscription_id = ?", sameInstant, subscription.getId());
+        jdbc.update("UPDATE price_history SET change_date = ? WHERE subscription_id = ?", sameInstant, subscription.getId());
+
+        List<RecentActivityItem> all = new ArrayList<>();
+        ActivityCursor cursor = null;
+        while (true) {
+            List<RecentActivityItem> page = analyticsService.getActivityTimeline(user.getId(), cursor, 4);
+            if (page.isEmpty()) {
+                break;
+            }
+            all.addAll(page);
+            cursor = ActivityCursor.parse(page.get(page.size() - 1).getCursor());
+        }
+
+        // Six events plus the price history entry recorded when the subscription was created.
+        assertThat(all).hasSize(7).allMatch(item -> sameInstant.equals(item.getTimestamp()));
+        assertThat(all).extracting(RecentActivityItem::getCursor).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.config.CacheConfig;
+import com.example.subscriptiontracker.dto.CacheStatsResponse;
+import com.example.subscriptiontracker.dto.DashboardResponse;
+import com.example.subscriptiontracker.dto.SpendingAnalyticsResponse;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.PriceHistoryRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class AnalyticsCacheTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private SubscriptionRepository subscriptionRepository;
+
+    @MockitoSpyBean
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Test
+    void aCachedDashboardAndBreakdownSkipTheRepositories() {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        DashboardResponse dashboard = analyticsService.generateDashboard(user.getId());
+        SpendingAnalyticsResponse breakdown = analyticsService.getCategoryBreakdown(user.getId());
+        clearInvocations(subscriptionRepository);
+        clearInvocations(priceHistoryRepository);
+
+        assertThat(analyticsService.generateDashboard(user.getId())).isSameAs(dashboard);
+        assertThat(analyticsService.getCategoryBreakdown(user.getId())).isSameAs(breakdown);
+
+        verify(subscriptionRepository, never()).countUpcomingRenewals(eq(user.getId()), any(), any());
+        verify(subscriptionRepository, never()).findActiveCategoryTotals(user.getId());
+        verify(priceHistoryRepository, never())
+                .findActivityTimeline(eq(user.getId()), any(), any(), anyInt(), anyLong(), anyInt());
+    }
+
+    @Test
+    void aWriteEvictsTheUsersAnalyticsOnlyOnceItCommits() {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        analyticsService.generateDashboard(user.getId());
+        analyticsService.getCategoryBreakdown(user.getId());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            fixtures.newSubscription(user, "Spotify", "9.99", 20);
+            status.setRollbackOnly();
+        });
+        assertThat(cached(CacheConfig.DASHBOARD_CACHE, user)).isNotNull();
+
+        transaction.executeWithoutResult(status -> {
+            fixtures.newSubscription(user, "Spotify", "9.99", 20);
+            // Evicting before the commit would let a concurrent read cache the old state again.
+            assertThat(cached(CacheConfig.DASHBOARD_CACHE, user)).isNotNull();
+        });
+        assertThat(cached(CacheConfig.DASHBOARD_CACHE, user)).isNull();
+        assertThat(cached(CacheConfig.CATEGORY_BREAKDOWN_CACHE, user)).isNull();
+
+        assertThat(analyticsService.generateDashboard(user.getId()).getActiveSubscriptions()).isEqualTo(2);
+    }
+
+    @Test
+    void theStatsCountHitsMissesAndInvalidations() {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        CacheStatsResponse before = stats(CacheConfig.DASHBOARD_CACHE);
+
+        analyticsService.generateDashboard(user.getId());
+        analyticsService.generateDashboard(user.getId());
+        analyticsService.generateDashboard(user.getId());
+        fixtures.newSubscription(user, "Spotify", "9.99", 20);
+        // Nothing is cached for the user any more, so this eviction is not counted.
+        analyticsCacheService.evictUser(user.getId());
+
+        CacheStatsResponse after = stats(CacheConfig.DASHBOARD_CACHE);
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(2);
+        assertThat(after.getInvalidationCount() - before.getInvalidationCount()).isEqualTo(1);
+    }
+
+    private Cache.ValueWrapper cached(String cacheName, User user) {
+        return cacheManager.getCache(cacheName).get(user.getId());
+    }
+
+    private CacheStatsResponse stats(String cacheName) {
+        return analyticsCacheService.getStats().stream()
+                .filter(stats -> stats.getCacheName().equals(cacheName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
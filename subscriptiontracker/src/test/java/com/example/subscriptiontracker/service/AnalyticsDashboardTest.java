@@ -0,0 +1,116 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.dto.DashboardResponse;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.PriceHistoryRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {
+        "analytics.dashboard.parallel=true",
+        "analytics.dashboard.activity-timeout=PT2S"
+})
+class AnalyticsDashboardTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @MockitoSpyBean
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @MockitoSpyBean
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void theParallelDashboardCombinesEverySubQuery() {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        fixtures.newSubscription(user, "Spotify", "9.99", 20);
+
+        DashboardResponse dashboard = analyticsService.generateDashboard(user.getId());
+
+        assertThat(dashboard.getActiveSubscriptions()).isEqualTo(2);
+        assertThat(dashboard.getTotalMonthlySpending()).isEqualByComparingTo(new BigDecimal("25.98"));
+        assertThat(dashboard.getMostExpensiveSubscription()).isEqualTo("Netflix");
+        assertThat(dashboard.getUpcomingRenewals()).isEqualTo(1);
+        // The price recorded when each subscription was created.
+        assertThat(dashboard.getRecentActivity()).hasSize(2);
+    }
+
+    @Test
+    void aSlowActivityQueryIsCancelledAndTheDashboardReturnedWithoutIt() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return List.of();
+        }).when(priceHistoryRepository).findActivityTimeline(eq(user.getId()), any(), any(), anyInt(), anyLong(), anyInt());
+
+        long started = System.nanoTime();
+        DashboardResponse dashboard = analyticsService.generateDashboard(user.getId());
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5_000);
+        assertThat(dashboard.getRecentActivity()).isEmpty();
+        assertThat(dashboard.isPartial()).isTrue();
+        assertThat(dashboard.getActiveSubscriptions()).isEqualTo(1);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The partial dashboard was not cached, so the next request gets the activity.
+        reset(priceHistoryRepository);
+        DashboardResponse next = analyticsService.generateDashboard(user.getId());
+        assertThat(next.isPartial()).isFalse();
+        assertThat(next.getRecentActivity()).hasSize(1);
+    }
+
+    @Test
+    void aFailedRequiredQueryCancelsTheOthers() throws Exception {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "15.99", 3);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return List.of();
+        }).when(priceHistoryRepository).findActivityTimeline(eq(user.getId()), any(), any(), anyInt(), anyLong(), anyInt());
+        doAnswer(invocation -> {
+            // Fail only once the activity query is running, so there is something to cancel.
+            started.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("connection reset");
+        }).when(subscriptionRepository).countUpcomingRenewals(eq(user.getId()), any(), any());
+
+        assertThatThrownBy(() -> analyticsService.generateDashboard(user.getId()))
+                .hasMessageContaining("Dashboard query failed");
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
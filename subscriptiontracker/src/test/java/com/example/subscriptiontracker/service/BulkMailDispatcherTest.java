@@ -0,0 +1,95 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.support.SmtpStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkMailDispatcherTest {
+
+    private SmtpStub smtp;
+    private JavaMailSenderImpl mailSender;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        smtp = SmtpStub.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(8);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdown();
+        smtp.close();
+    }
+
+    @Test
+    void sendsEveryMessageWithoutExceedingTheRate() {
+        BulkMailDispatcher dispatcher = new BulkMailDispatcher(new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 10, 4), executor, 40, 1);
+
+        BulkMailDispatcher.Result result = dispatcher.dispatch(messages(41));
+
+        assertThat(result.sent()).isEqualTo(41);
+        assertThat(result.failed()).isZero();
+        assertThat(smtp.getMessages()).hasSize(41);
+        // One token up front, then 40 more at 40 per second.
+        assertThat(result.durationMs()).isGreaterThanOrEqualTo(950);
+    }
+
+    @Test
+    void countsRejectedMessagesAsFailures() {
+        BulkMailDispatcher dispatcher = new BulkMailDispatcher(new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 10, 4), executor, 0, 1);
+        smtp.rejectNext(3);
+
+        BulkMailDispatcher.Result result = dispatcher.dispatch(messages(10));
+
+        assertThat(result.sent()).isEqualTo(7);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(smtp.getMessages()).hasSize(7);
+    }
+
+    @Test
+    void skipsQueuedMessagesOnceStopped() throws Exception {
+        BulkMailDispatcher dispatcher = new BulkMailDispatcher(new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 10, 4), executor, 20, 1);
+
+        CompletableFuture<BulkMailDispatcher.Result> running =
+                CompletableFuture.supplyAsync(() -> dispatcher.dispatch(messages(200)));
+        Thread.sleep(300);
+        dispatcher.stop();
+        BulkMailDispatcher.Result result = running.get();
+
+        assertThat(result.skipped()).isGreaterThan(150);
+        assertThat(result.sent() + result.failed() + result.skipped()).isEqualTo(200);
+        assertThat(smtp.getMessages()).hasSize(result.sent());
+    }
+
+    private List<SimpleMailMessage> messages(int count) {
+        List<SimpleMailMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo("user" + i + "@example.com");
+            message.setFrom("noreply@subscriptiontracker.com");
+            message.setSubject("Reminder " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.dto.CategorySpendingItem;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class CategoryBreakdownTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void activeSubscriptionsAreTotalledPerCategoryWithUncategorisedOnesUnderOther() {
+        User user = fixtures.newUser();
+        subscribe(user, "Netflix", "15.99", "Video");
+        subscribe(user, "Hulu", "7.99", "Video");
+        subscribe(user, "Spotify", "9.99", "Music");
+        subscribe(user, "Gym", "30.00", null);
+        subscribe(user, "iCloud", "2.99", null);
+        subscribe(user, "Misc", "1.01", "Other");
+        Subscription cancelled = subscribe(user, "Disney+", "8.99", "Video");
+        subscriptionService.cancelSubscription(cancelled.getId());
+
+        List<CategorySpendingItem> breakdown = analyticsService.getCategoryBreakdown(user.getId()).getCategoryData();
+
+        assertThat(breakdown).extracting(CategorySpendingItem::getCategory)
+                .containsExactlyInAnyOrder("Video", "Music", "Other");
+        assertThat(item(breakdown, "Video").getTotalSpending()).isEqualByComparingTo("23.98");
+        assertThat(item(breakdown, "Video").getSubscriptionCount()).isEqualTo(2);
+        // Null categories and an explicit "Other" share one bucket.
+        assertThat(item(breakdown, "Other").getTotalSpending()).isEqualByComparingTo("34.00");
+        assertThat(item(breakdown, "Other").getSubscriptionCount()).isEqualTo(3);
+        assertThat(breakdown.stream().mapToDouble(CategorySpendingItem::getPercentage).sum())
+                .isCloseTo(100.0, within(0.1));
+    }
+
+    @Test
+    void theGroupedQueryMatchesGroupingTheEntitiesInMemory() {
+        User user = fixtures.newUser();
+        String[] categories = {"Video", "Music", null, "News", null, "Video", "Cloud", "Music"};
+        for (int i = 0; i < 40; i++) {
+            String price = BigDecimal.valueOf(199 + i * 37 % 900, 2).toPlainString();
+            subscribe(user, "Service " + i, price, categories[i % categories.length]);
+        }
+        List<Subscription> all = subscriptionRepository.findByUserIdAndStatusNot(user.getId(), SubscriptionStatus.CANCELLED);
+        for (int i = 0; i < all.size(); i += 5) {
+            subscriptionService.cancelSubscription(all.get(i).getId());
+        }
+
+        // The grouping the breakdown did before it moved into the query.
+        Map<String, BigDecimal> expectedTotals = new HashMap<>();
+        Map<String, Integer> expectedCounts = new HashMap<>();
+        for (Subscription subscription : subscriptionRepository.findByUserIdAndStatus(user.getId(), SubscriptionStatus.ACTIVE)) {
+            String category = subscription.getCategory() != null ? subscription.getCategory() : "Other";
+            expectedTotals.merge(category, subscription.getPrice(), BigDecimal::add);
+            expectedCounts.merge(category, 1, Integer::sum);
+        }
+
+        List<CategorySpendingItem> breakdown = analyticsService.getCategoryBreakdown(user.getId()).getCategoryData();
+
+        assertThat(breakdown).extracting(CategorySpendingItem::getCategory)
+                .containsExactlyInAnyOrderElementsOf(expectedTotals.keySet());
+        for (CategorySpendingItem item : breakdown) {
+            assertThat(item.getTotalSpending()).isEqualByComparingTo(expectedTotals.get(item.getCategory()));
+            assertThat(item.getSubscriptionCount()).isEqualTo(expectedCounts.get(item.getCategory()));
+        }
+    }
+
+    private Subscription subscribe(User user, String name, String price, String category) {
+        return subscriptionService.createSubscription(user.getId(), name, "Premium", new BigDecimal(price),
+                category, null, LocalDateTime.now().plusDays(10));
+    }
+
+    private static CategorySpendingItem item(List<CategorySpendingItem> breakdown, String category) {
+        return breakdown.stream()
+                .filter(item -> category.equals(item.getCategory()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.subscriptiontracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+class HyperLogLogTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void smallSetsAreCountedExactlyUntilTheySwitchToRegisters() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (long id = 1; id <= 128; id++) {
+            sketch.add(id);
+            sketch.add(id);
+        }
+        assertThat(sketch.estimate()).isEqualTo(128);
+
+        // The 129th value switches to registers; the estimate stays close at this size.
+        sketch.add(129);
+        assertThat(sketch.estimate()).isBetween(125L, 133L);
+    }
+
+    @Test
+    void largeSetsStayWithinTheExpectedError() {
+        // At precision 12 the standard error is 1.04 / sqrt(4096), about 1.6%.
+        for (int cardinality : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (long id = 1; id <= cardinality; id++) {
+                sketch.add(id);
+            }
+            assertThat((double) sketch.estimate()).isCloseTo(cardinality, withPercentage(5));
+        }
+    }
+
+    @Test
+    void mergeIsCommutativeAndMatchesASingleSketch() {
+        for (int run = 0; run < 200; run++) {
+            HyperLogLog single = new HyperLogLog(12);
+            HyperLogLog[] left = {new HyperLogLog(12), new HyperLogLog(12)};
+            HyperLogLog[] right = {new HyperLogLog(12), new HyperLogLog(12)};
+
+            // Sizes on both sides of the switch to registers, with overlapping values.
+            int leftSize = random.nextInt(400);
+            int rightSize = random.nextInt(400);
+            for (int i = 0; i < leftSize; i++) {
+                long value = random.nextInt(600);
+                single.add(value);
+                left[0].add(value);
+                left[1].add(value);
+            }
+            for (int i = 0; i < rightSize; i++) {
+                long value = random.nextInt(600);
+                single.add(value);
+                right[0].add(value);
+                right[1].add(value);
+            }
+
+            left[0].merge(right[0]);
+            right[1].merge(left[1]);
+
+            assertThat(left[0].estimate()).isEqualTo(right[1].estimate()).isEqualTo(single.estimate());
+        }
+    }
+
+    @Test
+    void sketchesOfDifferentPrecisionCannotBeMerged() {
+        assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.support.SmtpStub;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailBatchSenderTest {
+
+    private SmtpStub smtp;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() {
+        smtp = SmtpStub.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    @Test
+    void batchModeOpensOneConnectionPerBatch() {
+        MailBatchSender sender = new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 5, 1);
+        List<SimpleMailMessage> messages = messages(12);
+        smtp.rejectNext(2);
+
+        Map<Integer, Exception> failures = sender.send(messages);
+
+        assertThat(failures).containsOnlyKeys(0, 1);
+        assertThat(smtp.getMessages()).hasSize(10);
+        assertThat(smtp.getConnectionCount()).isEqualTo(3);
+    }
+
+    @Test
+    void equalMessagesAreReportedByTheirOwnPosition() {
+        MailBatchSender sender = new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 5, 1);
+        SimpleMailMessage message = messages(1).get(0);
+        List<SimpleMailMessage> messages = List.of(message, new SimpleMailMessage(message), new SimpleMailMessage(message));
+        smtp.rejectNext(1);
+
+        assertThat(sender.send(messages)).containsOnlyKeys(0);
+        assertThat(smtp.getMessages()).hasSize(2);
+    }
+
+    @Test
+    void singleModeOpensOneConnectionPerMessage() {
+        MailBatchSender sender = new MailBatchSender(mailSender, MailBatchSender.Mode.SINGLE, 5, 1);
+
+        assertThat(sender.send(messages(4))).isEmpty();
+        assertThat(smtp.getConnectionCount()).isEqualTo(4);
+    }
+
+    @Test
+    void pooledModeKeepsConnectionsAcrossCallsAndRejections() {
+        MailBatchSender sender = new MailBatchSender(mailSender, MailBatchSender.Mode.POOLED, 5, 2);
+        try {
+            assertThat(sender.send(messages(12))).isEmpty();
+
+            List<SimpleMailMessage> next = messages(3);
+            smtp.rejectNext(1);
+            assertThat(sender.send(next)).containsOnlyKeys(0);
+
+            assertThat(sender.send(messages(3))).isEmpty();
+            assertThat(smtp.getMessages()).hasSize(17);
+            assertThat(smtp.getConnectionCount()).isEqualTo(1);
+        } finally {
+            sender.close();
+        }
+    }
+
+    @Test
+    void sendsHtmlAlternativeAsMultipart() throws Exception {
+        MailBatchSender sender = new MailBatchSender(mailSender, MailBatchSender.Mode.BATCH, 5, 1);
+        MultipartMailMessage message = new MultipartMailMessage();
+        message.setTo("user@example.com");
+        message.setFrom("noreply@subscriptiontracker.com");
+        message.setSubject("Reminder");
+        message.setText("Plain body");
+        message.setHtmlText("<p>HTML body</p>");
+
+        assertThat(sender.send(List.of(message))).isEmpty();
+
+        MimeMessage received = smtp.getMessages().get(0);
+        assertThat(received.getSubject()).isEqualTo("Reminder");
+        assertThat(received.isMimeType("multipart/*")).isTrue();
+        MimeMultipart alternative = findAlternative((MimeMultipart) received.getContent());
+        assertThat(alternative).isNotNull();
+        assertThat(alternative.getBodyPart(0).getContent()).isEqualTo("Plain body");
+        assertThat(alternative.getBodyPart(1).getContent()).isEqualTo("<p>HTML body</p>");
+    }
+
+    private MimeMultipart findAlternative(MimeMultipart multipart) throws Exception {
+        if (multipart.getContentType().startsWith("multipart/alternative")) {
+            return multipart;
+        }
+        for (int i = 0; i < multipart.getCount(); i++) {
+            if (multipart.getBodyPart(i).getContent() instanceof MimeMultipart nested) {
+                MimeMultipart found = findAlternative(nested);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<SimpleMailMessage> messages(int count) {
+        List<SimpleMailMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo("user" + i + "@example.com");
+            message.setFrom("noreply@subscriptiontracker.com");
+            message.setSubject("Reminder " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
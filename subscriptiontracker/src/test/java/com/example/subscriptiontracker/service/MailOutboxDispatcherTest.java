@@ -0,0 +1,169 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import com.example.subscriptiontracker.model.MailStatus;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.repository.MailOutboxRepository;
+import com.example.subscriptiontracker.support.SmtpStub;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "mail.outbox.initial-backoff=PT0S",
+        "mail.outbox.max-attempts=2",
+        "mail.outbox.batch-size=2"
+})
+class MailOutboxDispatcherTest {
+
+    private static final SmtpStub smtp = SmtpStub.start();
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::getPort);
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private MailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private MailOutboxService outboxService;
+
+    @Autowired
+    private MailOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterAll
+    static void stopSmtp() throws Exception {
+        smtp.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        smtp.reset();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void cancellationEmailIsQueuedWithTheChangeAndDeliveredByTheDispatcher() throws Exception {
+        Subscription subscription = fixtures.newSubscription(fixtures.newUser());
+
+        subscriptionService.cancelSubscription(subscription.getId());
+
+        assertThat(smtp.getMessages()).isEmpty();
+        assertThat(outboxRepository.countByStatus(MailStatus.PENDING)).isEqualTo(1);
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(1);
+
+        assertThat(smtp.getMessages()).hasSize(1);
+        assertThat(smtp.getMessages().get(0).getSubject()).isEqualTo("✅ Subscription Cancelled - Netflix");
+        assertThat((String) smtp.getMessages().get(0).getContent()).contains("Your Netflix subscription has been successfully cancelled.");
+        MailOutbox mail = outboxRepository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.SENT);
+        assertThat(mail.getSentAt()).isNotNull();
+    }
+
+    @Test
+    void failedDeliveriesAreRetriedAndThenDeadLettered() {
+        subscriptionService.cancelSubscription(fixtures.newSubscription(fixtures.newUser()).getId());
+        smtp.rejectNext(2);
+
+        assertThat(dispatcher.dispatchDue()).isZero();
+        MailOutbox retrying = outboxRepository.findAll().get(0);
+        assertThat(retrying.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(retrying.getAttempts()).isEqualTo(1);
+        assertThat(retrying.getLastError()).isNotBlank();
+
+        assertThat(dispatcher.dispatchDue()).isZero();
+        List<MailOutbox> mails = outboxRepository.findAll();
+        assertThat(mails.get(0).getStatus()).isEqualTo(MailStatus.DEAD);
+        assertThat(mails.get(0).getAttempts()).isEqualTo(2);
+
+        assertThat(dispatcher.dispatchDue()).isZero();
+        assertThat(smtp.getMessages()).isEmpty();
+    }
+
+    @Test
+    void aBatchOfExpiredLeasesThatAreDeadLetteredDoesNotStopTheDispatch() {
+        LocalDateTime expired = LocalDateTime.now().minusHours(1);
+        store(MailStatus.SENDING, 2, expired);
+        store(MailStatus.SENDING, 2, expired);
+        subscriptionService.cancelSubscription(fixtures.newSubscription(fixtures.newUser()).getId());
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(1);
+
+        assertThat(outboxRepository.countByStatus(MailStatus.DEAD)).isEqualTo(2);
+        assertThat(outboxRepository.countByStatus(MailStatus.SENT)).isEqualTo(1);
+    }
+
+    @Test
+    void aBatchWhoseLeaseWasTakenOverIsNotMarkedSent() {
+        store(MailStatus.PENDING, 0, LocalDateTime.now());
+        MailOutbox other = store(MailStatus.PENDING, 0, LocalDateTime.now());
+        LocalDateTime claimedAt = LocalDateTime.now();
+
+        List<MailOutbox> batch = outboxService.claimDue(2, claimedAt);
+        // The lease allows for sending every message of the batch.
+        assertThat(batch).allSatisfy(mail ->
+                assertThat(mail.getNextAttemptAt()).isAfterOrEqualTo(claimedAt.plusMinutes(5).plusSeconds(60)));
+
+        // The lease runs out mid-send and another dispatcher claims one of the rows again.
+        jdbc.update("UPDATE mail_outbox SET next_attempt_at = ? WHERE id = ?", claimedAt.minusMinutes(1), other.getId());
+        assertThat(outboxService.claimDue(2, LocalDateTime.now())).extracting(MailOutbox::getId)
+                .containsExactly(other.getId());
+        outboxService.recordResults(batch, Map.of());
+
+        assertThat(outboxRepository.countByStatus(MailStatus.SENT)).isEqualTo(1);
+        MailOutbox reclaimed = outboxRepository.findById(other.getId()).orElseThrow();
+        assertThat(reclaimed.getStatus()).isEqualTo(MailStatus.SENDING);
+        assertThat(reclaimed.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void sentAndDeadEmailsArePrunedAfterTheRetentionPeriod() {
+        MailOutbox oldSent = store(MailStatus.SENT, 1, LocalDateTime.now());
+        MailOutbox oldDead = store(MailStatus.DEAD, 2, LocalDateTime.now());
+        MailOutbox oldPending = store(MailStatus.PENDING, 0, LocalDateTime.now().plusDays(1));
+        MailOutbox recentSent = store(MailStatus.SENT, 1, LocalDateTime.now());
+        jdbc.update("UPDATE mail_outbox SET created_at = ? WHERE id IN (?, ?, ?)", LocalDateTime.now().minusDays(15),
+                oldSent.getId(), oldDead.getId(), oldPending.getId());
+
+        assertThat(outboxService.prune(LocalDateTime.now())).isEqualTo(2);
+
+        assertThat(outboxRepository.findAll()).extracting(MailOutbox::getId)
+                .containsExactlyInAnyOrder(oldPending.getId(), recentSent.getId());
+    }
+
+    private MailOutbox store(MailStatus status, int attempts, LocalDateTime nextAttemptAt) {
+        return outboxRepository.save(MailOutbox.builder()
+                .recipient("user@example.com")
+                .sender("noreply@example.com")
+                .subject("Test")
+                .body("Test")
+                .status(status)
+                .attempts(attempts)
+                .nextAttemptAt(nextAttemptAt)
+                .build());
+    }
+}
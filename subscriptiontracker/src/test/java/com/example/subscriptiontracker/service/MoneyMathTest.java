@@ -0,0 +1,111 @@
+package com.example.subscriptiontracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyMathTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void sumsMatchBigDecimalReduce() {
+        for (int run = 0; run < 1_000; run++) {
+            List<BigDecimal> prices = randomPrices(random.nextInt(200));
+
+            BigDecimal expected = prices.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            long cents = 0;
+            for (BigDecimal price : prices) {
+                cents += MoneyMath.toCents(price);
+            }
+
+            assertThat(MoneyMath.toAmount(cents)).isEqualByComparingTo(expected);
+            assertThat(MoneyMath.toAmount(cents * 12))
+                    .isEqualByComparingTo(expected.multiply(BigDecimal.valueOf(12)));
+        }
+    }
+
+    @Test
+    void averagesMatchBigDecimalDivide() {
+        for (int run = 0; run < 10_000; run++) {
+            BigDecimal total = randomPrice().multiply(BigDecimal.valueOf(random.nextInt(50) + 1));
+            int count = random.nextInt(40) + 1;
+
+            BigDecimal expected = total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+
+            assertThat(MoneyMath.toAmount(MoneyMath.average(MoneyMath.toCents(total), count)))
+                    .isEqualTo(expected);
+        }
+        assertThat(MoneyMath.average(0, 0)).isZero();
+    }
+
+    @Test
+    void percentagesMatchBigDecimalPath() {
+        for (int run = 0; run < 10_000; run++) {
+            BigDecimal part = randomPrice();
+            BigDecimal total = part.add(randomPrice());
+
+            double expected = part.divide(total, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100)).doubleValue();
+
+            assertThat(MoneyMath.percentage(MoneyMath.toCents(part), MoneyMath.toCents(total)))
+                    .isEqualTo(expected);
+        }
+        assertThat(MoneyMath.percentage(500, 0)).isEqualTo(0.0);
+    }
+
+    @Test
+    void trendPercentagesMatchBigDecimalPathInBothDirections() {
+        for (int run = 0; run < 10_000; run++) {
+            BigDecimal first = randomPrice();
+            BigDecimal last = randomPrice();
+
+            double expected = last.subtract(first)
+                    .divide(first, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100))
+                    .doubleValue();
+
+            assertThat(MoneyMath.percentageChange(MoneyMath.toCents(first), MoneyMath.toCents(last)))
+                    .isEqualTo(expected);
+        }
+        assertThat(MoneyMath.percentageChange(0, 1999)).isEqualTo(0.0);
+    }
+
+    @Test
+    void roundsHalfAwayFromZeroOnExactTies() {
+        assertThat(MoneyMath.divideHalfUp(125, 1000)).isEqualTo(0);
+        assertThat(MoneyMath.divideHalfUp(5, 10)).isEqualTo(1);
+        assertThat(MoneyMath.divideHalfUp(-5, 10)).isEqualTo(-1);
+        assertThat(MoneyMath.divideHalfUp(5, -10)).isEqualTo(-1);
+        assertThat(MoneyMath.divideHalfUp(-15, 10)).isEqualTo(-2);
+        assertThat(MoneyMath.divideHalfUp(14, 10)).isEqualTo(1);
+    }
+
+    @Test
+    void convertsAmountsWithExtraScaleLikeSetScale() {
+        assertThat(MoneyMath.toCents(new BigDecimal("9.995"))).isEqualTo(1000);
+        assertThat(MoneyMath.toCents(new BigDecimal("9.994"))).isEqualTo(999);
+        assertThat(MoneyMath.toCents(new BigDecimal("-1.005"))).isEqualTo(-101);
+        assertThat(MoneyMath.toCents(BigDecimal.TEN)).isEqualTo(1000);
+        assertThat(MoneyMath.toCents(null)).isZero();
+        assertThat(MoneyMath.toAmount(1999)).isEqualTo(new BigDecimal("19.99"));
+    }
+
+    private List<BigDecimal> randomPrices(int count) {
+        List<BigDecimal> prices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            prices.add(randomPrice());
+        }
+        return prices;
+    }
+
+    private BigDecimal randomPrice() {
+        return BigDecimal.valueOf(random.nextInt(100_000) + 1, 2);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.MailOutbox;
+import com.example.subscriptiontracker.model.MailStatus;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.MailOutboxRepository;
+import com.example.subscriptiontracker.repository.SentReminderRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "notifications.digest.enabled=true",
+        "notifications.digest.window=PT15M",
+        "notifications.digest.max-length=2000",
+        "notifications.digest.max-flush-attempts=3"
+})
+class NotificationDigestServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationDigestService digestService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private MailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private NotificationTemplates templates;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RenewalReminderService renewalReminderService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SentReminderRepository sentReminderRepository;
+
+    @BeforeEach
+    void setUp() {
+        digestService.flushAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void notificationsWithinTheWindowAreSentAsOneEmailPerUser() {
+        User reader = fixtures.newUser();
+        User other = fixtures.newUser();
+        Subscription netflix = fixtures.newSubscription(reader, "Netflix", "15.99");
+        Subscription spotify = fixtures.newSubscription(other, "Spotify", "9.99");
+
+        subscriptionService.handlePriceChangeFromWebhook(netflix.getStripeSubscriptionId(), new BigDecimal("17.99"));
+        pay(netflix, "PAYMENT_FAILED");
+        // The same failure twice within the window only needs telling once.
+        pay(netflix, "PAYMENT_FAILED");
+        pay(spotify, "PAYMENT_FAILED");
+
+        assertThat(digestService.flushDue(Instant.now())).isZero();
+        assertThat(outboxRepository.countByStatus(MailStatus.PENDING)).isZero();
+        assertThat(outboxRepository.countByStatus(MailStatus.HELD)).isEqualTo(4);
+
+        assertThat(digestService.flushDue(Instant.now().plus(16, ChronoUnit.MINUTES))).isEqualTo(2);
+        assertThat(digestService.getPendingUsers()).isZero();
+
+        MailOutbox digest = mailTo(reader);
+        assertThat(digest.getSubject()).isEqualTo("🔔 2 Subscription Updates");
+        assertThat(digest.getBody())
+                .startsWith("Hi Test User,")
+                .contains("━━━ ⚠️ Price Change Alert - Netflix ━━━")
+                .contains("New Price: $17.99 USD")
+                .containsOnlyOnce("Best regards,")
+                .containsOnlyOnce("━━━ ❌ Payment Failed - Netflix ━━━");
+
+        // A lone notification goes out as it would without digest mode.
+        assertThat(mailTo(other).getSubject()).isEqualTo("❌ Payment Failed - Spotify");
+    }
+
+    @Test
+    void heldNotificationsOutliveTheServiceAndMergeWithRemindersInMemory() {
+        User reader = fixtures.newUser();
+        Subscription netflix = fixtures.newSubscription(reader, "Netflix", "15.99");
+        pay(netflix, "PAYMENT_FAILED");
+        subscriptionService.handlePriceChangeFromWebhook(netflix.getStripeSubscriptionId(), new BigDecimal("17.99"));
+
+        // A new instance has none of the old one's memory, as after a restart.
+        NotificationDigestService restarted = new NotificationDigestService(mailOutboxService, templates,
+                transactionManager, true, Duration.ofMinutes(15), 20, 2000, 3);
+        AtomicInteger recorded = new AtomicInteger();
+        restarted.add(reader.getId(), reader.getName(), new NotificationDigestService.Item(
+                "renewal-reminder", message(reader.getEmail(), "Renewal Reminder"), recorded::incrementAndGet));
+
+        assertThat(restarted.flushAll()).isEqualTo(1);
+
+        assertThat(outboxRepository.countByStatus(MailStatus.HELD)).isZero();
+        assertThat(recorded).hasValue(1);
+        MailOutbox digest = mailTo(reader);
+        assertThat(digest.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(digest.getSubject()).isEqualTo("🔔 3 Subscription Updates");
+        assertThat(digest.getBody())
+                .contains("━━━ ❌ Payment Failed - Netflix ━━━")
+                .contains("New Price: $17.99 USD")
+                .contains("━━━ Renewal Reminder ━━━");
+    }
+
+    @Test
+    void remindersAreHeldInTheOutboxBeforeTheirSlotIsCheckpointed() {
+        ReminderSlot slot = ReminderSlot.of("Asia/Kathmandu", LocalTime.of(5, 45), LocalDate.now());
+        User reader = userService.updateReminderSchedule(fixtures.newUser().getId(), slot.zone(), slot.sendTime());
+        Subscription netflix = fixtures.newSubscription(reader, "Netflix", "15.99", 1);
+        LocalDate renewal = netflix.getNextRenewalDate().toLocalDate();
+
+        assertThat(renewalReminderService.sendSlot(slot, 3).sent()).isEqualTo(1);
+        assertThat(outboxRepository.countByStatus(MailStatus.HELD)).isEqualTo(1);
+        // In the ledger with it, so a resumed run does not hold it again.
+        assertThat(sentReminderRepository.findSent(List.of(netflix.getId()), renewal, renewal)).hasSize(1);
+
+        // Nothing was kept in memory, so a restarted instance still sends it.
+        NotificationDigestService restarted = new NotificationDigestService(mailOutboxService, templates,
+                transactionManager, true, Duration.ofMinutes(15), 20, 2000, 3);
+        assertThat(restarted.flushAll()).isEqualTo(1);
+        assertThat(mailTo(reader).getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mailTo(reader).getSubject()).contains("Netflix");
+    }
+
+    @Test
+    void longDigestsAreSplitOverSeveralEmails() {
+        User reader = fixtures.newUser();
+        for (int i = 0; i < 5; i++) {
+            digestService.add(reader.getId(), reader.getName(),
+                    new NotificationDigestService.Item(null, message(reader.getEmail(), "Notice " + i), null));
+        }
+
+        assertThat(digestService.flushAll()).isEqualTo(2);
+
+        assertThat(outboxRepository.findAll()).extracting(MailOutbox::getSubject)
+                .containsExactlyInAnyOrder("🔔 3 Subscription Updates", "🔔 2 Subscription Updates");
+    }
+
+    @Test
+    void aDigestThatKeepsFailingIsQueuedAsSeparateNotifications() {
+        User reader = fixtures.newUser();
+        // Without a recipient neither this notification nor a digest led by it can be queued.
+        digestService.add(reader.getId(), reader.getName(), new NotificationDigestService.Item(null, message(null, "Broken"), null));
+        digestService.add(reader.getId(), reader.getName(), new NotificationDigestService.Item(null, message(reader.getEmail(), "First"), null));
+        digestService.add(reader.getId(), reader.getName(), new NotificationDigestService.Item(null, message(reader.getEmail(), "Second"), null));
+
+        assertThat(digestService.flushAll()).isZero();
+        assertThat(digestService.flushAll()).isZero();
+        assertThat(digestService.getPendingUsers()).isEqualTo(1);
+
+        assertThat(digestService.flushAll()).isEqualTo(2);
+        assertThat(digestService.getPendingUsers()).isZero();
+        assertThat(outboxRepository.findAll()).extracting(MailOutbox::getSubject)
+                .containsExactlyInAnyOrder("First", "Second");
+    }
+
+    private static SimpleMailMessage message(String to, String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        if (to != null) {
+            message.setTo(to);
+        }
+        message.setFrom("noreply@example.com");
+        message.setSubject(subject);
+        message.setText("Hi Test User,\n\n" + "x".repeat(600) + "\n\nBest regards,\nSubscription Tracker Team");
+        return message;
+    }
+
+    private MailOutbox mailTo(User user) {
+        List<MailOutbox> mails = outboxRepository.findAll().stream()
+                .filter(mail -> mail.getRecipient().equals(user.getEmail()))
+                .toList();
+        assertThat(mails).hasSize(1);
+        return mails.get(0);
+    }
+
+    private void pay(Subscription subscription, String eventType) {
+        subscriptionService.processPaymentEvent(subscription.getStripeSubscriptionId(), eventType,
+                subscription.getPrice(), "USD", UUID.randomUUID().toString());
+    }
+
+
+}
@@ -0,0 +1,255 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compares every template with the {@code String.format} body it replaced, kept here verbatim.
+ */
+class NotificationTemplatesTest {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final String[] NAMES = {"Alice", "Bob O'Neil", "Zoë <admin>", "李雷", "A & B", null};
+    private static final String[] PLANS = {"Premium", "Family & Friends", null};
+    private static final String[] CARDS = {"Chase Sapphire", "Amex 1004", null};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP"};
+
+    private final NotificationTemplates templates = new NotificationTemplates();
+    private final Random random = new Random(11);
+
+    @Test
+    void renewalReminderMatchesStringFormat() {
+        for (int run = 0; run < 2_000; run++) {
+            User user = randomUser();
+            Subscription subscription = randomSubscription(user);
+            int days = random.nextInt(8);
+
+            NotificationTemplates.Rendered rendered = templates.renewalReminder(user, subscription, days);
+
+            assertThat(rendered.subject()).isEqualTo("🔔 Subscription Renewal Reminder - " + subscription.getName());
+            assertThat(rendered.text()).isEqualTo(legacyRenewalReminder(user, subscription, days));
+            assertThat(rendered.html()).contains("<html>");
+        }
+    }
+
+    @Test
+    void priceChangeMatchesStringFormat() {
+        for (int run = 0; run < 2_000; run++) {
+            User user = randomUser();
+            Subscription subscription = randomSubscription(user);
+            BigDecimal oldPrice = randomPrice();
+            BigDecimal newPrice = randomPrice();
+
+            NotificationTemplates.Rendered rendered = templates.priceChange(user, subscription, oldPrice, newPrice);
+
+            assertThat(rendered.subject()).isEqualTo("⚠️ Price Change Alert - " + subscription.getName());
+            assertThat(rendered.text()).isEqualTo(legacyPriceChange(user, subscription, oldPrice, newPrice));
+            assertThat(rendered.html()).isNull();
+        }
+    }
+
+    @Test
+    void paymentFailedMatchesStringFormat() {
+        for (int run = 0; run < 2_000; run++) {
+            User user = randomUser();
+            Subscription subscription = randomSubscription(user);
+
+            NotificationTemplates.Rendered rendered = templates.paymentFailed(user, subscription);
+
+            assertThat(rendered.subject()).isEqualTo("❌ Payment Failed - " + subscription.getName());
+            assertThat(rendered.text()).isEqualTo(legacyPaymentFailed(user, subscription));
+        }
+    }
+
+    @Test
+    void cancellationMatchesStringFormat() {
+        for (int run = 0; run < 2_000; run++) {
+            User user = randomUser();
+            Subscription subscription = randomSubscription(user);
+            LocalDate today = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(800));
+
+            NotificationTemplates.Rendered rendered = templates.cancellation(user, subscription, today);
+
+            assertThat(rendered.subject()).isEqualTo("✅ Subscription Cancelled - " + subscription.getName());
+            assertThat(rendered.text()).isEqualTo(legacyCancellation(user, subscription, today));
+        }
+    }
+
+    @Test
+    void htmlPartEscapesValues() {
+        User user = User.builder().name("<script>alert('x')</script>").email("x@example.com").build();
+        Subscription subscription = randomSubscription(user);
+        subscription.setName("Tom & Jerry \"Plus\"");
+
+        String html = templates.renewalReminder(user, subscription, 3).html();
+
+        assertThat(html).contains("Hi &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;,");
+        assertThat(html).contains("<strong>Tom &amp; Jerry &quot;Plus&quot;</strong>");
+        assertThat(html).doesNotContain("<script>");
+    }
+
+    @Test
+    void rejectsUnknownAndUnclosedPlaceholders() {
+        assertThatThrownBy(() -> EmailTemplate.compile("Hi {{nmae}}", false, "name"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{nmae}}");
+        assertThatThrownBy(() -> EmailTemplate.compile("Hi {{name", false, "name"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        StringBuilder out = new StringBuilder();
+        EmailTemplate.compile("{{b}}-{{a}}-{{b}}", false, "a", "b").renderTo(out, "1", "2");
+        assertThat(out).hasToString("2-1-2");
+    }
+
+    private User randomUser() {
+        return User.builder()
+                .name(NAMES[random.nextInt(NAMES.length)])
+                .email("user" + random.nextInt(1_000) + "@example.com")
+                .build();
+    }
+
+    private Subscription randomSubscription(User user) {
+        return Subscription.builder()
+                .name("Service " + random.nextInt(100))
+                .planName(PLANS[random.nextInt(PLANS.length)])
+                .price(randomPrice())
+                .currency(CURRENCIES[random.nextInt(CURRENCIES.length)])
+                .card(CARDS[random.nextInt(CARDS.length)])
+                .nextRenewalDate(LocalDateTime.of(2025, 1, 1, 9, 30).plusDays(random.nextInt(800)))
+                .user(user)
+                .build();
+    }
+
+    private BigDecimal randomPrice() {
+        // Scales 0 to 4 exercise the %.2f rounding, including half-up ties like 9.995.
+        return BigDecimal.valueOf(random.nextInt(2_000_000) - 100_000, random.nextInt(5));
+    }
+
+    private static String legacyRenewalReminder(User user, Subscription subscription, int daysUntilRenewal) {
+        String renewalText = daysUntilRenewal == 0 ? "today" :
+                daysUntilRenewal == 1 ? "tomorrow" : daysUntilRenewal + " days";
+
+        return String.format(
+                "Hi %s,\n\n" +
+                        "Your %s subscription (%s) will renew in %s.\n\n" +
+                        "📅 Renewal Date: %s\n" +
+                        "💰 Amount: $%.2f %s\n" +
+                        "💳 Payment Method: %s\n\n" +
+                        "If you want to cancel or modify this subscription, please log into your account.\n\n" +
+                        "Manage subscriptions: http://localhost:3000/subscriptions\n\n" +
+                        "Best regards,\n" +
+                        "Subscription Tracker Team",
+
+                user.getName(),
+                subscription.getName(),
+                subscription.getPlanName() != null ? subscription.getPlanName() : "Standard Plan",
+                renewalText,
+                subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER),
+                subscription.getPrice(),
+                subscription.getCurrency(),
+                subscription.getCard() != null ? subscription.getCard() : "Default card"
+        );
+    }
+
+    private static String legacyPriceChange(User user, Subscription subscription, BigDecimal oldPrice, BigDecimal newPrice) {
+        BigDecimal monthlyIncrease = newPrice.subtract(oldPrice);
+        BigDecimal yearlyIncrease = monthlyIncrease.multiply(BigDecimal.valueOf(12));
+
+        return String.format(
+                "Hi %s,\n\n" +
+                        "We detected a price change for your %s subscription:\n\n" +
+                        "📊 Price Change Details:\n" +
+                        "   Previous Price: $%.2f %s\n" +
+                        "   New Price: $%.2f %s\n" +
+                        "   Monthly Increase: +$%.2f\n" +
+                        "   Yearly Increase: +$%.2f\n\n" +
+                        "📅 This change will be reflected in your next billing cycle on %s.\n\n" +
+                        "💡 Pro Tip: Review your subscription to see if you still need this service " +
+                        "or if there's a cheaper plan available.\n\n" +
+                        "Manage subscriptions: http://localhost:3000/subscriptions\n\n" +
+                        "Best regards,\n" +
+                        "Subscription Tracker Team",
+
+                user.getName(),
+                subscription.getName(),
+                oldPrice,
+                subscription.getCurrency(),
+                newPrice,
+                subscription.getCurrency(),
+                monthlyIncrease,
+                yearlyIncrease,
+                subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER)
+        );
+    }
+
+    private static String legacyPaymentFailed(User user, Subscription subscription) {
+        return String.format(
+                "Hi %s,\n\n" +
+                        "We detected that a payment failed for your %s subscription.\n\n" +
+                        "💳 Payment Details:\n" +
+                        "   Service: %s (%s)\n" +
+                        "   Amount: $%.2f %s\n" +
+                        "   Payment Method: %s\n" +
+                        "   Status: PAYMENT FAILED\n\n" +
+                        "🚨 Action Required:\n" +
+                        "   • Check your payment method for sufficient funds\n" +
+                        "   • Update your card information if expired\n" +
+                        "   • Contact your bank if the card is being declined\n\n" +
+                        "⏰ Your subscription may be suspended if payment is not resolved soon.\n\n" +
+                        "Update payment method: http://localhost:3000/subscriptions\n\n" +
+                        "Need help? Contact support at support@subscriptiontracker.com\n\n" +
+                        "Best regards,\n" +
+                        "Subscription Tracker Team",
+
+                user.getName(),
+                subscription.getName(),
+                subscription.getName(),
+                subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
+                subscription.getPrice(),
+                subscription.getCurrency(),
+                subscription.getCard() != null ? subscription.getCard() : "Default card"
+        );
+    }
+
+    private static String legacyCancellation(User user, Subscription subscription, LocalDate today) {
+        return String.format(
+                "Hi %s,\n\n" +
+                        "Your %s subscription has been successfully cancelled.\n\n" +
+                        "📋 Cancellation Details:\n" +
+                        "   Service: %s (%s)\n" +
+                        "   Cancelled On: %s\n" +
+                        "   Service Until: %s\n" +
+                        "   Final Amount: $%.2f %s\n\n" +
+                        "✨ Your service will remain active until %s, so you can continue enjoying it until then.\n\n" +
+                        "💰 Monthly Savings: $%.2f\n" +
+                        "💰 Yearly Savings: $%.2f\n\n" +
+                        "Changed your mind? You can reactivate anytime at:\n" +
+                        "http://localhost:3000/subscriptions\n\n" +
+                        "Thank you for using Subscription Tracker!\n\n" +
+                        "Best regards,\n" +
+                        "Subscription Tracker Team",
+
+                user.getName(),
+                subscription.getName(),
+                subscription.getName(),
+                subscription.getPlanName() != null ? subscription.getPlanName() : "Standard",
+                today.format(DATE_TIME_FORMATTER),
+                subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER),
+                subscription.getPrice(),
+                subscription.getCurrency(),
+                subscription.getNextRenewalDate().format(DATE_TIME_FORMATTER),
+                subscription.getPrice(),
+                subscription.getPrice().multiply(BigDecimal.valueOf(12))
+        );
+    }
+}
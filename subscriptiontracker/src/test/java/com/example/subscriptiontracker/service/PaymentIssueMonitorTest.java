@@ -0,0 +1,150 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.PaymentEvent;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.JobCheckpointRepository;
+import com.example.subscriptiontracker.repository.PaymentEventRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "payments.monitor.batch-size=2",
+        "payments.monitor.repeated-failures=2",
+        "payments.monitor.settle-time=PT0S"
+})
+@AutoConfigureMockMvc
+class PaymentIssueMonitorTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PaymentIssueMonitor monitor;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository.deleteById(PaymentIssueMonitor.JOB_NAME);
+    }
+
+    @Test
+    void flagsRepeatedFailuresAndOnlyReadsEventsSinceTheLastRun() {
+        Subscription repeated = fixtures.newSubscription(fixtures.newUser());
+        Subscription once = fixtures.newSubscription(fixtures.newUser());
+
+        pay(repeated, "PAYMENT_FAILED");
+        pay(once, "PAYMENT_SUCCESS");
+        pay(repeated, "CHARGEBACK");
+        pay(once, "PAYMENT_FAILED");
+
+        assertThat(scanAll()).isEqualTo(3);
+        assertThat(flaggedAt(repeated)).isNotNull();
+        assertThat(flaggedAt(once)).isNull();
+        assertThat(paymentEventRepository.findAll())
+                .filteredOn(event -> event.getSubscription().getId().equals(repeated.getId())
+                        || event.getSubscription().getId().equals(once.getId()))
+                .allMatch(PaymentEvent::isProcessed);
+
+        // Nothing new: the high-water mark keeps old failures from being read again.
+        assertThat(scanAll()).isZero();
+
+        pay(once, "PAYMENT_FAILED");
+        assertThat(scanAll()).isEqualTo(1);
+        assertThat(flaggedAt(once)).isNotNull();
+
+        pay(repeated, "PAYMENT_SUCCESS");
+        assertThat(flaggedAt(repeated)).isNull();
+    }
+
+    @Test
+    void flaggingASubscriptionChangesTheETagOfItsOwnersList() throws Exception {
+        User user = fixtures.newUser();
+        Subscription subscription = fixtures.newSubscription(user);
+        pay(subscription, "PAYMENT_FAILED");
+        pay(subscription, "PAYMENT_FAILED");
+        String path = "/api/subscriptions/user/" + user.getId();
+        String eTag = mvc.perform(get(path)).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].paymentIssue").value(false))
+                .andReturn().getResponse().getHeader("ETag");
+
+        scanAll();
+
+        mvc.perform(get(path).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$[0].paymentIssue").value(true));
+    }
+
+    @Test
+    void savingASubscriptionLoadedBeforeItWasFlaggedKeepsTheFlag() {
+        Subscription subscription = fixtures.newSubscription(fixtures.newUser());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Subscription loaded = subscriptionRepository.findById(subscription.getId()).orElseThrow();
+            // The monitor flags it while this transaction still holds the copy it loaded before.
+            CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(flag ->
+                    subscriptionRepository.flagPaymentIssues(List.of(subscription.getId()), LocalDateTime.now()))).join();
+            loaded.setPlanName("Family");
+            subscriptionRepository.save(loaded);
+        });
+
+        assertThat(flaggedAt(subscription)).isNotNull();
+    }
+
+    private int scanAll() {
+        int scanned = 0;
+        int batch;
+        while ((batch = monitor.scanNextBatch()) > 0) {
+            scanned += batch;
+        }
+        return scanned;
+    }
+
+    private void pay(Subscription subscription, String eventType) {
+        subscriptionService.processPaymentEvent(subscription.getStripeSubscriptionId(), eventType,
+                new BigDecimal("15.99"), "USD", UUID.randomUUID().toString());
+    }
+
+    private LocalDateTime flaggedAt(Subscription subscription) {
+        return subscriptionRepository.findById(subscription.getId()).orElseThrow().getPaymentIssueFlaggedAt();
+    }
+
+}
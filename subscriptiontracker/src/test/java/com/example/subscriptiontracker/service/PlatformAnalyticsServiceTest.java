@@ -0,0 +1,136 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.dto.MonthlyChurnItem;
+import com.example.subscriptiontracker.dto.PlatformAnalyticsResponse;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.SubscriptionScanRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlatformAnalyticsServiceTest {
+
+    private static final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    private final Random random = new Random(42);
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void totalsDoNotDependOnTheBatchOrChunkSize() {
+        List<SubscriptionScanRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 3_000; id++) {
+            rows.add(randomRow(id));
+        }
+        scanning(rows);
+
+        PlatformAnalyticsResponse expected = generate(3_000, 1);
+        assertThat(expected.getScannedSubscriptions()).isEqualTo(3_000);
+
+        // Batches above 1,000 rows are also split into chunks on the fork-join pool.
+        for (int batchSize : new int[]{1, 7, 999, 1_000, 1_001, 2_500, 10_000}) {
+            for (int maxInFlight : new int[]{1, 4}) {
+                assertThat(generate(batchSize, maxInFlight))
+                        .usingRecursiveComparison()
+                        .ignoringFields("durationMs", "generatedAt")
+                        .ignoringCollectionOrder()
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void cancellationsCountInTheMonthTheyHappened() {
+        LocalDateTime january = LocalDateTime.of(2025, 1, 15, 12, 0);
+        scanning(List.of(
+                row(1, 1, "Netflix", "10.00", SubscriptionStatus.ACTIVE, january, null),
+                row(2, 2, "Netflix", "10.00", SubscriptionStatus.CANCELLED, january, january.plusMonths(1))));
+
+        PlatformAnalyticsResponse analytics = generate(100, 1);
+
+        assertThat(analytics.getMonthlyChurn())
+                .extracting(MonthlyChurnItem::getMonth, MonthlyChurnItem::getNewSubscriptions,
+                        MonthlyChurnItem::getCancelledSubscriptions)
+                .containsExactly(
+                        tuple("Jan 2025", 2L, 0L),
+                        tuple("Feb 2025", 0L, 1L));
+        assertThat(analytics.getMonthlyChurn().get(1).getChurnRate()).isEqualTo(50.0);
+    }
+
+    @Test
+    void churnIsTheShareOfSubscriptionsOpenAtTheStartOfTheMonth() {
+        LocalDateTime january = LocalDateTime.of(2025, 1, 15, 12, 0);
+        scanning(List.of(
+                row(1, 1, "Netflix", "10.00", SubscriptionStatus.ACTIVE, january, null),
+                row(2, 2, "Netflix", "10.00", SubscriptionStatus.ACTIVE, january, null),
+                row(3, 3, "Netflix", "10.00", SubscriptionStatus.CANCELLED, january, january.plusMonths(1))));
+
+        PlatformAnalyticsResponse analytics = generate(100, 1);
+
+        assertThat(analytics.getMonthlyChurn().get(1).getChurnRate()).isEqualTo(33.33);
+        assertThat(PlatformAnalyticsService.percentage(2, 3)).isEqualTo(66.67);
+        assertThat(PlatformAnalyticsService.percentage(1, 0)).isZero();
+    }
+
+    private PlatformAnalyticsResponse generate(int batchSize, int maxInFlight) {
+        PlatformAnalyticsService service = new PlatformAnalyticsService(subscriptionRepository, pool);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+        return service.generatePlatformAnalytics(10);
+    }
+
+    private void scanning(List<SubscriptionScanRow> rows) {
+        when(subscriptionRepository.findScanBatch(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.<Limit>getArgument(1).max();
+            return rows.stream().filter(row -> row.getId() > afterId).limit(limit).toList();
+        });
+    }
+
+    private SubscriptionScanRow randomRow(long id) {
+        SubscriptionStatus status = SubscriptionStatus.values()[random.nextInt(SubscriptionStatus.values().length)];
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(random.nextInt(600));
+        LocalDateTime cancelledAt = status == SubscriptionStatus.CANCELLED
+                ? createdAt.plusDays(random.nextInt(200)) : null;
+        String price = random.nextInt(5_000) / 100 + "." + String.format("%02d", random.nextInt(100));
+        return row(id, random.nextInt(800) + 1, "Service " + random.nextInt(40), price, status, createdAt, cancelledAt);
+    }
+
+    private static SubscriptionScanRow row(long id, long userId, String name, String price, SubscriptionStatus status,
+                                           LocalDateTime createdAt, LocalDateTime cancelledAt) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("userId", userId);
+        values.put("name", name);
+        values.put("category", id % 5 == 0 ? null : "Category " + id % 3);
+        values.put("price", new BigDecimal(price));
+        values.put("status", status);
+        values.put("createdAt", createdAt);
+        values.put("cancelledAt", cancelledAt);
+        return projections.createProjection(SubscriptionScanRow.class, values);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.projection.SubscriptionScanRow;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PlatformScanQueryTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void onlyCancelledRowsCarryACancellationTime() {
+        User user = fixtures.newUser();
+        Subscription updated = fixtures.newSubscription(user, "Netflix", "15.99");
+        subscriptionService.updateSubscription(updated.getId(), "Netflix", "Premium", new BigDecimal("17.99"),
+                "Video", null, updated.getNextRenewalDate());
+        Subscription cancelled = fixtures.newSubscription(user, "Hulu", "7.99");
+        subscriptionService.cancelSubscription(cancelled.getId());
+        Subscription legacy = fixtures.newSubscription(user, "Spotify", "9.99");
+        // Cancelled before cancelledAt was recorded.
+        jdbc.update("UPDATE subscription SET status = 'CANCELLED', cancelled_at = NULL WHERE id = ?", legacy.getId());
+
+        List<SubscriptionScanRow> rows = subscriptionRepository.findScanBatch(updated.getId() - 1, Limit.of(3));
+
+        assertThat(rows).extracting(SubscriptionScanRow::getId)
+                .containsExactly(updated.getId(), cancelled.getId(), legacy.getId());
+        assertThat(rows.get(0).getCancelledAt()).isNull();
+        assertThat(rows.get(1).getCancelledAt())
+                .isEqualTo(subscriptionRepository.findById(cancelled.getId()).orElseThrow().getCancelledAt());
+        assertThat(rows.get(2).getCancelledAt())
+                .isEqualTo(subscriptionRepository.findById(legacy.getId()).orElseThrow().getUpdatedAt());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReminderCandidateQueryTest {
+
+    private static final String ZONE = "Pacific/Chatham";
+    private static final LocalTime SEND_TIME = LocalTime.of(7, 45);
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReminderSchedule schedule;
+
+    @Autowired
+    private ReminderSlotScheduler slotScheduler;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void aSlotPagesThroughItsUsersRenewalsInTheWindow() {
+        User early = scheduledUser(SEND_TIME);
+        User other = scheduledUser(LocalTime.of(9, 0));
+        Subscription first = fixtures.newSubscription(early, "Netflix", "15.99", 1);
+        Subscription second = fixtures.newSubscription(early, "Spotify", "9.99", 2);
+        Subscription third = fixtures.newSubscription(early, "Hulu", "7.99", 3);
+        fixtures.newSubscription(early, "Gym", "30.00", 10);
+        fixtures.newSubscription(other, "Disney+", "8.99", 1);
+        Subscription muted = fixtures.newSubscription(early, "News", "4.99", 1);
+        muted.setNotificationsEnabled(false);
+        subscriptionRepository.save(muted);
+        Subscription cancelled = fixtures.newSubscription(early, "Cloud", "2.99", 1);
+        cancelled.setStatus(SubscriptionStatus.CANCELLED);
+        subscriptionRepository.save(cancelled);
+
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime end = start.plusDays(4);
+        List<ReminderCandidateRow> firstPage = candidates(end, start, 0L, 1, 0, 2);
+        ReminderCandidateRow last = firstPage.get(firstPage.size() - 1);
+        List<ReminderCandidateRow> secondPage = candidates(end, last.getNextRenewalDate(), last.getId(), 1, 0, 2);
+
+        assertThat(firstPage).extracting(ReminderCandidateRow::getId).containsExactly(first.getId(), second.getId());
+        assertThat(secondPage).extracting(ReminderCandidateRow::getId).containsExactly(third.getId());
+        assertThat(secondPage.get(0).getUserEmail()).isEqualTo(early.getEmail());
+
+        // The partitions split the same rows between them.
+        List<Long> partitioned = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            candidates(end, start, 0L, 3, partition, 10).forEach(row -> partitioned.add(row.getId()));
+        }
+        assertThat(partitioned).containsExactlyInAnyOrder(first.getId(), second.getId(), third.getId());
+    }
+
+    @Test
+    void usersOnTheDefaultsAreFoundInTheirDefaultSlot() {
+        User user = fixtures.newUser();
+        Subscription subscription = fixtures.newSubscription(user, "Netflix", "15.99", 1);
+        LocalTime defaultSlot = schedule.slotFor(user.getId(), null);
+
+        assertThat(subscriptionRepository.findReminderCandidates(LocalDateTime.now().plusDays(4), LocalDateTime.now(),
+                0L, 1, 0, schedule.getDefaultZone(), defaultSlot, Limit.of(10)))
+                .extracting(ReminderCandidateRow::getId).contains(subscription.getId());
+    }
+
+    @Test
+    void usersWithoutAnEffectiveSlotGetOneAssigned() {
+        User chosen = scheduledUser(SEND_TIME);
+        User defaulted = fixtures.newUser();
+        jdbc.update("UPDATE users SET reminder_zone = NULL, reminder_slot = NULL WHERE id IN (?, ?)",
+                chosen.getId(), defaulted.getId());
+
+        slotScheduler.assignReminderSlots();
+
+        assertThat(userRepository.findById(chosen.getId())).get()
+                .extracting(User::getReminderZone, User::getReminderSlot)
+                .containsExactly(ZONE, SEND_TIME);
+        assertThat(userRepository.findById(defaulted.getId())).get()
+                .extracting(User::getReminderZone, User::getReminderSlot)
+                .containsExactly(schedule.getDefaultZone(), schedule.slotFor(defaulted.getId(), null));
+        // Once everyone has a slot, nothing is written.
+        assertThat(slotScheduler.assignReminderSlots()).isZero();
+    }
+
+    @Test
+    void aSlotSeeksItsUsersAndTheirRenewals() {
+        String plan = explain(() -> candidates(LocalDateTime.now().plusDays(4), LocalDateTime.now(), 0L, 1, 0, 10));
+
+        assertThat(plan)
+                .doesNotContain("tableScan")
+                .containsPattern("IDX_USERS_REMINDER_SLOT: REMINDER_ZONE = \\?\\d+\\s+AND REMINDER_SLOT = \\?\\d+")
+                .containsPattern("IDX_SUBSCRIPTION_USER_RENEWAL: USER_ID = .*\\s+AND STATUS = .*"
+                        + "\\s+AND NEXT_RENEWAL_DATE >= \\?\\d+\\s+AND NEXT_RENEWAL_DATE < \\?\\d+");
+    }
+
+    private User scheduledUser(LocalTime sendTime) {
+        return userService.updateReminderSchedule(fixtures.newUser().getId(), ZONE, sendTime);
+    }
+
+    private List<ReminderCandidateRow> candidates(LocalDateTime end, LocalDateTime afterDate, Long afterId,
+                                                  int partitions, int partition, int limit) {
+        return subscriptionRepository.findReminderCandidates(end, afterDate, afterId, partitions, partition,
+                ZONE, SEND_TIME, Limit.of(limit));
+    }
+
+    /**
+     * Plans the SQL Hibernate generated for the query, so the check follows any change to the JPQL.
+     */
+    private String explain(Runnable query) {
+        String sql;
+        jdbc.execute("SET QUERY_STATISTICS TRUE");
+        try {
+            query.run();
+            sql = jdbc.queryForObject("SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                    "WHERE SQL_STATEMENT LIKE '%reminder_slot = ?%' FETCH FIRST 1 ROW ONLY", String.class);
+        } finally {
+            // Switching the statistics off also clears them.
+            jdbc.execute("SET QUERY_STATISTICS FALSE");
+        }
+        return jdbc.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.repository.projection.ReminderScheduleRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReminderScheduleTest {
+
+    private final ReminderSchedule schedule = new ReminderSchedule("UTC", LocalTime.of(8, 0), LocalTime.of(12, 0), 15);
+
+    @Test
+    void usersWithoutASendTimeAreSpreadOverTheDefaultWindow() {
+        assertThat(schedule.zoneFor(null)).isEqualTo("UTC");
+        assertThat(schedule.zoneFor("Asia/Tokyo")).isEqualTo("Asia/Tokyo");
+        assertThat(schedule.slotFor(32L, null)).isEqualTo(LocalTime.of(8, 0));
+        assertThat(schedule.slotFor(33L, null)).isEqualTo(LocalTime.of(8, 15));
+        assertThat(schedule.slotFor(47L, null)).isEqualTo(LocalTime.of(11, 45));
+        assertThat(schedule.slotFor(47L, LocalTime.of(7, 30))).isEqualTo(LocalTime.of(7, 30));
+    }
+
+    @Test
+    void eachScheduleHasOneSlotPerLocalDayInTheWindow() {
+        Instant from = Instant.parse("2026-03-01T00:00:00Z");
+
+        List<ReminderSlot> slots = schedule.slotsBetween(
+                List.of(row("UTC", LocalTime.of(8, 15)), row("Asia/Tokyo", LocalTime.of(7, 30))),
+                from, from.plus(1, ChronoUnit.DAYS));
+
+        assertThat(slots).containsExactlyInAnyOrder(
+                ReminderSlot.of("UTC", LocalTime.of(8, 15), LocalDate.of(2026, 3, 1)),
+                // 07:30 in Tokyo on the 2nd is still the 1st in UTC.
+                ReminderSlot.of("Asia/Tokyo", LocalTime.of(7, 30), LocalDate.of(2026, 3, 2)));
+    }
+
+    @Test
+    void aBlankDefaultZoneIsRejectedInsteadOfFallingBackToTheHostZone() {
+        assertThatThrownBy(() -> new ReminderSchedule(" ", LocalTime.of(8, 0), LocalTime.of(12, 0), 15))
+                .isInstanceOf(DateTimeException.class);
+    }
+
+    @Test
+    void theDefaultWindowIsCutIntoWholeSlots() {
+        assertThat(schedule.getDefaultSlotCount()).isEqualTo(16);
+        assertThat(schedule.defaultSlot(0)).isEqualTo(LocalTime.of(8, 0));
+        assertThat(schedule.defaultSlot(15)).isEqualTo(LocalTime.of(11, 45));
+        assertThat(schedule.truncate(LocalTime.of(9, 44, 30))).isEqualTo(LocalTime.of(9, 30));
+    }
+
+    @Test
+    void slotsSurviveDaylightSavingTransitionsAndLeaseKeys() {
+        // 02:30 does not exist in New York on the day clocks go forward.
+        ReminderSlot slot = ReminderSlot.of("America/New_York", LocalTime.of(2, 30), LocalDate.of(2026, 3, 8));
+
+        assertThat(slot.sendAt()).isEqualTo(Instant.parse("2026-03-08T07:30:00Z"));
+        assertThat(ReminderSlot.parse(slot.key(), slot.localDate())).isEqualTo(slot);
+        assertThat(ReminderSlot.parse("GMT+01:00@09:00", LocalDate.of(2026, 3, 8)).zone()).isEqualTo("GMT+01:00");
+    }
+
+    private static ReminderScheduleRow row(String zone, LocalTime sendTime) {
+        return new ReminderScheduleRow() {
+            @Override
+            public String getTimeZone() {
+                return zone;
+            }
+
+            @Override
+            public LocalTime getSendTime() {
+                return sendTime;
+            }
+        };
+    }
+}
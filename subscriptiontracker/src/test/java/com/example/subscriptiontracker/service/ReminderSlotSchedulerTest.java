@@ -0,0 +1,62 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// No catch-up, so the worker never takes a slot while a test counts them.
+@SpringBootTest(properties = "notifications.reminder.catch-up=PT0S")
+class ReminderSlotSchedulerTest {
+
+    private static final String ZONE = "Pacific/Marquesas";
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ReminderSlotScheduler slotScheduler;
+
+    @Autowired
+    private ReminderSchedule schedule;
+
+    @Autowired
+    private UserService userService;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void theSchedulesAreReadOncePerRefreshAndNewOnesAreQueuedWhenSaved() {
+        Instant now = Instant.now();
+        slotScheduler.loadUpcoming(now);
+        slotScheduler.loadUpcoming(now.plus(Duration.ofMinutes(5)));
+        slotScheduler.loadUpcoming(now.plus(Duration.ofMinutes(10)));
+        verify(userRepository, times(1)).findReminderSchedules();
+
+        Long userId = fixtures.newUser().getId();
+        int queued = slotScheduler.getQueuedSlots();
+        LocalTime soon = schedule.truncate(LocalTime.now(ZoneId.of(ZONE)).plusMinutes(20));
+        userService.updateReminderSchedule(userId, ZONE, soon);
+
+        // Due inside the window already loaded, so it is queued without reading the schedules again.
+        assertThat(slotScheduler.getQueuedSlots()).isEqualTo(queued + 1);
+        verify(userRepository, times(1)).findReminderSchedules();
+
+        clearInvocations(userRepository);
+        slotScheduler.loadUpcoming(now.plus(Duration.ofHours(24)));
+        verify(userRepository, times(1)).findReminderSchedules();
+    }
+}
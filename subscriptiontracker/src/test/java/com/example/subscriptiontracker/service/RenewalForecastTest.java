@@ -0,0 +1,75 @@
+package com.example.subscriptiontracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenewalForecastTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void dailyTotalsMatchSteppingWithPlusMonths() {
+        for (int run = 0; run < 500; run++) {
+            LocalDate today = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(800));
+            int months = random.nextInt(24) + 1;
+            RenewalForecast forecast = new RenewalForecast(today, months);
+
+            LocalDate end = today.plusMonths(months);
+            long[] expectedCents = new long[(int) ChronoUnit.DAYS.between(today, end)];
+            int expectedRenewals = 0;
+
+            for (int i = 0; i < 20; i++) {
+                long priceCents = random.nextInt(10_000) + 1;
+                LocalDate nextRenewal = today.plusDays(random.nextInt(120) - 60);
+                LocalDate endDate = random.nextBoolean() ? today.plusDays(random.nextInt(800) - 30) : null;
+                forecast.add(priceCents, nextRenewal, endDate);
+
+                for (int k = 0; ; k++) {
+                    LocalDate renewal = nextRenewal.plusMonths(k);
+                    if (!renewal.isBefore(end) || (endDate != null && renewal.isAfter(endDate))) {
+                        break;
+                    }
+                    if (!renewal.isBefore(today)) {
+                        expectedCents[(int) ChronoUnit.DAYS.between(today, renewal)] += priceCents;
+                        expectedRenewals++;
+                    }
+                }
+            }
+
+            List<RenewalForecast.Bucket> days = forecast.buckets(RenewalForecast.Granularity.DAY);
+            assertThat(days).hasSize(expectedCents.length);
+            for (int day = 0; day < expectedCents.length; day++) {
+                assertThat(days.get(day).amountCents()).isEqualTo(expectedCents[day]);
+            }
+            assertThat(forecast.totalRenewals()).isEqualTo(expectedRenewals);
+        }
+    }
+
+    @Test
+    void weekAndMonthBucketsCoverTheHorizonWithoutGaps() {
+        LocalDate today = LocalDate.of(2025, 1, 31);
+        RenewalForecast forecast = new RenewalForecast(today, 3);
+        forecast.add(1_000, today, null);
+
+        for (RenewalForecast.Granularity granularity : RenewalForecast.Granularity.values()) {
+            List<RenewalForecast.Bucket> buckets = forecast.buckets(granularity);
+            assertThat(buckets.get(0).periodStart()).isEqualTo(today);
+            assertThat(buckets.get(buckets.size() - 1).periodEnd()).isEqualTo(LocalDate.of(2025, 4, 29));
+            for (int i = 1; i < buckets.size(); i++) {
+                assertThat(buckets.get(i).periodStart()).isEqualTo(buckets.get(i - 1).periodEnd().plusDays(1));
+            }
+            assertThat(buckets.stream().mapToLong(RenewalForecast.Bucket::amountCents).sum()).isEqualTo(3_000);
+        }
+
+        List<RenewalForecast.Bucket> months = forecast.buckets(RenewalForecast.Granularity.MONTH);
+        assertThat(months).extracting(RenewalForecast.Bucket::renewals).containsExactly(1, 1, 1, 0);
+        assertThat(forecast.buckets(RenewalForecast.Granularity.WEEK).get(1).periodStart())
+                .isEqualTo(LocalDate.of(2025, 2, 3));
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.SubscriptiontrackerApplication;
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.JobLeaseRepository;
+import com.example.subscriptiontracker.repository.SentReminderRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import com.example.subscriptiontracker.support.SmtpStub;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three application contexts sharing one H2 database stand in for three deployed instances.
+ */
+class RenewalReminderLeaseTest {
+
+    private static final int PARTITIONS = 4;
+    private static final String[] INSTANCES = {"node-a", "node-b", "node-c"};
+
+    private static final SmtpStub smtp = SmtpStub.start();
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private final LocalDate today = LocalDate.now();
+    private final ReminderSlot slot = ReminderSlot.of("UTC", LocalTime.of(9, 0), today);
+
+    @BeforeAll
+    static void startInstances() {
+        String url = "jdbc:h2:mem:leases-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        for (String instance : INSTANCES) {
+            contexts.add(new SpringApplicationBuilder(SubscriptiontrackerApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.datasource.url=" + url,
+                            "spring.jpa.hibernate.ddl-auto=update",
+                            "spring.mail.host=localhost",
+                            "spring.mail.port=" + smtp.getPort(),
+                            "stripe.webhook.secret=whsec_test",
+                            "mail.outbox.initial-delay=3600000",
+                            "mail.dispatch.rate-per-second=0",
+                            "notifications.reminder.chunk-size=4",
+                            "notifications.reminder.load-initial-delay=3600000",
+                            "notifications.reminder.default-zone=UTC",
+                            "notifications.reminder.default-send-from=09:00",
+                            "notifications.reminder.default-send-to=09:15",
+                            "scheduler.instance-id=" + instance,
+                            "scheduler.reminders.partitions=" + PARTITIONS,
+                            "scheduler.reminders.recovery-interval=3600000")
+                    .run());
+        }
+    }
+
+    @AfterAll
+    static void stopInstances() throws Exception {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        smtp.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        bean(0, JobLeaseRepository.class).deleteAll();
+        bean(0, SentReminderRepository.class).deleteAll();
+        bean(0, SubscriptionRepository.class).deleteAll();
+        bean(0, UserRepository.class).deleteAll();
+        smtp.reset();
+    }
+
+    @Test
+    void everyReminderIsSentOnceWhenAllInstancesRunTogether() throws Exception {
+        List<String> expected = createSubscriptions(40);
+
+        ExecutorService pool = Executors.newFixedThreadPool(contexts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BulkMailDispatcher.Result>> results = new ArrayList<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            RenewalReminderService service = bean(i, RenewalReminderService.class);
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.sendSlot(slot, 3);
+            }));
+        }
+        start.countDown();
+
+        int sent = 0;
+        for (Future<BulkMailDispatcher.Result> result : results) {
+            sent += result.get().sent();
+        }
+        pool.shutdown();
+
+        assertThat(sent).isEqualTo(expected.size());
+        assertThat(subjects()).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(bean(0, JobLeaseRepository.class).findAll())
+                .hasSize(PARTITIONS)
+                .allMatch(JobLease::isCompleted);
+    }
+
+    @Test
+    void expiredLeaseIsResumedFromItsCheckpointByAnotherInstance() throws Exception {
+        createSubscriptions(40);
+        bean(0, RenewalReminderService.class).sendSlot(slot, 3);
+
+        // Partition 1 was owned by an instance that died after sending three reminders.
+        String leaseKey = RenewalReminderService.JOB_NAME + ":UTC@09:00:1/" + PARTITIONS;
+        List<ReminderCandidateRow> partition = bean(0, SubscriptionRepository.class).findReminderCandidates(
+                today.plusDays(4).atStartOfDay(), today.atStartOfDay(), 0L, PARTITIONS, 1,
+                "UTC", slot.sendTime(), Limit.of(100));
+        ReminderCandidateRow checkpoint = partition.get(2);
+        List<ReminderCandidateRow> unsent = partition.subList(3, partition.size());
+        List<String> remaining = unsent.stream()
+                .map(row -> "🔔 Subscription Renewal Reminder - " + row.getName())
+                .toList();
+        List<Long> unsentIds = unsent.stream().map(ReminderCandidateRow::getId).toList();
+        SentReminderRepository ledger = bean(0, SentReminderRepository.class);
+        ledger.deleteAll(ledger.findAll().stream()
+                .filter(entry -> unsentIds.contains(entry.getSubscriptionId()))
+                .toList());
+
+        JobLeaseRepository leases = bean(0, JobLeaseRepository.class);
+        JobLease lease = leases.findById(leaseKey).orElseThrow();
+        lease.setOwner("crashed-node");
+        lease.setCompleted(false);
+        lease.setCheckpointAt(checkpoint.getNextRenewalDate());
+        lease.setCheckpointId(checkpoint.getId());
+        lease.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        leases.save(lease);
+        smtp.reset();
+
+        // Still within the dead owner's lease: nobody may touch it yet.
+        assertThat(bean(1, RenewalReminderService.class).resumeAbandonedReminders(3).sent()).isZero();
+
+        lease = leases.findById(leaseKey).orElseThrow();
+        lease.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        leases.save(lease);
+
+        BulkMailDispatcher.Result resumed = bean(1, RenewalReminderService.class).resumeAbandonedReminders(3);
+
+        assertThat(resumed.sent()).isEqualTo(remaining.size());
+        assertThat(subjects()).containsExactlyInAnyOrderElementsOf(remaining);
+        assertThat(leases.findById(leaseKey)).get()
+                .extracting(JobLease::getOwner, JobLease::isCompleted)
+                .containsExactly("node-b", true);
+    }
+
+    @Test
+    void rerunOnlyResendsRemindersThatWereNotDelivered() throws Exception {
+        List<String> expected = createSubscriptions(40);
+        smtp.rejectNext(5);
+
+        BulkMailDispatcher.Result first = bean(0, RenewalReminderService.class).sendSlot(slot, 3);
+        assertThat(first.sent()).isEqualTo(expected.size() - 5);
+        assertThat(first.failed()).isEqualTo(5);
+        List<String> delivered = subjects();
+
+        // A manual rerun of the same day, after its leases were completed.
+        bean(0, JobLeaseRepository.class).deleteAll();
+        smtp.reset();
+        BulkMailDispatcher.Result rerun = bean(2, RenewalReminderService.class).sendSlot(slot, 3);
+
+        assertThat(rerun.sent()).isEqualTo(5);
+        assertThat(rerun.skipped()).isEqualTo(expected.size() - 5);
+        delivered.addAll(subjects());
+        assertThat(delivered).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(bean(0, SentReminderRepository.class).count()).isEqualTo(expected.size());
+    }
+
+    private List<String> createSubscriptions(int count) {
+        UserRepository users = bean(0, UserRepository.class);
+        SubscriptionRepository subscriptions = bean(0, SubscriptionRepository.class);
+        List<String> subjects = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            User user = users.save(User.builder()
+                    .email("user" + i + "@example.com")
+                    .name("User " + i)
+                    .password("pw")
+                    .reminderZone("UTC")
+                    .reminderSlot(slot.sendTime())
+                    .build());
+            // Every fifth one renews outside the reminder window.
+            int days = i % 5 == 4 ? 6 : i % 4;
+            subscriptions.save(Subscription.builder()
+                    .name("Service " + i)
+                    .price(new BigDecimal("9.99"))
+                    .startDate(today.minusMonths(1))
+                    .status(SubscriptionStatus.ACTIVE)
+                    .nextRenewalDate(today.plusDays(days).atTime(i % 3 * 8, 0))
+                    .user(user)
+                    .build());
+            if (days <= 3) {
+                subjects.add("🔔 Subscription Renewal Reminder - Service " + i);
+            }
+        }
+        return subjects;
+    }
+
+    private List<String> subjects() throws Exception {
+        List<String> subjects = new ArrayList<>();
+        for (MimeMessage message : smtp.getMessages()) {
+            subjects.add(message.getSubject());
+        }
+        return subjects;
+    }
+
+    private static <T> T bean(int instance, Class<T> type) {
+        return contexts.get(instance).getBean(type);
+    }
+}
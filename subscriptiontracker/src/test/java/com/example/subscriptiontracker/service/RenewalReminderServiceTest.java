@@ -0,0 +1,179 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.JobLeaseRepository;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.projection.ReminderCandidateRow;
+import com.example.subscriptiontracker.support.SmtpStub;
+import com.example.subscriptiontracker.support.TestFixtures;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "notifications.reminder.chunk-size=3",
+        "mail.dispatch.rate-per-second=0"
+})
+class RenewalReminderServiceTest {
+
+    private static final String ZONE = "America/St_Johns";
+    // Every test gets its own slot, so it never sees another test's subscriptions.
+    private static final AtomicInteger slots = new AtomicInteger();
+
+    private static final SmtpStub smtp = SmtpStub.start();
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::getPort);
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private RenewalReminderService renewalReminderService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+
+    @MockitoSpyBean
+    private NotificationService notificationService;
+
+    @MockitoSpyBean
+    private JobLeaseService leaseService;
+
+    private ReminderSlot slot;
+
+    @AfterAll
+    static void stopSmtp() throws Exception {
+        smtp.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        smtp.reset();
+        slot = ReminderSlot.of(ZONE, LocalTime.of(6, 0).plusMinutes(15L * slots.getAndIncrement()), LocalDate.now());
+    }
+
+    @Test
+    void theSlotIsReadAndSentInChunksInRenewalOrder() throws Exception {
+        User reader = slotUser();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            fixtures.newSubscription(reader, "Service " + i, "9.99", 3 - i % 4);
+            expected.add("🔔 Subscription Renewal Reminder - Service " + i);
+        }
+        fixtures.newSubscription(reader, "Later", "9.99", 10);
+        Subscription muted = fixtures.newSubscription(reader, "Muted", "9.99", 1);
+        muted.setNotificationsEnabled(false);
+        subscriptionRepository.save(muted);
+
+        BulkMailDispatcher.Result result = renewalReminderService.sendSlot(slot, 3);
+
+        assertThat(result.sent()).isEqualTo(7);
+        assertThat(result.failed()).isZero();
+        assertThat(subjects()).containsExactlyInAnyOrderElementsOf(expected);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReminderCandidateRow>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(3)).sendRenewalReminders(chunks.capture(), eq(slot.localDate()));
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(3, 3, 1);
+        List<LocalDateTime> renewals = chunks.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(ReminderCandidateRow::getNextRenewalDate)
+                .toList();
+        assertThat(renewals).isSorted();
+
+        JobLease lease = leaseRepository.findById(leaseKey()).orElseThrow();
+        assertThat(lease.isCompleted()).isTrue();
+        assertThat(lease.getCheckpointAt()).isEqualTo(renewals.get(renewals.size() - 1));
+    }
+
+    @Test
+    void optedOutUsersAndOtherSlotsAreNotReminded() throws Exception {
+        User reader = slotUser();
+        fixtures.newSubscription(reader, "Netflix", "15.99", 1);
+        User optedOut = slotUser();
+        optedOut.setEmailNotifications(false);
+        userRepository.save(optedOut);
+        fixtures.newSubscription(optedOut, "Hulu", "7.99", 1);
+        User elsewhere = fixtures.newUser();
+        userService.updateReminderSchedule(elsewhere.getId(), "Asia/Kolkata", slot.sendTime());
+        fixtures.newSubscription(elsewhere, "Spotify", "9.99", 1);
+
+        BulkMailDispatcher.Result result = renewalReminderService.sendSlot(slot, 3);
+
+        assertThat(result.sent()).isEqualTo(1);
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(subjects()).containsExactly("🔔 Subscription Renewal Reminder - Netflix");
+    }
+
+    @Test
+    void aRunThatLosesItsLeaseStopsAfterTheChunkInFlight() throws Exception {
+        User reader = slotUser();
+        for (int i = 0; i < 5; i++) {
+            fixtures.newSubscription(reader, "Service " + i, "9.99", 1);
+        }
+        doReturn(false).when(leaseService).checkpoint(anyString(), any(), anyLong());
+
+        BulkMailDispatcher.Result result = renewalReminderService.sendSlot(slot, 3);
+
+        assertThat(result.sent()).isEqualTo(3);
+        assertThat(smtp.getMessages()).hasSize(3);
+        // The new owner resumes it once the lease runs out.
+        assertThat(leaseRepository.findById(leaseKey())).get()
+                .extracting(JobLease::isCompleted).isEqualTo(false);
+    }
+
+    private User slotUser() {
+        return userService.updateReminderSchedule(fixtures.newUser().getId(), ZONE, slot.sendTime());
+    }
+
+    private String leaseKey() {
+        return RenewalReminderService.JOB_NAME + ":" + slot.key() + ":0/1";
+    }
+
+    private List<String> subjects() throws Exception {
+        List<String> subjects = new ArrayList<>();
+        for (MimeMessage message : smtp.getMessages()) {
+            subjects.add(message.getSubject());
+        }
+        return subjects;
+    }
+}
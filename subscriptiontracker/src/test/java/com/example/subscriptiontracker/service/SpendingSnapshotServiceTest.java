@@ -0,0 +1,57 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobCheckpoint;
+import com.example.subscriptiontracker.repository.JobCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SpendingSnapshotServiceTest {
+
+    @Autowired
+    private SpendingSnapshotService snapshotService;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Test
+    void nodesStartingTheFirstEverRunTogetherShareOneCheckpoint() throws Exception {
+        checkpointRepository.deleteById(SpendingSnapshotService.JOB_NAME);
+        LocalDate runDate = LocalDate.of(2026, 3, 1);
+
+        int nodes = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<JobCheckpoint>> runs = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            runs.add(CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(start);
+                return snapshotService.startRun(runDate);
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        JobCheckpoint checkpoint = checkpointRepository.findById(SpendingSnapshotService.JOB_NAME).orElseThrow();
+        assertThat(checkpoint.getRunKey()).isEqualTo(runDate.toString());
+        assertThat(checkpoint.isCompleted()).isFalse();
+        assertThat(checkpoint.getLastProcessedId()).isZero();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.model.UserSpendingSummary;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.repository.UserSpendingSummaryRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SpendingSummaryServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SpendingSummaryService spendingSummaryService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSpendingSummaryRepository summaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void registeredUsersStartWithAnEmptySummary() {
+        User user = fixtures.newUser();
+
+        assertThat(summaryRepository.findById(user.getId())).get()
+                .extracting(UserSpendingSummary::getTotalSubscriptions, UserSpendingSummary::getDataVersion)
+                .containsExactly(0, 0L);
+    }
+
+    @Test
+    void concurrentFirstWritesForAUserWithoutASummaryAllSucceed() throws Exception {
+        // Users registered before summaries were created at sign-up have no row yet.
+        User user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .name("Legacy User")
+                .password("password")
+                .build());
+
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String name = "Service " + i;
+            writes.add(CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                subscriptionService.createSubscription(user.getId(), name, "Premium",
+                        new BigDecimal("10.00"), "Video", null, LocalDateTime.now().plusDays(10));
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        UserSpendingSummary summary = spendingSummaryService.findSummary(user.getId()).orElseThrow();
+        assertThat(summary.getTotalSubscriptions()).isEqualTo(writers);
+        assertThat(summary.getActiveSubscriptions()).isEqualTo(writers);
+        assertThat(summary.getMonthlySpendingCents()).isEqualTo(writers * 1000L);
+    }
+
+    @Test
+    void aRebuiltSummaryNeverReusesAVersionAndPicksTheSameNewestSubscription() {
+        User user = fixtures.newUser();
+        Subscription first = fixtures.newSubscription(user, "Netflix", "15.99");
+        Subscription second = fixtures.newSubscription(user, "Spotify", "9.99");
+        // Created in the same instant, so the id decides.
+        jdbc.update("UPDATE subscription SET created_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().withNano(0), first.getId(), second.getId());
+        UserSpendingSummary incremental = spendingSummaryService.findSummary(user.getId()).orElseThrow();
+
+        summaryRepository.deleteById(user.getId());
+        UserSpendingSummary rebuilt = spendingSummaryService.rebuildSummary(user.getId());
+
+        assertThat(rebuilt.getDataVersion()).isGreaterThan(incremental.getDataVersion());
+        assertThat(rebuilt.getNewestSubscriptionId())
+                .isEqualTo(incremental.getNewestSubscriptionId())
+                .isEqualTo(second.getId());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
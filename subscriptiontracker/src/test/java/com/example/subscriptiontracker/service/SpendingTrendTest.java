@@ -0,0 +1,91 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.dto.MonthlySpendingItem;
+import com.example.subscriptiontracker.dto.SpendingAnalyticsResponse;
+import com.example.subscriptiontracker.model.SpendingSnapshot;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SpendingSnapshotRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SpendingTrendTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SpendingSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void historyWithoutSnapshotsIsTheSpendingActiveAtEachMonthEnd() {
+        User user = fixtures.newUser();
+        YearMonth now = YearMonth.now();
+        createdIn(fixtures.newSubscription(user, "Netflix", "10.00"), now.minusMonths(5));
+        createdIn(fixtures.newSubscription(user, "Spotify", "10.00"), now.minusMonths(5));
+        Subscription gym = fixtures.newSubscription(user, "Gym", "15.00");
+        createdIn(gym, now.minusMonths(2));
+        subscriptionService.cancelSubscription(gym.getId());
+        jdbc.update("UPDATE subscription SET cancelled_at = ? WHERE id = ?",
+                now.minusMonths(1).atDay(10).atTime(12, 0), gym.getId());
+
+        SpendingAnalyticsResponse analytics = analyticsService.getSpendingAnalytics(user.getId(), 6);
+
+        assertThat(analytics.getMonthlyData()).extracting(MonthlySpendingItem::getSpending)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(amounts("20.00", "20.00", "20.00", "35.00", "20.00", "20.00"));
+        // Subscriptions that never changed are not a trend.
+        assertThat(analytics.getTrendDirection()).isEqualTo("STABLE");
+    }
+
+    @Test
+    void monthsWithoutASnapshotCarryTheLastOneForward() {
+        User user = fixtures.newUser();
+        fixtures.newSubscription(user, "Netflix", "10.00");
+        snapshotRepository.save(SpendingSnapshot.builder()
+                .userId(user.getId())
+                .snapshotMonth(YearMonth.now().minusMonths(5).atDay(1))
+                .totalSpendingCents(1000)
+                .subscriptionCount(1)
+                .build());
+
+        SpendingAnalyticsResponse analytics = analyticsService.getSpendingAnalytics(user.getId(), 3);
+
+        assertThat(analytics.getMonthlyData()).extracting(MonthlySpendingItem::getSpending)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(amounts("10.00", "10.00", "10.00"));
+        assertThat(analytics.getTrendDirection()).isEqualTo("STABLE");
+    }
+
+    private void createdIn(Subscription subscription, YearMonth month) {
+        jdbc.update("UPDATE subscription SET created_at = ? WHERE id = ?", month.atDay(1).atTime(12, 0), subscription.getId());
+    }
+
+    private static BigDecimal[] amounts(String... values) {
+        BigDecimal[] amounts = new BigDecimal[values.length];
+        for (int i = 0; i < values.length; i++) {
+            amounts[i] = new BigDecimal(values[i]);
+        }
+        return amounts;
+    }
+
+
+}
@@ -0,0 +1,210 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.SubscriptionStatus;
+import com.example.subscriptiontracker.model.WebhookInbox;
+import com.example.subscriptiontracker.model.WebhookStatus;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.repository.WebhookInboxRepository;
+import com.example.subscriptiontracker.support.TestFixtures;
+import com.stripe.Stripe;
+import com.stripe.net.Webhook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "stripe.webhook.secret=" + WebhookInboxTest.SECRET,
+        "webhooks.inbox.enabled=true",
+        "webhooks.inbox.initial-backoff=PT0S",
+        "webhooks.inbox.max-attempts=2"
+})
+@AutoConfigureMockMvc
+class WebhookInboxTest {
+
+    static final String SECRET = "whsec_inbox_test";
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private WebhookInboxProcessor processor;
+
+    @Autowired
+    private WebhookInboxService inboxService;
+
+    @Autowired
+    private WebhookInboxRepository inboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @BeforeEach
+    void setUp() {
+        inboxRepository.deleteAll();
+    }
+
+    @Test
+    void eventsAreAcknowledgedBeforeProcessingAndAppliedByTheWorkers() throws Exception {
+        Subscription subscription = fixtures.newSubscription(fixtures.newUser());
+        String payload = invoiceEvent("invoice.payment_failed", subscription.getStripeSubscriptionId(), "\"usd\"");
+
+        send(payload, sign(payload)).andExpect(status().isOk()).andExpect(content().string("Webhook received"));
+        // Stripe redelivering the same event is acknowledged without storing it twice.
+        send(payload, sign(payload)).andExpect(status().isOk());
+
+        assertThat(inboxRepository.findAll()).singleElement()
+                .extracting(WebhookInbox::getStatus, WebhookInbox::getObjectKey)
+                .containsExactly(WebhookStatus.PENDING, subscription.getStripeSubscriptionId());
+        assertThat(statusOf(subscription)).isEqualTo(SubscriptionStatus.ACTIVE);
+
+        assertThat(processor.dispatchDue()).isEqualTo(1);
+        WebhookInbox processed = awaitSettled();
+
+        assertThat(processed.getStatus()).isEqualTo(WebhookStatus.PROCESSED);
+        assertThat(processed.getAttempts()).isEqualTo(1);
+        assertThat(statusOf(subscription)).isEqualTo(SubscriptionStatus.PAYMENT_FAILED);
+    }
+
+    @Test
+    void failingEventsAreRetriedAndThenDeadLettered() throws Exception {
+        // Without a currency the payment cannot be recorded.
+        String payload = invoiceEvent("invoice.payment_succeeded", fixtures.newSubscription(fixtures.newUser()).getStripeSubscriptionId(), "null");
+        send(payload, sign(payload)).andExpect(status().isOk());
+
+        assertThat(processor.dispatchDue()).isEqualTo(1);
+        WebhookInbox retrying = awaitSettled();
+        assertThat(retrying.getStatus()).isEqualTo(WebhookStatus.PENDING);
+        assertThat(retrying.getLastError()).isNotBlank();
+
+        assertThat(processor.dispatchDue()).isEqualTo(1);
+        WebhookInbox dead = awaitSettled();
+        assertThat(dead.getStatus()).isEqualTo(WebhookStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(2);
+
+        assertThat(processor.dispatchDue()).isZero();
+    }
+
+    @Test
+    void eventsWithAnInvalidSignatureAreNotStored() throws Exception {
+        String payload = invoiceEvent("invoice.payment_failed", "sub_unknown", "\"usd\"");
+
+        send(payload, sign(payload.replace("sub_unknown", "sub_other"))).andExpect(status().isUnauthorized());
+
+        assertThat(inboxRepository.count()).isZero();
+    }
+
+    @Test
+    void aBurstForOneSubscriptionDoesNotHoldBackOtherSubscriptions() {
+        for (int i = 0; i < 5; i++) {
+            store("sub_busy", WebhookStatus.PENDING);
+        }
+        WebhookInbox other = store("sub_other", WebhookStatus.PENDING);
+
+        List<WebhookInbox> first = inboxService.claimDue(2);
+        assertThat(first).extracting(WebhookInbox::getObjectKey).containsExactly("sub_busy", "sub_other");
+        assertThat(first.get(1).getId()).isEqualTo(other.getId());
+
+        // The rest of the burst waits while its subscription has an event in flight.
+        assertThat(inboxService.claimDue(2)).isEmpty();
+    }
+
+    @Test
+    void laterEventsWaitForAnEarlierOneThatIsBackingOff() {
+        WebhookInbox failed = store("sub_ordered", WebhookStatus.PENDING);
+        failed.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+        inboxRepository.save(failed);
+        store("sub_ordered", WebhookStatus.PENDING);
+
+        assertThat(inboxService.claimDue(10)).isEmpty();
+
+        failed.setStatus(WebhookStatus.DEAD);
+        inboxRepository.save(failed);
+        assertThat(inboxService.claimDue(10)).singleElement()
+                .extracting(WebhookInbox::getObjectKey).isEqualTo("sub_ordered");
+    }
+
+    @Test
+    void finishedEventsArePrunedAfterTheRetentionPeriod() {
+        WebhookInbox oldProcessed = store("sub_a", WebhookStatus.PROCESSED);
+        WebhookInbox oldDead = store("sub_b", WebhookStatus.DEAD);
+        WebhookInbox oldPending = store("sub_c", WebhookStatus.PENDING);
+        WebhookInbox recentProcessed = store("sub_d", WebhookStatus.PROCESSED);
+        jdbc.update("UPDATE webhook_inbox SET received_at = ? WHERE id IN (?, ?, ?)", LocalDateTime.now().minusDays(31),
+                oldProcessed.getId(), oldDead.getId(), oldPending.getId());
+
+        assertThat(inboxService.prune(LocalDateTime.now())).isEqualTo(2);
+
+        assertThat(inboxRepository.findAll()).extracting(WebhookInbox::getId)
+                .containsExactlyInAnyOrder(oldPending.getId(), recentProcessed.getId());
+    }
+
+    private WebhookInbox store(String objectKey, WebhookStatus status) {
+        return inboxRepository.save(WebhookInbox.builder()
+                .eventId("evt_" + UUID.randomUUID())
+                .eventType("invoice.payment_succeeded")
+                .objectKey(objectKey)
+                .payload("{}")
+                .signature("t=0,v1=test")
+                .status(status)
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+    }
+
+    private ResultActions send(String payload, String signature) throws Exception {
+        return mvc.perform(post("/api/webhooks/stripe")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Stripe-Signature", signature)
+                .content(payload));
+    }
+
+    // Waits for the single inbox row to leave PROCESSING.
+    private WebhookInbox awaitSettled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            WebhookInbox inbox = inboxRepository.findAll().get(0);
+            if (inbox.getStatus() != WebhookStatus.PROCESSING || System.currentTimeMillis() > deadline) {
+                return inbox;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private SubscriptionStatus statusOf(Subscription subscription) {
+        return subscriptionRepository.findById(subscription.getId()).orElseThrow().getStatus();
+    }
+
+    private static String invoiceEvent(String type, String stripeSubscriptionId, String currency) {
+        return "{\"id\":\"evt_" + UUID.randomUUID() + "\",\"object\":\"event\",\"api_version\":\"" + Stripe.API_VERSION + "\","
+                + "\"created\":1700000000,\"type\":\"" + type + "\",\"data\":{\"object\":{"
+                + "\"id\":\"in_" + UUID.randomUUID() + "\",\"object\":\"invoice\",\"subscription\":\"" + stripeSubscriptionId + "\","
+                + "\"amount_due\":1599,\"amount_paid\":1599,\"currency\":" + currency + "}}}";
+    }
+
+    private static String sign(String payload) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        return "t=" + timestamp + ",v1=" + Webhook.Util.computeHmacSha256(SECRET, timestamp + "." + payload);
+    }
+
+}
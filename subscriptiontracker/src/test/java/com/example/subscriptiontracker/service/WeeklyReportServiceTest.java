@@ -0,0 +1,236 @@
+package com.example.subscriptiontracker.service;
+
+import com.example.subscriptiontracker.model.JobLease;
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.JobLeaseRepository;
+import com.example.subscriptiontracker.repository.UserRepository;
+import com.example.subscriptiontracker.support.SmtpStub;
+import com.example.subscriptiontracker.support.TestFixtures;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {
+        "reports.weekly.batch-size=1",
+        "reports.weekly.compute-threads=2",
+        "reports.weekly.queue-capacity=1"
+})
+class WeeklyReportServiceTest {
+
+    private static final SmtpStub smtp = SmtpStub.start();
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::getPort);
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private WeeklyReportService weeklyReportService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private MailOutboxDispatcher mailOutboxDispatcher;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @MockitoSpyBean
+    private ReportLedgerService reportLedgerService;
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+
+    @AfterAll
+    static void stopSmtp() throws Exception {
+        smtp.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxDispatcher.dispatchDue();
+        smtp.reset();
+        leaseRepository.deleteById(WeeklyReportService.JOB_NAME);
+    }
+
+    @Test
+    void queuesOneReportPerOptedInUserAndSkipsASecondRunForTheSameDay() throws Exception {
+        User reader = fixtures.newUser("Report Reader");
+        fixtures.newSubscription(reader, "Netflix", "15.99", 3);
+        Subscription spotify = fixtures.newSubscription(reader, "Spotify", "9.99", 20);
+        Subscription gym = fixtures.newSubscription(reader, "Gym", "30.00", 20);
+        pay(spotify, "PAYMENT_SUCCESS");
+        // A failed payment also takes the subscription out of the active totals.
+        pay(gym, "PAYMENT_FAILED");
+
+        User optedOut = fixtures.newUser("Quiet User");
+        fixtures.newSubscription(optedOut, "Hulu", "7.99", 3);
+        optedOut.setEmailNotifications(false);
+        userRepository.save(optedOut);
+
+        User idle = fixtures.newUser("Idle User");
+
+        // The report covers the seven days before the run, so run it tomorrow to include today's payments.
+        LocalDate runDate = LocalDate.now().plusDays(1);
+        WeeklyReportService.Result result = weeklyReportService.sendWeeklyReports(runDate);
+        // The run only queues the reports; the outbox delivers them.
+        assertThat(smtp.getMessages()).isEmpty();
+        mailOutboxDispatcher.dispatchDue();
+
+        assertThat(result.failed()).isZero();
+        assertThat(result.queued()).isEqualTo(result.reports());
+        assertThat(result.stages()).extracting(WeeklyReportService.StageTiming::stage)
+                .containsExactly("read", "compute", "render", "queue");
+        assertThat(recipients()).contains(reader.getEmail())
+                .doesNotContain(optedOut.getEmail(), idle.getEmail());
+
+        MimeMessage report = reportTo(reader.getEmail());
+        assertThat((String) report.getContent())
+                .contains("Hi Report Reader,")
+                .contains("Active Subscriptions: 2")
+                .contains("Monthly Spending: $25.98")
+                .contains("Successful: 1 ($9.99)")
+                .contains("Failed: 1")
+                .contains("• Netflix - $15.99 USD")
+                .doesNotContain("Spotify -");
+
+        smtp.reset();
+        WeeklyReportService.Result rerun = weeklyReportService.sendWeeklyReports(runDate);
+        mailOutboxDispatcher.dispatchDue();
+        assertThat(rerun.users()).isZero();
+        assertThat(smtp.getMessages()).isEmpty();
+    }
+
+    @Test
+    void aRunThatCouldNotReadItsRecipientsIsRetried() throws Exception {
+        User reader = fixtures.newUser("Report Reader");
+        fixtures.newSubscription(reader, "Netflix", "15.99", 3);
+        LocalDate runDate = LocalDate.now().plusDays(2);
+
+        doThrow(new DataAccessResourceFailureException("connection reset")).when(userRepository).findReportRecipientsAfter(anyLong(), any());
+        WeeklyReportService.Result failed = weeklyReportService.sendWeeklyReports(runDate);
+
+        assertThat(failed.complete()).isFalse();
+        assertThat(smtp.getMessages()).isEmpty();
+        JobLease lease = leaseRepository.findById(WeeklyReportService.JOB_NAME).orElseThrow();
+        assertThat(lease.isCompleted()).isFalse();
+
+        reset(userRepository);
+        lease.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        leaseRepository.save(lease);
+        WeeklyReportService.Result retried = weeklyReportService.resumeAbandoned();
+        mailOutboxDispatcher.dispatchDue();
+
+        assertThat(retried.complete()).isTrue();
+        assertThat(recipients()).contains(reader.getEmail());
+        assertThat(leaseRepository.findById(WeeklyReportService.JOB_NAME)).get()
+                .extracting(JobLease::isCompleted).isEqualTo(true);
+    }
+
+    @Test
+    void aResumedRunOnlyQueuesTheReportsThatFailedToQueue() throws Exception {
+        User first = fixtures.newUser("First Reader");
+        fixtures.newSubscription(first, "Netflix", "15.99", 3);
+        User second = fixtures.newUser("Second Reader");
+        fixtures.newSubscription(second, "Spotify", "9.99", 3);
+        LocalDate runDate = LocalDate.now().plusDays(3);
+
+        // With a batch size of one, only the second user's batch fails to queue.
+        doCallRealMethod()
+                .doThrow(new DataAccessResourceFailureException("connection reset"))
+                .doCallRealMethod()
+                .when(reportLedgerService).queue(any(), any());
+        WeeklyReportService.Result failed = weeklyReportService.sendWeeklyReports(runDate);
+        mailOutboxDispatcher.dispatchDue();
+
+        assertThat(failed.complete()).isFalse();
+        assertThat(failed.failed()).isEqualTo(1);
+        List<String> firstAttempt = recipients();
+        assertThat(firstAttempt).containsAnyOf(first.getEmail(), second.getEmail());
+
+        reset(reportLedgerService);
+        smtp.reset();
+        expireLease();
+        WeeklyReportService.Result retried = weeklyReportService.resumeAbandoned();
+        mailOutboxDispatcher.dispatchDue();
+
+        assertThat(retried.complete()).isTrue();
+        assertThat(retried.queued()).isEqualTo(1);
+        // Each user gets exactly one report across both attempts.
+        List<String> all = new ArrayList<>(firstAttempt);
+        all.addAll(recipients());
+        assertThat(all).filteredOn(email -> email.equals(first.getEmail()) || email.equals(second.getEmail()))
+                .containsExactlyInAnyOrder(first.getEmail(), second.getEmail());
+    }
+
+    @Test
+    void aReaderThatDiesOfAnErrorStillEndsTheRun() {
+        User reader = fixtures.newUser("Report Reader");
+        fixtures.newSubscription(reader, "Netflix", "15.99", 3);
+        LocalDate runDate = LocalDate.now().plusDays(4);
+
+        doThrow(new StackOverflowError()).when(userRepository).findReportRecipientsAfter(anyLong(), any());
+        WeeklyReportService.Result failed = weeklyReportService.sendWeeklyReports(runDate);
+
+        assertThat(failed.complete()).isFalse();
+        assertThat(failed.queued()).isZero();
+    }
+
+    private void expireLease() {
+        JobLease lease = leaseRepository.findById(WeeklyReportService.JOB_NAME).orElseThrow();
+        lease.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        leaseRepository.save(lease);
+    }
+
+    private List<String> recipients() throws Exception {
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage message : smtp.getMessages()) {
+            if (message.getSubject().contains("Weekly Spending Report")) {
+                recipients.add(message.getAllRecipients()[0].toString());
+            }
+        }
+        return recipients;
+    }
+
+    private MimeMessage reportTo(String email) throws Exception {
+        for (MimeMessage message : smtp.getMessages()) {
+            if (message.getAllRecipients()[0].toString().equals(email)
+                    && message.getSubject().contains("Weekly Spending Report")) {
+                return message;
+            }
+        }
+        throw new AssertionError("No report sent to " + email);
+    }
+
+    private void pay(Subscription subscription, String eventType) {
+        subscriptionService.processPaymentEvent(subscription.getStripeSubscriptionId(), eventType,
+                subscription.getPrice(), "USD", UUID.randomUUID().toString());
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.example.subscriptiontracker.support;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server for tests. Accepts every message and keeps it in memory, unless
+ * told to reject the next few with {@link #rejectNext(int)}. Benchmarks can call
+ * {@link #discardMessages()} to only count what arrives, slow every message down with
+ * {@link #setLatency(Duration)}, reject a random share with {@link #setFailureRate(double)}, and
+ * read when each message was accepted from {@link #drainAcceptTimes()}.
+ */
+public class SmtpStub implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<MimeMessage> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejections = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final Queue<Long> acceptTimes = new ConcurrentLinkedQueue<>();
+    private final Random random = new Random(42);
+    private volatile boolean keepMessages = true;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double failureRate;
+
+    private SmtpStub(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static SmtpStub start() {
+        try {
+            return new SmtpStub(new ServerSocket(0));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<MimeMessage> getMessages() {
+        return messages;
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public void discardMessages() {
+        keepMessages = false;
+        messages.clear();
+    }
+
+    public void rejectNext(int count) {
+        rejections.set(count);
+    }
+
+    /**
+     * Time the server takes to answer each message's DATA, like a relay that queues to disk
+     * before acknowledging.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Share of messages, between 0 and 1, rejected with a transient 451 error. Draws come from a
+     * fixed seed, so a run is repeatable for the same sending order.
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which each message accepted since the last call
+     * was acknowledged, and forgets them.
+     */
+    public long[] drainAcceptTimes() {
+        List<Long> drained = new ArrayList<>();
+        Long time;
+        while ((time = acceptTimes.poll()) != null) {
+            drained.add(time);
+        }
+        return drained.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public void reset() {
+        messages.clear();
+        acceptTimes.clear();
+        rejections.set(0);
+        connections.set(0);
+        received.set(0);
+        latency = Duration.ZERO;
+        failureRate = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> handle(socket), "smtp-stub-session");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+
+            reply(out, "220 localhost SMTP stub");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (!latency.isZero()) {
+                            Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+                        }
+                        if (rejections.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            reply(out, "554 Transaction failed");
+                        } else if (failureRate > 0 && nextDouble() < failureRate) {
+                            reply(out, "451 Try again later");
+                        } else {
+                            received.incrementAndGet();
+                            if (keepMessages) {
+                                messages.add(new MimeMessage(Session.getInstance(new Properties()),
+                                        new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8))));
+                            }
+                            acceptTimes.add(System.nanoTime());
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (Exception e) {
+            // The client went away; nothing to clean up.
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private String readData(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            lines.add(line.startsWith("..") ? line.substring(1) : line);
+        }
+        return String.join("\r\n", lines) + "\r\n";
+    }
+
+    private void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.subscriptiontracker.support;
+
+import com.example.subscriptiontracker.model.Subscription;
+import com.example.subscriptiontracker.model.User;
+import com.example.subscriptiontracker.repository.SubscriptionRepository;
+import com.example.subscriptiontracker.service.SubscriptionService;
+import com.example.subscriptiontracker.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Creates users and subscriptions through the services, the way the API would. Every user gets a
+ * unique email and every subscription a unique Stripe id, so tests sharing a context never collide.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestFixtures {
+    private final UserService userService;
+    private final SubscriptionService subscriptionService;
+    private final SubscriptionRepository subscriptionRepository;
+
+    public User newUser() {
+        return newUser("Test User");
+    }
+
+    public User newUser(String name) {
+        return userService.registerUser(UUID.randomUUID() + "@example.com", name, "password");
+    }
+
+    public Subscription newSubscription(User user) {
+        return newSubscription(user, "Netflix", "15.99");
+    }
+
+    public Subscription newSubscription(User user, String name, String price) {
+        return newSubscription(user, name, price, 10);
+    }
+
+    public Subscription newSubscription(User user, String name, String price, int renewsInDays) {
+        Subscription subscription = subscriptionService.createSubscription(user.getId(), name, "Premium",
+                new BigDecimal(price), "Video", null, LocalDateTime.now().plusDays(renewsInDays));
+        subscription.setStripeSubscriptionId("sub_" + UUID.randomUUID());
+        return subscriptionRepository.save(subscription);
+    }
+}